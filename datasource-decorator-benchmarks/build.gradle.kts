@@ -0,0 +1,29 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+dependencies {
+    jmh(platform(libs.spring.boot.dependencies))
+    jmhAnnotationProcessor(platform(libs.spring.boot.dependencies))
+
+    jmh(project(":p6spy-spring-boot-starter"))
+    jmh(project(":datasource-proxy-spring-boot-starter"))
+    jmh(project(":flexy-pool-spring-boot-starter"))
+
+    jmh(libs.spring.boot)
+    jmh(libs.spring.boot.starter.jdbc)
+    jmh(libs.h2)
+
+    jmh(libs.jmh.core)
+    jmhAnnotationProcessor(libs.jmh.generator.annprocess)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // measure allocation rate per operation alongside latency
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    // allows running a subset, e.g. './gradlew :datasource-decorator-benchmarks:jmh -Pbenchmark=getConnection'
+    project.findProperty("benchmark")?.let { includes = listOf(it.toString()) }
+}
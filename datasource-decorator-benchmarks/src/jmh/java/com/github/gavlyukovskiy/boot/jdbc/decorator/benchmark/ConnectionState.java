@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Connection and prepared statements held by a benchmark thread for the duration of an iteration,
+ * so statement level benchmarks don't include connection acquisition.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@State(Scope.Thread)
+public class ConnectionState {
+
+    private Connection connection;
+    private PreparedStatement selectById;
+    private PreparedStatement selectAll;
+
+    @Setup(Level.Iteration)
+    public void setUp(DataSourceState dataSourceState) throws SQLException {
+        connection = dataSourceState.getDataSource().getConnection();
+        selectById = connection.prepareStatement(DataSourceState.SELECT_BY_ID);
+        selectAll = connection.prepareStatement(DataSourceState.SELECT_ALL);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws SQLException {
+        selectAll.close();
+        selectById.close();
+        connection.close();
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public PreparedStatement getSelectById() {
+        return selectById;
+    }
+
+    public PreparedStatement getSelectAll() {
+        return selectAll;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-call overhead of decorators on the most common JDBC calls.
+ * Compare results of each {@code decoration} with {@code none} to get the cost of the decorator.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSourceDecoratorBenchmark {
+
+    @Benchmark
+    public void getConnection(DataSourceState dataSourceState, Blackhole blackhole) throws SQLException {
+        try (Connection connection = dataSourceState.getDataSource().getConnection()) {
+            blackhole.consume(connection);
+        }
+    }
+
+    @Benchmark
+    public void prepareStatement(ConnectionState connectionState, Blackhole blackhole) throws SQLException {
+        try (PreparedStatement statement = connectionState.getConnection().prepareStatement(DataSourceState.SELECT_BY_ID)) {
+            blackhole.consume(statement);
+        }
+    }
+
+    @Benchmark
+    public void executeQuery(ConnectionState connectionState, Blackhole blackhole) throws SQLException {
+        PreparedStatement statement = connectionState.getSelectById();
+        statement.setInt(1, ThreadLocalRandom.current().nextInt(DataSourceState.ROWS));
+        try (ResultSet resultSet = statement.executeQuery()) {
+            blackhole.consume(resultSet);
+        }
+    }
+
+    @Benchmark
+    public void iterateResultSet(ConnectionState connectionState, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = connectionState.getSelectAll().executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getInt(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.benchmark;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.ProxyDataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.flexypool.FlexyPoolDataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.P6SpyDataSourceDecorator;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Shared {@link DataSource} for benchmarks, decorated according to {@link #decoration}:
+ * <ul>
+ *     <li>{@code none} - real data source, without any decorator</li>
+ *     <li>{@code p6spy}, {@code datasource-proxy}, {@code flexy-pool} - real data source wrapped by a single decorator</li>
+ *     <li>{@code chain} - data source bean with all decorators applied by the bean post processor</li>
+ * </ul>
+ * Query logging is disabled, so the numbers show the cost of the decorators themselves rather than of the appenders.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@State(Scope.Benchmark)
+public class DataSourceState {
+
+    static final int ROWS = 100;
+    static final String SELECT_BY_ID = "SELECT id, name FROM benchmark_entity WHERE id = ?";
+    static final String SELECT_ALL = "SELECT id, name FROM benchmark_entity";
+
+    @Param({"none", "p6spy", "datasource-proxy", "flexy-pool", "chain"})
+    public String decoration;
+
+    private ConfigurableApplicationContext context;
+    private DataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.sql.init.mode=never",
+                        "logging.level.root=WARN",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "decorator.datasource.datasource-proxy.query.enable-logging=false",
+                        "decorator.datasource.flexy-pool.metrics.reporter.jmx.enabled=false"
+                )
+                .run();
+        DecoratedDataSource decoratedDataSource = (DecoratedDataSource) context.getBean(DataSource.class);
+        DataSource realDataSource = decoratedDataSource.getRealDataSource();
+        dataSource = switch (decoration) {
+            case "none" -> realDataSource;
+            case "p6spy" -> decorate(P6SpyDataSourceDecorator.class, realDataSource);
+            case "datasource-proxy" -> decorate(ProxyDataSourceDecorator.class, realDataSource);
+            case "flexy-pool" -> decorate(FlexyPoolDataSourceDecorator.class, realDataSource);
+            case "chain" -> decoratedDataSource;
+            default -> throw new IllegalArgumentException("Unknown decoration " + decoration);
+        };
+        createSchema(realDataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (dataSource instanceof FlexyPoolDataSource<?> flexyPoolDataSource) {
+            flexyPoolDataSource.stop();
+        }
+        context.close();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    private DataSource decorate(Class<? extends DataSourceDecorator> decoratorClass, DataSource realDataSource) {
+        return context.getBean(decoratorClass).decorate("dataSource", realDataSource);
+    }
+
+    private static void createSchema(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS benchmark_entity");
+                statement.execute("CREATE TABLE benchmark_entity (id INT PRIMARY KEY, name VARCHAR(255))");
+            }
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO benchmark_entity (id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    statement.setInt(1, i);
+                    statement.setString(2, "name-" + i);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+}
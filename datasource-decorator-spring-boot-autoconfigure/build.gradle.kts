@@ -29,6 +29,9 @@ dependencies {
     compileOnly(libs.flexy.pool.micrometer.metrics)
 
     compileOnly(libs.spring.boot.actuator)
+    compileOnly(libs.micrometer.core)
+    compileOnly(libs.spring.web)
+    compileOnly(libs.jakarta.servlet.api)
 
     // optional (compileOnly) dependencies for SQL formatting
     compileOnly(libs.hibernate.core)
@@ -53,6 +56,10 @@ dependencies {
     testImplementation(libs.tomcat.jdbc)
     testImplementation(libs.hikari.cp)
     testImplementation(libs.flyway.core)
+    testImplementation(libs.micrometer.core)
+    testImplementation(libs.spring.boot.actuator)
+    testImplementation(libs.spring.web)
+    testImplementation(libs.jakarta.servlet.api)
 }
 
 tasks {
@@ -74,5 +81,7 @@ tasks {
 
     test {
         useJUnitPlatform()
+        // prints stack traces of virtual threads pinned by decorators (Java 21+), see VirtualThreadPinningTests
+        jvmArgs("-Djdk.tracePinnedThreads=full")
     }
 }
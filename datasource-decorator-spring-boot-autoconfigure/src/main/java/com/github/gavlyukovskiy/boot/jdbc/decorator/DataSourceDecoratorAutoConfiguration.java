@@ -16,9 +16,17 @@
 
 package com.github.gavlyukovskiy.boot.jdbc.decorator;
 
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.ConnectionLeakDetectionConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.batching.StatementBatchingConfiguration;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.DataSourceProxyConfiguration;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.flexypool.FlexyPoolConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.ConnectionMetricsConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryMetricsConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryStatisticsConfiguration;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.P6SpyConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache.ResultCacheConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache.PreparedStatementCacheConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.timeout.StatementTimeoutConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -45,6 +53,14 @@ import javax.sql.DataSource;
         P6SpyConfiguration.class,
         DataSourceProxyConfiguration.class,
         FlexyPoolConfiguration.Ordered.class,
+        QueryMetricsConfiguration.class,
+        QueryStatisticsConfiguration.class,
+        ConnectionMetricsConfiguration.class,
+        ConnectionLeakDetectionConfiguration.class,
+        StatementTimeoutConfiguration.class,
+        PreparedStatementCacheConfiguration.class,
+        ResultCacheConfiguration.class,
+        StatementBatchingConfiguration.class,
 })
 public class DataSourceDecoratorAutoConfiguration {
 
@@ -54,6 +70,13 @@ public class DataSourceDecoratorAutoConfiguration {
         return new DataSourceDecoratorBeanPostProcessor();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "decorator.datasource.sampling.rate")
+    public DataSourceSampler dataSourceSampler(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+        return new RateDataSourceSampler(dataSourceDecoratorProperties.getSampling().getRate());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnBean(DataSourceDecorator.class)
@@ -21,12 +21,18 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationStartupAware;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,14 +42,28 @@ import java.util.Objects;
 /**
  * {@link BeanPostProcessor} that wraps all data source beans in {@link DataSource}
  * proxies specified in property 'spring.datasource.type'.
+ * <p>
+ * Decorators are resolved and sorted once and reused for all data source beans.
+ * Each decoration is recorded as {@link StartupStep} 'decorator.datasource.decorate' with nested
+ * 'decorator.datasource.decorator' step for every decorator.
+ * <p>
+ * With 'decorator.datasource.decorate-routing-data-source-targets' each target of {@link AbstractRoutingDataSource}
+ * is decorated instead of the routing data source, so that metrics and logs are attributed to the actual target.
  *
  * @author Arthur Gavlyukovskiy
  */
-public class DataSourceDecoratorBeanPostProcessor implements BeanPostProcessor, Ordered, ApplicationContextAware {
+public class DataSourceDecoratorBeanPostProcessor implements BeanPostProcessor, Ordered, ApplicationContextAware, ApplicationStartupAware {
 
     private ApplicationContext applicationContext;
+    private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
     private DataSourceDecoratorProperties dataSourceDecoratorProperties;
 
+    /**
+     * Sorted decorators resolved for {@link #decoratorBeanNames}, resolved again only when decorator beans change.
+     */
+    private Map<String, DataSourceDecorator> decorators;
+    private String[] decoratorBeanNames;
+
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
         return bean;
@@ -54,33 +74,104 @@ public class DataSourceDecoratorBeanPostProcessor implements BeanPostProcessor,
         if (bean instanceof DataSource
                 && !ScopedProxyUtils.isScopedTarget(beanName)
                 && !((bean instanceof AbstractRoutingDataSource) && getDataSourceDecoratorProperties().isIgnoreRoutingDataSources())
-                && !getDataSourceDecoratorProperties().getExcludeBeans().contains(beanName)) {
-            DataSource dataSource = (DataSource) bean;
-            DataSource decoratedDataSource = dataSource;
-            Map<String, DataSourceDecorator> decorators = new LinkedHashMap<>();
-            applicationContext.getBeansOfType(DataSourceDecorator.class)
-                    .entrySet()
-                    .stream()
-                    .sorted(Entry.comparingByValue(AnnotationAwareOrderComparator.INSTANCE))
-                    .forEach(entry -> decorators.put(entry.getKey(), entry.getValue()));
-            List<DataSourceDecorationStage> decoratedDataSourceChainEntries = new ArrayList<>();
-            for (Entry<String, DataSourceDecorator> decoratorEntry : decorators.entrySet()) {
-                String decoratorBeanName = decoratorEntry.getKey();
-                DataSourceDecorator decorator = decoratorEntry.getValue();
+                && !getDataSourceDecoratorProperties().getExcludeBeans().contains(beanName)
+                && !Boolean.FALSE.equals(getDataSourceDecoratorProperties().getBeanProperties(beanName).getEnabled())) {
+            if (bean instanceof AbstractRoutingDataSource && getDataSourceDecoratorProperties().isDecorateRoutingDataSourceTargets()) {
+                decorateTargetDataSources((AbstractRoutingDataSource) bean, beanName);
+                return bean;
+            }
+            return decorateWithStartupStep((DataSource) bean, beanName, null);
+        }
+        return bean;
+    }
+
+    private DataSource decorateWithStartupStep(DataSource dataSource, String beanName, DataSourceNameResolver dataSourceNameResolver) {
+        StartupStep decorateStep = applicationStartup.start("decorator.datasource.decorate")
+                .tag("beanName", beanName);
+        try {
+            return decorate(dataSource, beanName, dataSourceNameResolver);
+        }
+        finally {
+            decorateStep.end();
+        }
+    }
+
+    private void decorateTargetDataSources(AbstractRoutingDataSource routingDataSource, String beanName) {
+        DataSourceNameResolver dataSourceNameResolver = applicationContext.getBeanProvider(DataSourceNameResolver.class).getIfAvailable();
+        // the same data source may be registered under multiple keys and as default target, it's decorated only once
+        Map<DataSource, DataSource> decoratedTargets = new IdentityHashMap<>();
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        routingDataSource.getResolvedDataSources().forEach((key, target) -> targetDataSources.put(key,
+                decoratedTargets.computeIfAbsent(target, t -> decorateTargetDataSource(t, beanName + "." + key, dataSourceNameResolver))));
+        DataSource defaultTarget = routingDataSource.getResolvedDefaultDataSource();
+        if (defaultTarget != null) {
+            routingDataSource.setDefaultTargetDataSource(decoratedTargets.computeIfAbsent(defaultTarget,
+                    t -> decorateTargetDataSource(t, beanName + ".default", dataSourceNameResolver)));
+        }
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.initialize();
+    }
+
+    private DataSource decorateTargetDataSource(DataSource target, String targetName, DataSourceNameResolver dataSourceNameResolver) {
+        // targets that are beans are decorated on their own
+        if (target instanceof DecoratedDataSource
+                || target instanceof AbstractRoutingDataSource
+                || getDataSourceDecoratorProperties().getExcludeBeans().contains(targetName)
+                || Boolean.FALSE.equals(getDataSourceDecoratorProperties().getBeanProperties(targetName).getEnabled())) {
+            return target;
+        }
+        return decorateWithStartupStep(target, targetName, dataSourceNameResolver);
+    }
+
+    private DataSource decorate(DataSource dataSource, String beanName, DataSourceNameResolver dataSourceNameResolver) {
+        DataSource decoratedDataSource = dataSource;
+        List<DataSourceDecorationStage> decoratedDataSourceChainEntries = new ArrayList<>();
+        for (Entry<String, DataSourceDecorator> decoratorEntry : getDecorators().entrySet()) {
+            String decoratorBeanName = decoratorEntry.getKey();
+            DataSourceDecorator decorator = decoratorEntry.getValue();
 
-                DataSource dataSourceBeforeDecorating = decoratedDataSource;
+            StartupStep decoratorStep = applicationStartup.start("decorator.datasource.decorator")
+                    .tag("beanName", beanName)
+                    .tag("decorator", decoratorBeanName);
+            DataSource dataSourceBeforeDecorating = decoratedDataSource;
+            if (dataSourceNameResolver != null) {
+                // data source is not a bean, so its name can't be resolved from the context
+                dataSourceNameResolver.registerDataSourceName(dataSourceBeforeDecorating, beanName);
+            }
+            try {
                 decoratedDataSource = Objects.requireNonNull(decorator.decorate(beanName, decoratedDataSource),
                         "DataSourceDecorator (" + decoratorBeanName + ", " + decorator + ") should not return null");
-
-                if (dataSourceBeforeDecorating != decoratedDataSource) {
-                    decoratedDataSourceChainEntries.add(0, new DataSourceDecorationStage(decoratorBeanName, decorator, decoratedDataSource));
-                }
             }
-            if (dataSource != decoratedDataSource) {
-                return new DecoratedDataSource(beanName, dataSource, decoratedDataSource, decoratedDataSourceChainEntries);
+            finally {
+                decoratorStep.tag("decorated", String.valueOf(dataSourceBeforeDecorating != decoratedDataSource));
+                decoratorStep.end();
+            }
+
+            if (dataSourceBeforeDecorating != decoratedDataSource) {
+                decoratedDataSourceChainEntries.add(0, new DataSourceDecorationStage(decoratorBeanName, decorator, decoratedDataSource));
             }
         }
-        return bean;
+        if (dataSource != decoratedDataSource) {
+            return new DecoratedDataSource(beanName, dataSource, decoratedDataSource, decoratedDataSourceChainEntries);
+        }
+        return dataSource;
+    }
+
+    private Map<String, DataSourceDecorator> getDecorators() {
+        // bean names by type are cached by the bean factory once configuration is frozen,
+        // so this is cheap compared to instantiating and sorting decorators for every data source
+        String[] beanNames = applicationContext.getBeanNamesForType(DataSourceDecorator.class);
+        if (decorators == null || !Arrays.equals(beanNames, decoratorBeanNames)) {
+            Map<String, DataSourceDecorator> sortedDecorators = new LinkedHashMap<>();
+            applicationContext.getBeansOfType(DataSourceDecorator.class)
+                    .entrySet()
+                    .stream()
+                    .sorted(Entry.comparingByValue(AnnotationAwareOrderComparator.INSTANCE))
+                    .forEach(entry -> sortedDecorators.put(entry.getKey(), entry.getValue()));
+            decorators = sortedDecorators;
+            decoratorBeanNames = beanNames;
+        }
+        return decorators;
     }
 
     private DataSourceDecoratorProperties getDataSourceDecoratorProperties() {
@@ -99,4 +190,9 @@ public class DataSourceDecoratorBeanPostProcessor implements BeanPostProcessor,
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
     }
+
+    @Override
+    public void setApplicationStartup(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+    }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Overrides of decorator properties for a single data source bean, configured as
+ * {@code decorator.datasource.beans.<bean name>.*}. Properties that are not set are inherited from global configuration.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class DataSourceDecoratorBeanProperties {
+
+    /**
+     * Enables decorating of this data source.
+     */
+    private Boolean enabled;
+
+    private P6Spy p6spy = new P6Spy();
+
+    private DataSourceProxy datasourceProxy = new DataSourceProxy();
+
+    private FlexyPool flexyPool = new FlexyPool();
+
+    private StatementTimeout statementTimeout = new StatementTimeout();
+
+    public Boolean getEnabled() {
+        return this.enabled;
+    }
+
+    public P6Spy getP6spy() {
+        return this.p6spy;
+    }
+
+    public DataSourceProxy getDatasourceProxy() {
+        return this.datasourceProxy;
+    }
+
+    public FlexyPool getFlexyPool() {
+        return this.flexyPool;
+    }
+
+    public StatementTimeout getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setP6spy(P6Spy p6spy) {
+        this.p6spy = p6spy;
+    }
+
+    public void setDatasourceProxy(DataSourceProxy datasourceProxy) {
+        this.datasourceProxy = datasourceProxy;
+    }
+
+    public void setFlexyPool(FlexyPool flexyPool) {
+        this.flexyPool = flexyPool;
+    }
+
+    public void setStatementTimeout(StatementTimeout statementTimeout) {
+        this.statementTimeout = statementTimeout;
+    }
+
+    public static class P6Spy {
+        /**
+         * Enables decorating of this data source with p6spy.
+         */
+        private Boolean enabled;
+        /**
+         * Enables logging of JDBC events of this data source, can only disable logging enabled globally.
+         */
+        private Boolean enableLogging;
+
+        public Boolean getEnabled() {
+            return this.enabled;
+        }
+
+        public Boolean getEnableLogging() {
+            return this.enableLogging;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setEnableLogging(Boolean enableLogging) {
+            this.enableLogging = enableLogging;
+        }
+    }
+
+    public static class DataSourceProxy {
+        /**
+         * Enables decorating of this data source with datasource-proxy.
+         */
+        private Boolean enabled;
+
+        private Query query = new Query();
+
+        private SlowQuery slowQuery = new SlowQuery();
+
+        public Boolean getEnabled() {
+            return this.enabled;
+        }
+
+        public Query getQuery() {
+            return this.query;
+        }
+
+        public SlowQuery getSlowQuery() {
+            return this.slowQuery;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setQuery(Query query) {
+            this.query = query;
+        }
+
+        public void setSlowQuery(SlowQuery slowQuery) {
+            this.slowQuery = slowQuery;
+        }
+
+        /**
+         * Whether any of logging properties is overridden.
+         *
+         * @return {@code true} if logging properties are overridden
+         */
+        public boolean hasLoggingOverrides() {
+            return query.enableLogging != null || query.logLevel != null
+                    || slowQuery.enableLogging != null || slowQuery.threshold != null;
+        }
+
+        public static class Query {
+            /**
+             * Enables query logging for this data source.
+             */
+            private Boolean enableLogging;
+            /**
+             * Severity of query logger for this data source.
+             */
+            private String logLevel;
+
+            public Boolean getEnableLogging() {
+                return this.enableLogging;
+            }
+
+            public String getLogLevel() {
+                return this.logLevel;
+            }
+
+            public void setEnableLogging(Boolean enableLogging) {
+                this.enableLogging = enableLogging;
+            }
+
+            public void setLogLevel(String logLevel) {
+                this.logLevel = logLevel;
+            }
+        }
+
+        public static class SlowQuery {
+            /**
+             * Enables slow query logging for this data source.
+             */
+            private Boolean enableLogging;
+            /**
+             * Query duration to consider the query slow for this data source.
+             */
+            @DurationUnit(value = ChronoUnit.SECONDS)
+            private Duration threshold;
+
+            public Boolean getEnableLogging() {
+                return this.enableLogging;
+            }
+
+            public Duration getThreshold() {
+                return this.threshold;
+            }
+
+            public void setEnableLogging(Boolean enableLogging) {
+                this.enableLogging = enableLogging;
+            }
+
+            public void setThreshold(Duration threshold) {
+                this.threshold = threshold;
+            }
+        }
+    }
+
+    public static class FlexyPool {
+        /**
+         * Enables decorating of this data source with flexy-pool.
+         */
+        private Boolean enabled;
+
+        public Boolean getEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class StatementTimeout {
+        /**
+         * Query timeout applied to statements of this data source that don't match any of query specific timeouts.
+         */
+        @DurationUnit(value = ChronoUnit.SECONDS)
+        private Duration defaultTimeout;
+
+        public Duration getDefaultTimeout() {
+            return this.defaultTimeout;
+        }
+
+        public void setDefaultTimeout(Duration defaultTimeout) {
+            this.defaultTimeout = defaultTimeout;
+        }
+    }
+}
@@ -16,14 +16,25 @@
 
 package com.github.gavlyukovskiy.boot.jdbc.decorator;
 
+import com.github.gavlyukovskiy.boot.jdbc.decorator.batching.StatementBatchingProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.ConnectionLeakDetectionProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.DataSourceProxyProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.FetchSizeProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.flexypool.FlexyPoolProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.ConnectionMetricsProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryMetricsProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryStatisticsProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.P6SpyProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache.ResultCacheProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache.PreparedStatementCacheProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.timeout.StatementTimeoutProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Properties for configuring proxy providers.
@@ -33,6 +44,8 @@ import java.util.Collections;
 @ConfigurationProperties(prefix = "decorator.datasource")
 public class DataSourceDecoratorProperties {
 
+    private static final DataSourceDecoratorBeanProperties NO_OVERRIDES = new DataSourceDecoratorBeanProperties();
+
     /**
      * Enables data source decorating.
      */
@@ -47,6 +60,17 @@ public class DataSourceDecoratorProperties {
      */
     private boolean ignoreRoutingDataSources = false;
 
+    /**
+     * Decorate each target data source of AbstractRoutingDataSource individually instead of the routing data source,
+     * targets are named '<routing bean name>.<lookup key>'.
+     */
+    private boolean decorateRoutingDataSourceTargets = false;
+
+    /**
+     * Sampling of connections instrumented by p6spy and datasource-proxy.
+     */
+    private Sampling sampling = new Sampling();
+
     @NestedConfigurationProperty
     private DataSourceProxyProperties datasourceProxy = new DataSourceProxyProperties();
 
@@ -56,6 +80,38 @@ public class DataSourceDecoratorProperties {
     @NestedConfigurationProperty
     private FlexyPoolProperties flexyPool = new FlexyPoolProperties();
 
+    @NestedConfigurationProperty
+    private QueryMetricsProperties queryMetrics = new QueryMetricsProperties();
+
+    @NestedConfigurationProperty
+    private QueryStatisticsProperties queryStatistics = new QueryStatisticsProperties();
+
+    @NestedConfigurationProperty
+    private ConnectionMetricsProperties connectionMetrics = new ConnectionMetricsProperties();
+
+    @NestedConfigurationProperty
+    private ConnectionLeakDetectionProperties leakDetection = new ConnectionLeakDetectionProperties();
+
+    @NestedConfigurationProperty
+    private StatementTimeoutProperties statementTimeout = new StatementTimeoutProperties();
+
+    @NestedConfigurationProperty
+    private PreparedStatementCacheProperties preparedStatementCache = new PreparedStatementCacheProperties();
+
+    @NestedConfigurationProperty
+    private ResultCacheProperties resultCache = new ResultCacheProperties();
+
+    @NestedConfigurationProperty
+    private StatementBatchingProperties statementBatching = new StatementBatchingProperties();
+
+    @NestedConfigurationProperty
+    private FetchSizeProperties fetchSize = new FetchSizeProperties();
+
+    /**
+     * Per data source overrides by bean name, e.g. {@code decorator.datasource.beans.adminDataSource.p6spy.enabled=false}.
+     */
+    private Map<String, DataSourceDecoratorBeanProperties> beans = new HashMap<>();
+
     public boolean isEnabled() {
         return this.enabled;
     }
@@ -68,6 +124,14 @@ public class DataSourceDecoratorProperties {
         return ignoreRoutingDataSources;
     }
 
+    public boolean isDecorateRoutingDataSourceTargets() {
+        return decorateRoutingDataSourceTargets;
+    }
+
+    public Sampling getSampling() {
+        return this.sampling;
+    }
+
     public DataSourceProxyProperties getDatasourceProxy() {
         return this.datasourceProxy;
     }
@@ -80,6 +144,46 @@ public class DataSourceDecoratorProperties {
         return this.flexyPool;
     }
 
+    public QueryMetricsProperties getQueryMetrics() {
+        return this.queryMetrics;
+    }
+
+    public QueryStatisticsProperties getQueryStatistics() {
+        return this.queryStatistics;
+    }
+
+    public ConnectionMetricsProperties getConnectionMetrics() {
+        return this.connectionMetrics;
+    }
+
+    public ConnectionLeakDetectionProperties getLeakDetection() {
+        return this.leakDetection;
+    }
+
+    public StatementTimeoutProperties getStatementTimeout() {
+        return this.statementTimeout;
+    }
+
+    public PreparedStatementCacheProperties getPreparedStatementCache() {
+        return this.preparedStatementCache;
+    }
+
+    public ResultCacheProperties getResultCache() {
+        return this.resultCache;
+    }
+
+    public StatementBatchingProperties getStatementBatching() {
+        return this.statementBatching;
+    }
+
+    public FetchSizeProperties getFetchSize() {
+        return this.fetchSize;
+    }
+
+    public Map<String, DataSourceDecoratorBeanProperties> getBeans() {
+        return this.beans;
+    }
+
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
@@ -92,6 +196,14 @@ public class DataSourceDecoratorProperties {
         this.ignoreRoutingDataSources = ignoreRoutingDataSources;
     }
 
+    public void setDecorateRoutingDataSourceTargets(boolean decorateRoutingDataSourceTargets) {
+        this.decorateRoutingDataSourceTargets = decorateRoutingDataSourceTargets;
+    }
+
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
 
     public void setDatasourceProxy(DataSourceProxyProperties datasourceProxy) {
         this.datasourceProxy = datasourceProxy;
@@ -104,4 +216,70 @@ public class DataSourceDecoratorProperties {
     public void setFlexyPool(FlexyPoolProperties flexyPool) {
         this.flexyPool = flexyPool;
     }
+
+    public void setQueryMetrics(QueryMetricsProperties queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    public void setQueryStatistics(QueryStatisticsProperties queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    public void setConnectionMetrics(ConnectionMetricsProperties connectionMetrics) {
+        this.connectionMetrics = connectionMetrics;
+    }
+
+    public void setLeakDetection(ConnectionLeakDetectionProperties leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    public void setStatementTimeout(StatementTimeoutProperties statementTimeout) {
+        this.statementTimeout = statementTimeout;
+    }
+
+    public void setPreparedStatementCache(PreparedStatementCacheProperties preparedStatementCache) {
+        this.preparedStatementCache = preparedStatementCache;
+    }
+
+    public void setResultCache(ResultCacheProperties resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public void setStatementBatching(StatementBatchingProperties statementBatching) {
+        this.statementBatching = statementBatching;
+    }
+
+    public void setFetchSize(FetchSizeProperties fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public void setBeans(Map<String, DataSourceDecoratorBeanProperties> beans) {
+        this.beans = beans;
+    }
+
+    /**
+     * Returns overrides configured for the data source bean.
+     *
+     * @param beanName data source bean name
+     * @return overrides, or empty overrides that inherit everything from global configuration
+     */
+    public DataSourceDecoratorBeanProperties getBeanProperties(String beanName) {
+        return beans.getOrDefault(beanName, NO_OVERRIDES);
+    }
+
+    public static class Sampling {
+        /**
+         * Fraction of connections instrumented by p6spy and datasource-proxy, from 0.0 to 1.0.
+         * If not set, all connections are instrumented unless custom DataSourceSampler bean is defined.
+         */
+        private Double rate;
+
+        public Double getRate() {
+            return this.rate;
+        }
+
+        public void setRate(Double rate) {
+            this.rate = rate;
+        }
+    }
 }
@@ -23,12 +23,19 @@ import org.springframework.util.ClassUtils;
 import javax.sql.CommonDataSource;
 import javax.sql.DataSource;
 
-import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
  * {@link CommonDataSource} name resolver based on bean name.
+ * <p>
+ * Resolved names are cached by data source identity, cache lookups and updates are lock-free and lookups do not allocate,
+ * cached data sources are weakly referenced to not prevent them from being garbage collected.
  *
  * @author Arthur Gavlyukovskiy
  * @since 1.3.0
@@ -37,47 +44,139 @@ public class DataSourceNameResolver {
     private final static boolean HIKARI_AVAILABLE =
             ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", DataSourceNameResolver.class.getClassLoader());
 
+    private static final int INITIAL_CAPACITY = 16;
+    private static final VarHandle CACHED_NAMES;
+
+    static {
+        try {
+            CACHED_NAMES = MethodHandles.lookup().findVarHandle(DataSourceNameResolver.class, "cachedNames", CachedName[].class);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final ApplicationContext applicationContext;
-    private final Map<CommonDataSource, String> cachedNames = new HashMap<>();
+    /**
+     * Open addressing hash table keyed by identity of the data source, never mutated after publishing.
+     * Kept at most half full, so lookup always ends on an empty slot.
+     */
+    private volatile CachedName[] cachedNames = new CachedName[INITIAL_CAPACITY];
 
     public DataSourceNameResolver(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
 
     public String resolveDataSourceName(CommonDataSource dataSource) {
-        String dataSourceName = cachedNames.get(dataSource);
+        String dataSourceName = findCachedName(cachedNames, dataSource);
         if (dataSourceName == null) {
             // even if two threads compute this in parallel result will be the same
-            synchronized (cachedNames) {
-                if (HIKARI_AVAILABLE && dataSource instanceof HikariDataSource) {
-                    HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
-                    if (hikariDataSource.getPoolName() != null && !hikariDataSource.getPoolName().startsWith("HikariPool-")) {
-                        return hikariDataSource.getPoolName();
-                    }
-                }
-                Map<String, DataSource> dataSources = applicationContext.getBeansOfType(DataSource.class);
-                dataSourceName = dataSources.entrySet()
-                        .stream()
-                        .filter(entry -> {
-                            DataSource candidate = entry.getValue();
-                            if (candidate instanceof DecoratedDataSource) {
-                                return matchesDataSource((DecoratedDataSource) candidate, dataSource);
-                            }
-                            return candidate == dataSource;
-                        })
-                        .findFirst()
-                        .map(Entry::getKey)
-                        .orElse("dataSource");
-                cachedNames.put(dataSource, dataSourceName);
-            }
+            dataSourceName = computeDataSourceName(dataSource);
+            cacheName(dataSource, dataSourceName);
         }
         return dataSourceName;
     }
 
+    /**
+     * Registers name of the data source that is not a bean, e.g. target of {@link org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource}.
+     * Has no effect if name of the data source is already resolved.
+     *
+     * @param dataSource data source
+     * @param dataSourceName name to use for the data source
+     */
+    public void registerDataSourceName(CommonDataSource dataSource, String dataSourceName) {
+        cacheName(dataSource, dataSourceName);
+    }
+
+    private String computeDataSourceName(CommonDataSource dataSource) {
+        if (HIKARI_AVAILABLE && dataSource instanceof HikariDataSource) {
+            HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+            if (hikariDataSource.getPoolName() != null && !hikariDataSource.getPoolName().startsWith("HikariPool-")) {
+                return hikariDataSource.getPoolName();
+            }
+        }
+        Map<String, DataSource> dataSources = applicationContext.getBeansOfType(DataSource.class);
+        return dataSources.entrySet()
+                .stream()
+                .filter(entry -> {
+                    DataSource candidate = entry.getValue();
+                    if (candidate instanceof DecoratedDataSource) {
+                        return matchesDataSource((DecoratedDataSource) candidate, dataSource);
+                    }
+                    return candidate == dataSource;
+                })
+                .findFirst()
+                .map(Entry::getKey)
+                .orElse("dataSource");
+    }
+
     private boolean matchesDataSource(DecoratedDataSource decoratedCandidate, CommonDataSource dataSource) {
         return decoratedCandidate.getRealDataSource() == dataSource
                 || decoratedCandidate.getDecoratingChain().stream()
                 .map(DataSourceDecorationStage::getDataSource)
                 .anyMatch(candidate -> candidate == dataSource);
     }
+
+    private static String findCachedName(CachedName[] table, CommonDataSource dataSource) {
+        int mask = table.length - 1;
+        for (int i = System.identityHashCode(dataSource) & mask; ; i = (i + 1) & mask) {
+            CachedName cachedName = table[i];
+            if (cachedName == null) {
+                return null;
+            }
+            if (cachedName.get() == dataSource) {
+                return cachedName.name;
+            }
+        }
+    }
+
+    private void cacheName(CommonDataSource dataSource, String dataSourceName) {
+        // lock-free copy-on-write, so that virtual threads are never blocked while holding a monitor
+        CachedName cachedName = new CachedName(dataSource, dataSourceName);
+        while (true) {
+            CachedName[] table = cachedNames;
+            if (findCachedName(table, dataSource) != null) {
+                return;
+            }
+            if (CACHED_NAMES.compareAndSet(this, table, copyWith(table, cachedName))) {
+                return;
+            }
+        }
+    }
+
+    private static CachedName[] copyWith(CachedName[] table, CachedName newName) {
+        // dropping entries of collected data sources
+        List<CachedName> liveNames = new ArrayList<>();
+        for (CachedName cachedName : table) {
+            if (cachedName != null && cachedName.get() != null) {
+                liveNames.add(cachedName);
+            }
+        }
+        liveNames.add(newName);
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < liveNames.size() * 2) {
+            capacity <<= 1;
+        }
+        CachedName[] newTable = new CachedName[capacity];
+        int mask = capacity - 1;
+        for (CachedName cachedName : liveNames) {
+            int i = cachedName.hash & mask;
+            while (newTable[i] != null) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = cachedName;
+        }
+        return newTable;
+    }
+
+    private static final class CachedName extends WeakReference<CommonDataSource> {
+        private final int hash;
+        private final String name;
+
+        private CachedName(CommonDataSource dataSource, String name) {
+            super(dataSource);
+            this.hash = System.identityHashCode(dataSource);
+            this.name = name;
+        }
+    }
 }
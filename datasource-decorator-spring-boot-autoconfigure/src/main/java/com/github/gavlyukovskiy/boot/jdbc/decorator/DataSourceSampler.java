@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+/**
+ * Decides whether connection obtained from a data source should be instrumented by p6spy and datasource-proxy.
+ * Decision is made once per connection, connections that are not sampled bypass spy decorators entirely.
+ * <p>
+ * Default implementation samples connections randomly using 'decorator.datasource.sampling.rate',
+ * custom implementation can be defined as a bean, for example to follow sampling decision of the current trace.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see SamplingDataSource
+ */
+@FunctionalInterface
+public interface DataSourceSampler {
+
+    /**
+     * Decides whether connection being obtained from a data source should be instrumented.
+     *
+     * @param beanName name of the data source bean
+     *
+     * @return {@code true} if connection should be instrumented
+     */
+    boolean isSampled(String beanName);
+}
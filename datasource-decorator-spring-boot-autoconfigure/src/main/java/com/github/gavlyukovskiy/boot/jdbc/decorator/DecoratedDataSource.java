@@ -35,10 +35,24 @@ import java.util.stream.Collectors;
  */
 public class DecoratedDataSource extends DelegatingDataSource {
 
+    private static final Object SELF = new Object();
+    private static final Object NOT_WRAPPED = new Object();
+
     private final String beanName;
     private final DataSource realDataSource;
     private final DataSource decoratedDataSource;
     private final List<DataSourceDecorationStage> decoratingChain;
+    /**
+     * Results of {@link #unwrap(Class)} by requested type including misses, decorating chain never changes so results can be reused.
+     * {@link ClassValue} doesn't prevent requested types from being unloaded, this data source is stored as {@link #SELF}
+     * so that cached value doesn't keep the cache itself reachable.
+     */
+    private final ClassValue<Object> unwrapCache = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> iface) {
+            return resolveUnwrap(iface);
+        }
+    };
 
     DecoratedDataSource(String beanName, DataSource realDataSource, DataSource decoratedDataSource, List<DataSourceDecorationStage> decoratingChain) {
         super(decoratedDataSource);
@@ -87,19 +101,52 @@ public class DecoratedDataSource extends DelegatingDataSource {
     @Override
     @SuppressWarnings("unchecked")
     public <T> T unwrap(Class<T> iface) throws SQLException {
+        Object unwrapped = unwrapCache.get(iface);
+        if (unwrapped == SELF) {
+            return (T) this;
+        }
+        if (unwrapped == NOT_WRAPPED) {
+            throw new SQLException("DataSource of type [" + getClass().getName() + "] cannot be unwrapped as [" + iface.getName() + "]");
+        }
+        return (T) unwrapped;
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return unwrapCache.get(iface) != NOT_WRAPPED;
+    }
+
+    private Object resolveUnwrap(Class<?> iface) {
+        Object unwrapped = findInDecoratingChain(iface);
+        if (unwrapped != null) {
+            return unwrapped;
+        }
+        if (iface.isInstance(this)) {
+            return SELF;
+        }
+        try {
+            unwrapped = obtainTargetDataSource().unwrap(iface);
+        }
+        catch (SQLException e) {
+            return NOT_WRAPPED;
+        }
+        return unwrapped != null ? unwrapped : NOT_WRAPPED;
+    }
+
+    private Object findInDecoratingChain(Class<?> iface) {
         // Spring Boot unwrapping simply passes 'unwrap(DataSource.class)' expecting real datasource to be returned
         // if the real datasource type matches - return real datasource
         if (iface.isInstance(getRealDataSource())) {
-            return (T) getRealDataSource();
+            return getRealDataSource();
         }
         // As some decorators don't consider their types during unwrapping
         // if their type is specifically requested, we can return the decorator itself
         for (DataSourceDecorationStage dataSourceDecorationStage : decoratingChain) {
             if (iface.isInstance(dataSourceDecorationStage.getDataSource())) {
-                return (T) dataSourceDecorationStage.getDataSource();
+                return dataSourceDecorationStage.getDataSource();
             }
         }
-        return super.unwrap(iface);
+        return null;
     }
 
     @Override
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link DataSourceSampler} that samples given fraction of connections randomly.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class RateDataSourceSampler implements DataSourceSampler {
+
+    private final double rate;
+
+    public RateDataSourceSampler(double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Sampling rate should be between 0.0 and 1.0, but was " + rate);
+        }
+        this.rate = rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public boolean isSampled(String beanName) {
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+}
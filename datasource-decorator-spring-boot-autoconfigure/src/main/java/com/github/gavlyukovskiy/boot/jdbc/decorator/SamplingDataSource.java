@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Result of a spy decorator (p6spy, datasource-proxy) when sampling is enabled, obtains connection either from
+ * the instrumented data source or from the data source this decorator was applied on depending on {@link DataSourceSampler}.
+ * <p>
+ * Sampling decision is shared by all sampling data sources in the decorating chain during obtaining a connection,
+ * so connection is either instrumented by all spy decorators or by none of them. Decision can also be made
+ * up front for the current thread, e.g. for the whole request, using {@link #setSampled(boolean)}.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see DataSourceSampler
+ */
+public class SamplingDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> sampledHolder = new ThreadLocal<>();
+
+    private final String beanName;
+    private final DataSource instrumentedDataSource;
+    private final DataSource dataSource;
+    private final DataSourceSampler dataSourceSampler;
+
+    /**
+     * @param beanName name of the data source bean
+     * @param instrumentedDataSource data source created by spy decorator
+     * @param dataSource data source spy decorator was applied on
+     * @param dataSourceSampler sampler
+     */
+    public SamplingDataSource(String beanName, DataSource instrumentedDataSource, DataSource dataSource, DataSourceSampler dataSourceSampler) {
+        super(instrumentedDataSource);
+        this.beanName = beanName;
+        this.instrumentedDataSource = instrumentedDataSource;
+        this.dataSource = dataSource;
+        this.dataSourceSampler = dataSourceSampler;
+    }
+
+    /**
+     * Sets sampling decision for connections obtained by the current thread until {@link #clearSampled()} is called.
+     *
+     * @param sampled {@code true} if connections should be instrumented
+     */
+    public static void setSampled(boolean sampled) {
+        sampledHolder.set(sampled);
+    }
+
+    /**
+     * Clears sampling decision set by {@link #setSampled(boolean)}.
+     */
+    public static void clearSampled() {
+        sampledHolder.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Boolean sampled = sampledHolder.get();
+        if (sampled != null) {
+            return sampled ? instrumentedDataSource.getConnection() : dataSource.getConnection();
+        }
+        boolean decision = dataSourceSampler.isSampled(beanName);
+        // share decision with sampling data sources further in the chain
+        sampledHolder.set(decision);
+        try {
+            return decision ? instrumentedDataSource.getConnection() : dataSource.getConnection();
+        }
+        finally {
+            sampledHolder.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Boolean sampled = sampledHolder.get();
+        if (sampled != null) {
+            return sampled ? instrumentedDataSource.getConnection(username, password) : dataSource.getConnection(username, password);
+        }
+        boolean decision = dataSourceSampler.isSampled(beanName);
+        sampledHolder.set(decision);
+        try {
+            return decision ? instrumentedDataSource.getConnection(username, password) : dataSource.getConnection(username, password);
+        }
+        finally {
+            sampledHolder.remove();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(instrumentedDataSource)) {
+            return (T) instrumentedDataSource;
+        }
+        return super.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(instrumentedDataSource) || super.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "SamplingDataSource [" + instrumentedDataSource + "]";
+    }
+}
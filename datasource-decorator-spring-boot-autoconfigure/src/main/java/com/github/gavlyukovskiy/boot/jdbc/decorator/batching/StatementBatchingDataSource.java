@@ -0,0 +1,809 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingCallableStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingPreparedStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.SqlFingerprint;
+import org.slf4j.Logger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.ConcurrentLruCache;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Data source that turns consecutive executions of the same whitelisted prepared statement within a transaction
+ * into a single JDBC batch.
+ * <p>
+ * Prepared statements of batchable SQL record their parameters, and {@link PreparedStatement#executeUpdate()} with
+ * auto-commit disabled adds them to the batch of the connection and reports 1 updated row. Since rows are held
+ * by the connection, executions of different statement objects with the same SQL are batched together, which is
+ * what happens when a statement is prepared for every row.
+ * <p>
+ * The batch is executed when it reaches the batch size, when a statement with different SQL is batched, and before
+ * any other call that reaches the database: execution of any other statement, commit, savepoints, changing auto-commit
+ * or closing the connection. Rollback discards the batch. Statements that set stream or LOB parameters, or call any
+ * method that can't be recorded are prepared on the physical connection and executed as usual.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementBatchingDataSource extends DelegatingDataSource {
+
+    private static final Logger log = getLogger(StatementBatchingDataSource.class);
+
+    static final int MAX_CACHED_STATEMENTS = 1000;
+    static final int ASSUMED_UPDATE_COUNT = 1;
+
+    private final Pattern pattern;
+    private final int batchSize;
+    private final StatementBatchingStatistics statistics;
+    private final ConcurrentLruCache<String, Boolean> batchableBySql;
+    private final Set<String> reportedSql = ConcurrentHashMap.newKeySet();
+
+    StatementBatchingDataSource(DataSource dataSource, Pattern pattern, int batchSize, StatementBatchingStatistics statistics) {
+        super(dataSource);
+        this.pattern = pattern;
+        this.batchSize = batchSize;
+        this.statistics = statistics;
+        this.batchableBySql = new ConcurrentLruCache<>(MAX_CACHED_STATEMENTS, sql -> pattern.matcher(SqlFingerprint.of(sql)).matches());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new BatchingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new BatchingConnection(super.getConnection(username, password));
+    }
+
+    private boolean isBatchable(String sql) {
+        return batchableBySql.get(sql);
+    }
+
+    private void verifyUpdateCounts(String sql, int[] updateCounts) {
+        int unexpected = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount != ASSUMED_UPDATE_COUNT && updateCount != Statement.SUCCESS_NO_INFO) {
+                unexpected++;
+            }
+        }
+        if (unexpected > 0) {
+            statistics.recordUnexpectedUpdateCounts(unexpected);
+            if (reportedSql.size() < MAX_CACHED_STATEMENTS && reportedSql.add(sql)) {
+                log.warn("{} of {} batched executions of '{}' didn't update exactly {} row as reported to the caller, "
+                        + "exclude the statement from batching if the caller relies on update counts",
+                        unexpected, updateCounts.length, sql, ASSUMED_UPDATE_COUNT);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementBatchingDataSource [" + getTargetDataSource() + "]";
+    }
+
+    private interface ParameterSetter {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+
+    private final class BatchingConnection extends DelegatingConnection {
+        private Boolean autoCommit;
+        private String batchSql;
+        private PreparedStatement batchStatement;
+        private int batchedStatements;
+
+        private BatchingConnection(Connection delegate) {
+            super(delegate);
+        }
+
+        /**
+         * Executes pending batch before any call that reaches the database.
+         *
+         * @return target connection
+         */
+        @Override
+        protected Connection delegate() throws SQLException {
+            flush();
+            return getDelegate();
+        }
+
+        private boolean isInTransaction() throws SQLException {
+            if (autoCommit == null) {
+                autoCommit = getDelegate().getAutoCommit();
+            }
+            return !autoCommit;
+        }
+
+        private int addBatch(String sql, Collection<ParameterSetter> parameters) throws SQLException {
+            if (batchStatement != null && !batchSql.equals(sql)) {
+                flush();
+                closeBatchStatement();
+            }
+            if (batchStatement == null) {
+                batchStatement = getDelegate().prepareStatement(sql);
+                batchSql = sql;
+            }
+            batchStatement.clearParameters();
+            for (ParameterSetter parameter : parameters) {
+                parameter.set(batchStatement);
+            }
+            batchStatement.addBatch();
+            batchedStatements++;
+            if (batchedStatements >= batchSize) {
+                flush();
+            }
+            return ASSUMED_UPDATE_COUNT;
+        }
+
+        private void flush() throws SQLException {
+            if (batchedStatements == 0) {
+                return;
+            }
+            int statements = batchedStatements;
+            batchedStatements = 0;
+            int[] updateCounts;
+            try {
+                updateCounts = batchStatement.executeBatch();
+            }
+            catch (SQLException e) {
+                // drivers differ in what is left in the batch after a failure
+                try {
+                    closeBatchStatement();
+                }
+                catch (SQLException closeException) {
+                    e.addSuppressed(closeException);
+                }
+                throw e;
+            }
+            statistics.recordBatch(statements);
+            verifyUpdateCounts(batchSql, updateCounts);
+        }
+
+        private void discard() throws SQLException {
+            if (batchedStatements == 0) {
+                return;
+            }
+            batchedStatements = 0;
+            batchStatement.clearBatch();
+        }
+
+        private void closeBatchStatement() throws SQLException {
+            if (batchStatement != null) {
+                PreparedStatement statement = batchStatement;
+                batchStatement = null;
+                batchSql = null;
+                batchedStatements = 0;
+                statement.close();
+            }
+        }
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return new FlushingStatement(getDelegate().createStatement(), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new FlushingStatement(getDelegate().createStatement(resultSetType, resultSetConcurrency), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new FlushingStatement(getDelegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            if (isBatchable(sql)) {
+                if (getDelegate().isClosed()) {
+                    throw new SQLException("Connection is closed");
+                }
+                return new BatchingPreparedStatement(this, sql);
+            }
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql, autoGeneratedKeys), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql, columnIndexes), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            return new FlushingPreparedStatement(getDelegate().prepareStatement(sql, columnNames), this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql) throws SQLException {
+            return new FlushingCallableStatement(getDelegate().prepareCall(sql), this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new FlushingCallableStatement(getDelegate().prepareCall(sql, resultSetType, resultSetConcurrency), this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new FlushingCallableStatement(getDelegate().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) throws SQLException {
+            super.setAutoCommit(autoCommit);
+            this.autoCommit = autoCommit;
+        }
+
+        @Override
+        public boolean getAutoCommit() throws SQLException {
+            return getDelegate().getAutoCommit();
+        }
+
+        @Override
+        public boolean isReadOnly() throws SQLException {
+            return getDelegate().isReadOnly();
+        }
+
+        @Override
+        public int getTransactionIsolation() throws SQLException {
+            return getDelegate().getTransactionIsolation();
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            discard();
+            getDelegate().rollback();
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return getDelegate().isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                // the driver may commit pending changes on close
+                flush();
+            }
+            finally {
+                try {
+                    closeBatchStatement();
+                }
+                finally {
+                    getDelegate().close();
+                }
+            }
+        }
+
+        @Override
+        public void abort(Executor executor) throws SQLException {
+            batchedStatements = 0;
+            getDelegate().abort(executor);
+        }
+
+        @Override
+        public String toString() {
+            return "BatchingConnection [" + getDelegate() + "]";
+        }
+    }
+
+    private static final class FlushingStatement extends DelegatingStatement {
+        private final BatchingConnection connection;
+
+        private FlushingStatement(Statement delegate, BatchingConnection connection) {
+            super(delegate);
+            this.connection = connection;
+        }
+
+        @Override
+        protected Statement delegate() throws SQLException {
+            connection.flush();
+            return getDelegate();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            getDelegate().close();
+        }
+    }
+
+    private static final class FlushingPreparedStatement extends DelegatingPreparedStatement {
+        private final BatchingConnection connection;
+
+        private FlushingPreparedStatement(PreparedStatement delegate, BatchingConnection connection) {
+            super(delegate);
+            this.connection = connection;
+        }
+
+        @Override
+        protected PreparedStatement delegate() throws SQLException {
+            connection.flush();
+            return getDelegate();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            getDelegate().close();
+        }
+    }
+
+    private static final class FlushingCallableStatement extends DelegatingCallableStatement {
+        private final BatchingConnection connection;
+
+        private FlushingCallableStatement(CallableStatement delegate, BatchingConnection connection) {
+            super(delegate);
+            this.connection = connection;
+        }
+
+        @Override
+        protected CallableStatement delegate() throws SQLException {
+            connection.flush();
+            return getDelegate();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            getDelegate().close();
+        }
+    }
+
+    private static final class BatchingPreparedStatement extends DelegatingPreparedStatement {
+        private final BatchingConnection connection;
+        private final String sql;
+        private final Map<Integer, ParameterSetter> parameters = new TreeMap<>();
+        private PreparedStatement target;
+        private boolean recording = true;
+        private boolean closed;
+        private int updateCount = -1;
+
+        private BatchingPreparedStatement(BatchingConnection connection, String sql) {
+            // target statement is prepared on first call that can't be recorded
+            super(null);
+            this.connection = connection;
+            this.sql = sql;
+        }
+
+        /**
+         * Returns physical statement, {@code null} if it was not prepared yet.
+         *
+         * @return target statement
+         */
+        @Override
+        public PreparedStatement getDelegate() {
+            return target;
+        }
+
+        @Override
+        protected PreparedStatement delegate() throws SQLException {
+            checkOpen();
+            connection.flush();
+            if (recording) {
+                PreparedStatement statement = connection.getDelegate().prepareStatement(sql);
+                try {
+                    for (ParameterSetter parameter : parameters.values()) {
+                        parameter.set(statement);
+                    }
+                }
+                catch (SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+                target = statement;
+                recording = false;
+            }
+            return target;
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+        }
+
+        private void record(int parameterIndex, ParameterSetter setter) throws SQLException {
+            if (recording) {
+                checkOpen();
+                parameters.put(parameterIndex, setter);
+            }
+            else {
+                setter.set(delegate());
+            }
+        }
+
+        private static boolean isReplayable(Object value) {
+            // streams and LOBs may be read by the driver only when the batch is executed
+            return !(value instanceof InputStream || value instanceof Reader || value instanceof Blob
+                    || value instanceof Clob || value instanceof SQLXML);
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            if (!recording) {
+                return super.executeUpdate();
+            }
+            checkOpen();
+            if (!connection.isInTransaction()) {
+                return super.executeUpdate();
+            }
+            updateCount = connection.addBatch(sql, parameters.values());
+            return updateCount;
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            if (!recording) {
+                return super.executeLargeUpdate();
+            }
+            checkOpen();
+            if (!connection.isInTransaction()) {
+                return super.executeLargeUpdate();
+            }
+            updateCount = connection.addBatch(sql, parameters.values());
+            return updateCount;
+        }
+
+        @Override
+        public int getUpdateCount() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return updateCount;
+            }
+            return super.getUpdateCount();
+        }
+
+        @Override
+        public long getLargeUpdateCount() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return updateCount;
+            }
+            return super.getLargeUpdateCount();
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return null;
+            }
+            return super.getResultSet();
+        }
+
+        @Override
+        public boolean getMoreResults() throws SQLException {
+            if (recording) {
+                checkOpen();
+                updateCount = -1;
+                return false;
+            }
+            return super.getMoreResults();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            checkOpen();
+            return connection;
+        }
+
+        @Override
+        public SQLWarning getWarnings() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return null;
+            }
+            return super.getWarnings();
+        }
+
+        @Override
+        public void clearWarnings() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return;
+            }
+            super.clearWarnings();
+        }
+
+        @Override
+        public void clearParameters() throws SQLException {
+            if (recording) {
+                checkOpen();
+                parameters.clear();
+            }
+            else {
+                super.clearParameters();
+            }
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType) throws SQLException {
+            record(parameterIndex, statement -> statement.setNull(parameterIndex, sqlType));
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+            record(parameterIndex, statement -> statement.setNull(parameterIndex, sqlType, typeName));
+        }
+
+        @Override
+        public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+            record(parameterIndex, statement -> statement.setBoolean(parameterIndex, x));
+        }
+
+        @Override
+        public void setByte(int parameterIndex, byte x) throws SQLException {
+            record(parameterIndex, statement -> statement.setByte(parameterIndex, x));
+        }
+
+        @Override
+        public void setShort(int parameterIndex, short x) throws SQLException {
+            record(parameterIndex, statement -> statement.setShort(parameterIndex, x));
+        }
+
+        @Override
+        public void setInt(int parameterIndex, int x) throws SQLException {
+            record(parameterIndex, statement -> statement.setInt(parameterIndex, x));
+        }
+
+        @Override
+        public void setLong(int parameterIndex, long x) throws SQLException {
+            record(parameterIndex, statement -> statement.setLong(parameterIndex, x));
+        }
+
+        @Override
+        public void setFloat(int parameterIndex, float x) throws SQLException {
+            record(parameterIndex, statement -> statement.setFloat(parameterIndex, x));
+        }
+
+        @Override
+        public void setDouble(int parameterIndex, double x) throws SQLException {
+            record(parameterIndex, statement -> statement.setDouble(parameterIndex, x));
+        }
+
+        @Override
+        public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+            record(parameterIndex, statement -> statement.setBigDecimal(parameterIndex, x));
+        }
+
+        @Override
+        public void setString(int parameterIndex, String x) throws SQLException {
+            record(parameterIndex, statement -> statement.setString(parameterIndex, x));
+        }
+
+        @Override
+        public void setNString(int parameterIndex, String value) throws SQLException {
+            record(parameterIndex, statement -> statement.setNString(parameterIndex, value));
+        }
+
+        @Override
+        public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+            // the driver may keep the array until the batch is executed
+            byte[] copy = x != null ? x.clone() : null;
+            record(parameterIndex, statement -> statement.setBytes(parameterIndex, copy));
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date x) throws SQLException {
+            Date copy = x != null ? (Date) x.clone() : null;
+            record(parameterIndex, statement -> statement.setDate(parameterIndex, copy));
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+            Date copy = x != null ? (Date) x.clone() : null;
+            Calendar calendar = cal != null ? (Calendar) cal.clone() : null;
+            record(parameterIndex, statement -> statement.setDate(parameterIndex, copy, calendar));
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time x) throws SQLException {
+            Time copy = x != null ? (Time) x.clone() : null;
+            record(parameterIndex, statement -> statement.setTime(parameterIndex, copy));
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+            Time copy = x != null ? (Time) x.clone() : null;
+            Calendar calendar = cal != null ? (Calendar) cal.clone() : null;
+            record(parameterIndex, statement -> statement.setTime(parameterIndex, copy, calendar));
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+            Timestamp copy = x != null ? (Timestamp) x.clone() : null;
+            record(parameterIndex, statement -> statement.setTimestamp(parameterIndex, copy));
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+            Timestamp copy = x != null ? (Timestamp) x.clone() : null;
+            Calendar calendar = cal != null ? (Calendar) cal.clone() : null;
+            record(parameterIndex, statement -> statement.setTimestamp(parameterIndex, copy, calendar));
+        }
+
+        @Override
+        public void setURL(int parameterIndex, URL x) throws SQLException {
+            record(parameterIndex, statement -> statement.setURL(parameterIndex, x));
+        }
+
+        @Override
+        public void setArray(int parameterIndex, Array x) throws SQLException {
+            record(parameterIndex, statement -> statement.setArray(parameterIndex, x));
+        }
+
+        @Override
+        public void setRef(int parameterIndex, Ref x) throws SQLException {
+            record(parameterIndex, statement -> statement.setRef(parameterIndex, x));
+        }
+
+        @Override
+        public void setRowId(int parameterIndex, RowId x) throws SQLException {
+            record(parameterIndex, statement -> statement.setRowId(parameterIndex, x));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x) throws SQLException {
+            if (!isReplayable(x)) {
+                super.setObject(parameterIndex, x);
+                return;
+            }
+            record(parameterIndex, statement -> statement.setObject(parameterIndex, x));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+            if (!isReplayable(x)) {
+                super.setObject(parameterIndex, x, targetSqlType);
+                return;
+            }
+            record(parameterIndex, statement -> statement.setObject(parameterIndex, x, targetSqlType));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+            if (!isReplayable(x)) {
+                super.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+                return;
+            }
+            record(parameterIndex, statement -> statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+            if (!isReplayable(x)) {
+                super.setObject(parameterIndex, x, targetSqlType);
+                return;
+            }
+            record(parameterIndex, statement -> statement.setObject(parameterIndex, x, targetSqlType));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+            if (!isReplayable(x)) {
+                super.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+                return;
+            }
+            record(parameterIndex, statement -> statement.setObject(parameterIndex, x, targetSqlType, scaleOrLength));
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return closed || connection.isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            // batched executions are held by the connection
+            closed = true;
+            if (target != null) {
+                target.close();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return (T) this;
+            }
+            PreparedStatement statement = delegate();
+            return iface.isInstance(statement) ? (T) statement : statement.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return true;
+            }
+            PreparedStatement statement = delegate();
+            return iface.isInstance(statement) || statement.isWrapperFor(iface);
+        }
+
+        @Override
+        public String toString() {
+            return "BatchingPreparedStatement [" + (target != null ? target : sql) + "]";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Ordered} decorator for {@link StatementBatchingDataSource}. Applied after result cache, so that batches
+ * invalidate cached results when they are executed, and before datasource-proxy and p6spy, so that every execution
+ * is still logged by them.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementBatchingDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final StatementBatchingProperties statementBatching;
+    private final ObjectProvider<StatementBatchingMetrics> metrics;
+    private final Map<String, StatementBatchingStatistics> statistics = new ConcurrentHashMap<>();
+
+    public StatementBatchingDataSourceDecorator(StatementBatchingProperties statementBatching,
+                                                ObjectProvider<StatementBatchingMetrics> metrics) {
+        this.statementBatching = statementBatching;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        if (statementBatching.getPattern() == null || statementBatching.getBatchSize() <= 1) {
+            return dataSource;
+        }
+        StatementBatchingStatistics dataSourceStatistics = new StatementBatchingStatistics();
+        if (statistics.putIfAbsent(beanName, dataSourceStatistics) == null) {
+            metrics.ifAvailable(batchingMetrics -> batchingMetrics.register(beanName, dataSourceStatistics));
+        }
+        return new StatementBatchingDataSource(dataSource, statementBatching.getPattern(), statementBatching.getBatchSize(),
+                dataSourceStatistics);
+    }
+
+    /**
+     * Returns batching statistics by data source bean name.
+     *
+     * @return batching statistics
+     */
+    public Map<String, StatementBatchingStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public int getOrder() {
+        return 18;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Registers statement batching statistics of decorated data source: {@value #STATEMENTS_METRIC_NAME},
+ * {@value #BATCHES_METRIC_NAME}, {@value #ROUND_TRIPS_SAVED_METRIC_NAME} and {@value #UNEXPECTED_UPDATE_COUNTS_METRIC_NAME} counters.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementBatchingMetrics {
+
+    public static final String STATEMENTS_METRIC_NAME = "jdbc.batching.statements";
+    public static final String BATCHES_METRIC_NAME = "jdbc.batching.batches";
+    public static final String ROUND_TRIPS_SAVED_METRIC_NAME = "jdbc.batching.round.trips.saved";
+    public static final String UNEXPECTED_UPDATE_COUNTS_METRIC_NAME = "jdbc.batching.unexpected.update.counts";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public StatementBatchingMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    void register(String dataSourceName, StatementBatchingStatistics statistics) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        FunctionCounter.builder(STATEMENTS_METRIC_NAME, statistics, StatementBatchingStatistics::getStatements)
+                .description("Number of statement executions sent to the database as part of a batch")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        FunctionCounter.builder(BATCHES_METRIC_NAME, statistics, StatementBatchingStatistics::getBatches)
+                .description("Number of executed batches")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        FunctionCounter.builder(ROUND_TRIPS_SAVED_METRIC_NAME, statistics, StatementBatchingStatistics::getRoundTripsSaved)
+                .description("Number of round trips to the database saved by batching")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        FunctionCounter.builder(UNEXPECTED_UPDATE_COUNTS_METRIC_NAME, statistics, StatementBatchingStatistics::getUnexpectedUpdateCounts)
+                .description("Number of batched statements that didn't update exactly one row")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import java.util.regex.Pattern;
+
+/**
+ * Properties for configuring automatic batching of repeated statements within a transaction.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementBatchingProperties {
+
+    /**
+     * Enables batching of consecutive executions of the same prepared statement within a transaction.
+     */
+    private boolean enabled = false;
+    /**
+     * Maximum number of executions sent to the database in a single batch.
+     */
+    private int batchSize = 100;
+    /**
+     * Statements which executions are batched by SQL fingerprint, only inserts by default, since every batched
+     * execution reports 1 updated row to the caller.
+     */
+    private Pattern pattern = Pattern.compile("(?i)insert into .*");
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public Pattern getPattern() {
+        return this.pattern;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setPattern(Pattern pattern) {
+        this.pattern = pattern;
+    }
+}
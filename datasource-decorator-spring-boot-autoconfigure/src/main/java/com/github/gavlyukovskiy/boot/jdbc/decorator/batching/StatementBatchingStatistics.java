@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of automatic statement batching of a single data source.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementBatchingStatistics {
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder unexpectedUpdateCounts = new LongAdder();
+
+    /**
+     * Returns number of statement executions sent to the database as part of a batch.
+     *
+     * @return number of batched statements
+     */
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    /**
+     * Returns number of executed batches.
+     *
+     * @return number of batches
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns number of round trips to the database saved by batching.
+     *
+     * @return batched statements minus executed batches
+     */
+    public long getRoundTripsSaved() {
+        // batches are recorded after their statements, so it is never negative
+        return getStatements() - getBatches();
+    }
+
+    /**
+     * Returns number of batched statements that didn't update exactly one row, although one was reported to the caller.
+     *
+     * @return number of unexpected update counts
+     */
+    public long getUnexpectedUpdateCounts() {
+        return unexpectedUpdateCounts.sum();
+    }
+
+    void recordBatch(int statements) {
+        this.statements.add(statements);
+        batches.increment();
+    }
+
+    void recordUnexpectedUpdateCounts(int count) {
+        unexpectedUpdateCounts.add(count);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for detecting connection leaks.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "decorator.datasource.leak-detection.enabled", havingValue = "true")
+public class ConnectionLeakDetectionConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ConnectionLeakDetector connectionLeakDetector(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+        return new ConnectionLeakDetector(dataSourceDecoratorProperties.getLeakDetection());
+    }
+
+    @Bean
+    public ConnectionLeakDetectionDataSourceDecorator connectionLeakDetectionDataSourceDecorator(ConnectionLeakDetector connectionLeakDetector) {
+        return new ConnectionLeakDetectionDataSourceDecorator(connectionLeakDetector);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Endpoint.class)
+    static class ConnectionLeakDetectionEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ConnectionLeakDetectionEndpoint connectionLeakDetectionEndpoint(ConnectionLeakDetector connectionLeakDetector) {
+            return new ConnectionLeakDetectionEndpoint(connectionLeakDetector);
+        }
+    }
+}
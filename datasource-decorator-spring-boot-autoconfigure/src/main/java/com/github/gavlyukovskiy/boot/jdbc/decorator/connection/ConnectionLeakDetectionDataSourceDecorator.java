@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link Ordered} decorator for {@link LeakDetectionDataSource}, applied right after FlexyPool
+ * so that only connections handed over to the application are tracked.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConnectionLeakDetectionDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final ConnectionLeakDetector connectionLeakDetector;
+
+    public ConnectionLeakDetectionDataSourceDecorator(ConnectionLeakDetector connectionLeakDetector) {
+        this.connectionLeakDetector = connectionLeakDetector;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        return new LeakDetectionDataSource(beanName, dataSource, connectionLeakDetector);
+    }
+
+    @Override
+    public int getOrder() {
+        return 11;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import org.springframework.boot.actuate.endpoint.OperationResponseBody;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Endpoint @Endpoint} exposing connections currently held by the application,
+ * allows to enable capturing stack traces of connection acquisitions at runtime.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Endpoint(id = "datasourceconnections")
+public class ConnectionLeakDetectionEndpoint {
+
+    private final ConnectionLeakDetector connectionLeakDetector;
+
+    public ConnectionLeakDetectionEndpoint(ConnectionLeakDetector connectionLeakDetector) {
+        this.connectionLeakDetector = connectionLeakDetector;
+    }
+
+    @ReadOperation
+    public OutstandingConnectionsDescriptor connections() {
+        return new OutstandingConnectionsDescriptor(connectionLeakDetector.getThresholdMillis(),
+                connectionLeakDetector.isCaptureStackTraces(),
+                connectionLeakDetector.getOutstandingConnections());
+    }
+
+    @WriteOperation
+    public void captureStackTraces(boolean enabled) {
+        connectionLeakDetector.setCaptureStackTraces(enabled);
+    }
+
+    /**
+     * Description of connections currently held by the application.
+     */
+    public static final class OutstandingConnectionsDescriptor implements OperationResponseBody {
+
+        private final long thresholdMillis;
+        private final boolean captureStackTraces;
+        private final Map<String, List<OutstandingConnection>> dataSources;
+
+        private OutstandingConnectionsDescriptor(long thresholdMillis, boolean captureStackTraces, Map<String, List<OutstandingConnection>> dataSources) {
+            this.thresholdMillis = thresholdMillis;
+            this.captureStackTraces = captureStackTraces;
+            this.dataSources = dataSources;
+        }
+
+        public long getThresholdMillis() {
+            return this.thresholdMillis;
+        }
+
+        public boolean isCaptureStackTraces() {
+            return this.captureStackTraces;
+        }
+
+        public Map<String, List<OutstandingConnection>> getDataSources() {
+            return this.dataSources;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import java.time.Duration;
+
+/**
+ * Properties for configuring connection leak detection.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConnectionLeakDetectionProperties {
+
+    /**
+     * Enables tracking of connections obtained from data sources and reporting connections that are not closed in time.
+     */
+    private boolean enabled = false;
+    /**
+     * Time after which connection that is not closed is reported as potentially leaked.
+     */
+    private Duration threshold = Duration.ofSeconds(60);
+    /**
+     * How often outstanding connections are checked.
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+    /**
+     * Capture stack trace of every connection acquisition, adds considerable overhead to obtaining connections.
+     */
+    private boolean captureStackTraces = false;
+    /**
+     * Start capturing stack traces of connection acquisitions once the first leak is reported.
+     */
+    private boolean captureStackTracesOnLeak = true;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public Duration getThreshold() {
+        return this.threshold;
+    }
+
+    public Duration getCheckInterval() {
+        return this.checkInterval;
+    }
+
+    public boolean isCaptureStackTraces() {
+        return this.captureStackTraces;
+    }
+
+    public boolean isCaptureStackTracesOnLeak() {
+        return this.captureStackTracesOnLeak;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public void setCaptureStackTraces(boolean captureStackTraces) {
+        this.captureStackTraces = captureStackTraces;
+    }
+
+    public void setCaptureStackTracesOnLeak(boolean captureStackTracesOnLeak) {
+        this.captureStackTracesOnLeak = captureStackTracesOnLeak;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of connections obtained from data sources and reports connections that were not closed within threshold.
+ * <p>
+ * Obtaining a connection only registers it in a concurrent map, stack trace of acquisition is captured only when
+ * {@link #setCaptureStackTraces(boolean) enabled} explicitly or after the first leak was reported. For leaked connections
+ * obtained without captured stack trace, current stack trace of the thread that obtained the connection is reported instead.
+ * <p>
+ * Registry references connections and threads that obtained them weakly, so connections that were discarded without
+ * being closed are reported once and removed from the registry when garbage collected.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see ConnectionLeakDetectionProperties
+ */
+public class ConnectionLeakDetector implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionLeakDetector.class);
+
+    private final Map<Long, ConnectionReference> outstandingConnections = new ConcurrentHashMap<>();
+    private final ReferenceQueue<TrackedConnection> collectedConnections = new ReferenceQueue<>();
+    private final AtomicLong connectionIds = new AtomicLong();
+    private final long thresholdNanos;
+    private final boolean captureStackTracesOnLeak;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean captureStackTraces;
+
+    public ConnectionLeakDetector(ConnectionLeakDetectionProperties connectionLeakDetection) {
+        this(connectionLeakDetection, System::nanoTime, true);
+    }
+
+    ConnectionLeakDetector(ConnectionLeakDetectionProperties connectionLeakDetection, LongSupplier clock, boolean schedule) {
+        this.thresholdNanos = connectionLeakDetection.getThreshold().toNanos();
+        this.captureStackTraces = connectionLeakDetection.isCaptureStackTraces();
+        this.captureStackTracesOnLeak = connectionLeakDetection.isCaptureStackTracesOnLeak();
+        this.clock = clock;
+        if (schedule) {
+            long checkInterval = connectionLeakDetection.getCheckInterval().toMillis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "datasource-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::detectLeaks, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        }
+        else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Registers connection as outstanding until it is closed.
+     *
+     * @param dataSourceName name of the data source connection was obtained from
+     * @param connection     obtained connection
+     * @return connection that removes itself from outstanding connections when closed
+     */
+    public Connection track(String dataSourceName, Connection connection) {
+        Throwable acquisitionStackTrace = captureStackTraces ? new Throwable("Connection acquisition stack trace") : null;
+        Acquisition acquisition = new Acquisition(connectionIds.incrementAndGet(), dataSourceName, Thread.currentThread(),
+                clock.getAsLong(), System.currentTimeMillis(), acquisitionStackTrace);
+        TrackedConnection trackedConnection = new TrackedConnection(connection, acquisition);
+        outstandingConnections.put(acquisition.id, new ConnectionReference(trackedConnection, acquisition, collectedConnections));
+        return trackedConnection;
+    }
+
+    /**
+     * Returns connections that are currently held by the application grouped by data source name,
+     * connections held for the longest time go first.
+     *
+     * @return outstanding connections per data source
+     */
+    public Map<String, List<OutstandingConnection>> getOutstandingConnections() {
+        removeCollectedConnections();
+        long now = clock.getAsLong();
+        List<Acquisition> acquisitions = new ArrayList<>();
+        for (ConnectionReference reference : outstandingConnections.values()) {
+            acquisitions.add(reference.acquisition);
+        }
+        acquisitions.sort(Comparator.comparingLong(acquisition -> acquisition.acquiredNanos));
+        Map<String, List<OutstandingConnection>> result = new LinkedHashMap<>();
+        for (Acquisition acquisition : acquisitions) {
+            result.computeIfAbsent(acquisition.dataSourceName, dataSourceName -> new ArrayList<>())
+                    .add(acquisition.describe(now));
+        }
+        return result;
+    }
+
+    public boolean isCaptureStackTraces() {
+        return captureStackTraces;
+    }
+
+    /**
+     * Enables or disables capturing stack trace of every connection acquisition.
+     *
+     * @param captureStackTraces whether to capture stack traces
+     */
+    public void setCaptureStackTraces(boolean captureStackTraces) {
+        this.captureStackTraces = captureStackTraces;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    void detectLeaks() {
+        removeCollectedConnections();
+        long now = clock.getAsLong();
+        for (ConnectionReference reference : outstandingConnections.values()) {
+            Acquisition acquisition = reference.acquisition;
+            if (!acquisition.reported && now - acquisition.acquiredNanos >= thresholdNanos) {
+                reportLeak(acquisition, now);
+            }
+        }
+    }
+
+    private void removeCollectedConnections() {
+        Reference<? extends TrackedConnection> collected;
+        while ((collected = collectedConnections.poll()) != null) {
+            Acquisition acquisition = ((ConnectionReference) collected).acquisition;
+            if (outstandingConnections.remove(acquisition.id, collected)) {
+                log.warn("Connection {} of data source '{}' obtained by thread '{}' was garbage collected without being closed, connection leak",
+                        acquisition.id, acquisition.dataSourceName, acquisition.threadName, acquisition.acquisitionStackTrace);
+            }
+        }
+    }
+
+    private void reportLeak(Acquisition acquisition, long now) {
+        Throwable stackTrace = acquisition.acquisitionStackTrace;
+        Thread thread = acquisition.thread.get();
+        if (stackTrace == null && thread != null) {
+            StackTraceElement[] holderStackTrace = thread.getStackTrace();
+            acquisition.holderStackTrace = holderStackTrace;
+            stackTrace = new Throwable("Current stack trace of thread '" + acquisition.threadName + "'");
+            stackTrace.setStackTrace(holderStackTrace);
+        }
+        acquisition.reported = true;
+        log.warn("Connection {} of data source '{}' obtained by thread '{}' was not closed for {} ms, possible connection leak",
+                acquisition.id, acquisition.dataSourceName, acquisition.threadName,
+                TimeUnit.NANOSECONDS.toMillis(now - acquisition.acquiredNanos), stackTrace);
+        if (captureStackTracesOnLeak && !captureStackTraces) {
+            captureStackTraces = true;
+            log.info("Capturing stack traces of connection acquisitions to locate connection leaks");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private final class TrackedConnection extends DelegatingConnection {
+        private final Acquisition acquisition;
+        private boolean closed;
+
+        private TrackedConnection(Connection delegate, Acquisition acquisition) {
+            super(delegate);
+            this.acquisition = acquisition;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                outstandingConnections.remove(acquisition.id);
+                if (acquisition.reported) {
+                    log.info("Connection {} of data source '{}' previously reported as leaked was closed after {} ms",
+                            acquisition.id, acquisition.dataSourceName,
+                            TimeUnit.NANOSECONDS.toMillis(clock.getAsLong() - acquisition.acquiredNanos));
+                }
+            }
+            super.close();
+        }
+    }
+
+    private static final class ConnectionReference extends WeakReference<TrackedConnection> {
+        private final Acquisition acquisition;
+
+        private ConnectionReference(TrackedConnection connection, Acquisition acquisition,
+                                    ReferenceQueue<TrackedConnection> queue) {
+            super(connection, queue);
+            this.acquisition = acquisition;
+        }
+    }
+
+    private static final class Acquisition {
+        private final long id;
+        private final String dataSourceName;
+        private final WeakReference<Thread> thread;
+        private final String threadName;
+        private final long acquiredNanos;
+        private final long acquiredAtMillis;
+        private final Throwable acquisitionStackTrace;
+        private volatile boolean reported;
+        private volatile StackTraceElement[] holderStackTrace;
+
+        private Acquisition(long id, String dataSourceName, Thread thread, long acquiredNanos, long acquiredAtMillis,
+                            Throwable acquisitionStackTrace) {
+            this.id = id;
+            this.dataSourceName = dataSourceName;
+            this.thread = new WeakReference<>(thread);
+            this.threadName = thread.getName();
+            this.acquiredNanos = acquiredNanos;
+            this.acquiredAtMillis = acquiredAtMillis;
+            this.acquisitionStackTrace = acquisitionStackTrace;
+        }
+
+        private OutstandingConnection describe(long now) {
+            return new OutstandingConnection(id, threadName, Instant.ofEpochMilli(acquiredAtMillis),
+                    TimeUnit.NANOSECONDS.toMillis(now - acquiredNanos), reported,
+                    toStrings(acquisitionStackTrace != null ? acquisitionStackTrace.getStackTrace() : null),
+                    toStrings(holderStackTrace));
+        }
+
+        private static List<String> toStrings(StackTraceElement[] stackTrace) {
+            if (stackTrace == null) {
+                return null;
+            }
+            List<String> result = new ArrayList<>(stackTrace.length);
+            for (StackTraceElement element : stackTrace) {
+                result.add(element.toString());
+            }
+            return result;
+        }
+    }
+}
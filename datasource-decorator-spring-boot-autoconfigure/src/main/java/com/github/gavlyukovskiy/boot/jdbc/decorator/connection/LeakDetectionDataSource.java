@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Data source that registers every obtained connection in {@link ConnectionLeakDetector} until it is closed.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class LeakDetectionDataSource extends DelegatingDataSource {
+
+    private final String beanName;
+    private final ConnectionLeakDetector connectionLeakDetector;
+
+    public LeakDetectionDataSource(String beanName, DataSource dataSource, ConnectionLeakDetector connectionLeakDetector) {
+        super(dataSource);
+        this.beanName = beanName;
+        this.connectionLeakDetector = connectionLeakDetector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connectionLeakDetector.track(beanName, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connectionLeakDetector.track(beanName, super.getConnection(username, password));
+    }
+
+    @Override
+    public String toString() {
+        return "LeakDetectionDataSource [" + getTargetDataSource() + "]";
+    }
+}
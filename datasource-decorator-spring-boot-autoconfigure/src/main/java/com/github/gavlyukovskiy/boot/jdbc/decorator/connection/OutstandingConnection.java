@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Description of connection obtained from data source and not closed yet.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public final class OutstandingConnection {
+
+    private final long id;
+    private final String thread;
+    private final Instant acquiredAt;
+    private final long heldMillis;
+    private final boolean leaked;
+    private final List<String> acquisitionStackTrace;
+    private final List<String> holderStackTrace;
+
+    OutstandingConnection(long id, String thread, Instant acquiredAt, long heldMillis, boolean leaked,
+                          List<String> acquisitionStackTrace, List<String> holderStackTrace) {
+        this.id = id;
+        this.thread = thread;
+        this.acquiredAt = acquiredAt;
+        this.heldMillis = heldMillis;
+        this.leaked = leaked;
+        this.acquisitionStackTrace = acquisitionStackTrace;
+        this.holderStackTrace = holderStackTrace;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Name of the thread that obtained the connection.
+     */
+    public String getThread() {
+        return this.thread;
+    }
+
+    public Instant getAcquiredAt() {
+        return this.acquiredAt;
+    }
+
+    public long getHeldMillis() {
+        return this.heldMillis;
+    }
+
+    /**
+     * Whether connection was held longer than threshold and reported as leaked.
+     */
+    public boolean isLeaked() {
+        return this.leaked;
+    }
+
+    /**
+     * Stack trace of connection acquisition, {@code null} when stack traces were not captured at that time.
+     */
+    public List<String> getAcquisitionStackTrace() {
+        return this.acquisitionStackTrace;
+    }
+
+    /**
+     * Stack trace of the thread that obtained the connection at the moment the leak was reported,
+     * {@code null} when acquisition stack trace is available or connection was not reported.
+     */
+    public List<String> getHolderStackTrace() {
+        return this.holderStackTrace;
+    }
+}
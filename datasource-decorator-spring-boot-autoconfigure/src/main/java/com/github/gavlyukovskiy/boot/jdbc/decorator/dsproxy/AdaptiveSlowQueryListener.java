@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.AdaptiveSlowQueryThreshold;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link QueryExecutionListener} that logs queries slower than {@link AdaptiveSlowQueryThreshold} using slf4j.
+ * Unlike {@link net.ttddyy.dsproxy.listener.logging.SLF4JSlowQueryListener} query is logged after it has finished.
+ * <p>
+ * Queries are timed in nanoseconds between {@link #beforeQuery} and {@link #afterQuery}, as
+ * {@link ExecutionInfo#getElapsedTime()} is in milliseconds, which is too coarse for percentiles of fast queries.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class AdaptiveSlowQueryListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = AdaptiveSlowQueryListener.class.getName() + ".startNanos";
+
+    private final AdaptiveSlowQueryThreshold threshold;
+    private final Logger logger;
+    private final SLF4JLogLevel logLevel;
+
+    public AdaptiveSlowQueryListener(AdaptiveSlowQueryThreshold threshold, Logger logger, SLF4JLogLevel logLevel) {
+        this.threshold = threshold;
+        this.logger = logger;
+        this.logLevel = logLevel;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+        long elapsedNanos = startNanos != null
+                ? System.nanoTime() - startNanos
+                : TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+        long thresholdNanos = threshold.record(queryInfoList.get(0).getQuery(), elapsedNanos);
+        if (elapsedNanos >= thresholdNanos && isLoggable()) {
+            writeLog("Slow query (threshold: " + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + " ms) "
+                    + "Name:" + execInfo.getDataSourceName()
+                    + ", Time:" + execInfo.getElapsedTime()
+                    + ", Success:" + execInfo.isSuccess()
+                    + ", Query:" + queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("\",\"", "[\"", "\"]")));
+        }
+    }
+
+    private boolean isLoggable() {
+        return switch (logLevel) {
+            case TRACE -> logger.isTraceEnabled();
+            case DEBUG -> logger.isDebugEnabled();
+            case INFO -> logger.isInfoEnabled();
+            case WARN -> logger.isWarnEnabled();
+            case ERROR -> logger.isErrorEnabled();
+        };
+    }
+
+    private void writeLog(String message) {
+        switch (logLevel) {
+            case TRACE -> logger.trace(message);
+            case DEBUG -> logger.debug(message);
+            case INFO -> logger.info(message);
+            case WARN -> logger.warn(message);
+            case ERROR -> logger.error(message);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.DataSourceProxyProperties.Async.OverflowPolicy;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.AbstractQueryLoggingListener;
+import net.ttddyy.dsproxy.listener.logging.SLF4JQueryLoggingListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves formatting and writing of query logs from the JDBC calling thread to a background thread.
+ * <p>
+ * Executed queries are put into a bounded buffer and logged in batches by query logging listeners configured
+ * by {@link ProxyDataSourceBuilderConfigurer}. When the buffer is full queries are either dropped or calling
+ * thread waits depending on {@link OverflowPolicy}, number of dropped queries is available via {@link #getDroppedQueries()}
+ * and {@link AsyncQueryLoggerMetrics}. MDC of the calling thread is captured with each query and restored while it is logged.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see DataSourceProxyProperties.Async
+ */
+public class AsyncQueryLogger implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncQueryLogger.class);
+
+    private final BlockingQueue<LogEntry> buffer;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Logger queryLogger;
+    private final Level queryLogLevel;
+    private final LongAdder droppedQueries = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    AsyncQueryLogger(DataSourceProxyProperties datasourceProxy) {
+        DataSourceProxyProperties.Async async = datasourceProxy.getAsync();
+        this.buffer = new ArrayBlockingQueue<>(async.getBufferSize());
+        this.batchSize = async.getBatchSize();
+        this.overflowPolicy = async.getOverflowPolicy();
+        DataSourceProxyProperties.Query query = datasourceProxy.getQuery();
+        this.queryLogger = query.getLoggerName() != null
+                ? LoggerFactory.getLogger(query.getLoggerName())
+                : LoggerFactory.getLogger(SLF4JQueryLoggingListener.class);
+        this.queryLogLevel = Level.valueOf(query.getLogLevel().toUpperCase(Locale.ROOT));
+        this.writerThread = new Thread(this::writeLogs, "datasource-proxy-async-logger");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Replaces query logging listeners in the chain with listeners that log on the background thread.
+     *
+     * @param chainListener query listener of {@link net.ttddyy.dsproxy.support.ProxyDataSource}
+     */
+    public void replaceQueryLoggingListeners(ChainListener chainListener) {
+        chainListener.getListeners().replaceAll(listener -> listener instanceof AbstractQueryLoggingListener
+                ? new AsyncQueryLoggingListener(listener)
+                : listener);
+    }
+
+    /**
+     * Returns number of queries that were not logged because the buffer was full.
+     *
+     * @return number of dropped queries
+     */
+    public long getDroppedQueries() {
+        return droppedQueries.sum();
+    }
+
+    void enqueue(QueryExecutionListener listener, ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!queryLogger.isEnabledForLevel(queryLogLevel)) {
+            return;
+        }
+        LogEntry logEntry = new LogEntry(listener, execInfo, copyOf(queryInfoList), MDC.getCopyOfContextMap());
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                buffer.put(logEntry);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                droppedQueries.increment();
+            }
+        }
+        else if (!buffer.offer(logEntry)) {
+            droppedQueries.increment();
+        }
+    }
+
+    private void writeLogs() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                LogEntry first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+            }
+            catch (InterruptedException e) {
+                // woken up by destroy, remaining entries are logged before exiting
+                buffer.drainTo(batch);
+            }
+            for (LogEntry logEntry : batch) {
+                if (logEntry.mdc() != null) {
+                    MDC.setContextMap(logEntry.mdc());
+                }
+                else {
+                    MDC.clear();
+                }
+                try {
+                    logEntry.listener().afterQuery(logEntry.execInfo(), logEntry.queryInfoList());
+                }
+                catch (RuntimeException e) {
+                    log.warn("Failed to log query", e);
+                }
+            }
+            MDC.clear();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Statements may reuse query and parameter lists after execution, so they are copied before leaving the calling thread.
+     */
+    private static List<QueryInfo> copyOf(List<QueryInfo> queryInfoList) {
+        List<QueryInfo> copy = new ArrayList<>(queryInfoList.size());
+        for (QueryInfo queryInfo : queryInfoList) {
+            QueryInfo queryInfoCopy = new QueryInfo(queryInfo.getQuery());
+            for (List<ParameterSetOperation> parameters : queryInfo.getParametersList()) {
+                queryInfoCopy.getParametersList().add(new ArrayList<>(parameters));
+            }
+            copy.add(queryInfoCopy);
+        }
+        return copy;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        long dropped = getDroppedQueries();
+        if (dropped > 0) {
+            log.warn("{} queries were not logged because async logging buffer was full", dropped);
+        }
+    }
+
+    private record LogEntry(QueryExecutionListener listener, ExecutionInfo execInfo, List<QueryInfo> queryInfoList,
+                            Map<String, String> mdc) {
+    }
+
+    /**
+     * Query logging listener that hands executed queries over to the background thread.
+     */
+    class AsyncQueryLoggingListener implements QueryExecutionListener {
+
+        private final QueryExecutionListener delegate;
+
+        AsyncQueryLoggingListener(QueryExecutionListener delegate) {
+            this.delegate = delegate;
+        }
+
+        QueryExecutionListener getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            enqueue(delegate, execInfo, queryInfoList);
+        }
+    }
+}
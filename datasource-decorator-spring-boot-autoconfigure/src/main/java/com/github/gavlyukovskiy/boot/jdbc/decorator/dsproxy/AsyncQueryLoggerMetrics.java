@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Registers {@value #DROPPED_QUERIES_METRIC_NAME} counter of {@link AsyncQueryLogger}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class AsyncQueryLoggerMetrics {
+
+    public static final String DROPPED_QUERIES_METRIC_NAME = "jdbc.async.logging.dropped.queries";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public AsyncQueryLoggerMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    void register(AsyncQueryLogger asyncQueryLogger) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        FunctionCounter.builder(DROPPED_QUERIES_METRIC_NAME, asyncQueryLogger, AsyncQueryLogger::getDroppedQueries)
+                .description("Number of queries that were not logged because async logging buffer was full")
+                .register(registry);
+    }
+}
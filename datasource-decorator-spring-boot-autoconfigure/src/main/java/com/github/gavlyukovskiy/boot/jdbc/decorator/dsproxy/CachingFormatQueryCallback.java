@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ProxyDataSourceBuilder.FormatQueryCallback} that keeps formatted queries in a bounded LRU cache,
+ * so formatting of a repeatedly executed query is a lookup after the first execution.
+ * <p>
+ * Queries longer than {@link DataSourceProxyProperties.FormatSqlCache#getMaxQueryLength()} are formatted
+ * every time, which together with the cache size limits memory used by the cache.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see DataSourceProxyProperties.FormatSqlCache
+ */
+public class CachingFormatQueryCallback implements ProxyDataSourceBuilder.FormatQueryCallback {
+
+    private final ProxyDataSourceBuilder.FormatQueryCallback delegate;
+    private final int maxQueryLength;
+    private final ConcurrentLruCache<String, String> cache;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CachingFormatQueryCallback(ProxyDataSourceBuilder.FormatQueryCallback delegate, int size, int maxQueryLength) {
+        this.delegate = delegate;
+        this.maxQueryLength = maxQueryLength;
+        this.cache = new ConcurrentLruCache<>(size, query -> {
+            misses.increment();
+            return delegate.format(query);
+        });
+    }
+
+    static ProxyDataSourceBuilder.FormatQueryCallback wrap(ProxyDataSourceBuilder.FormatQueryCallback delegate,
+                                                          DataSourceProxyProperties.FormatSqlCache formatSqlCache) {
+        if (formatSqlCache.getSize() <= 0) {
+            return delegate;
+        }
+        return new CachingFormatQueryCallback(delegate, formatSqlCache.getSize(), formatSqlCache.getMaxQueryLength());
+    }
+
+    @Override
+    public String format(String query) {
+        if (query == null || query.length() > maxQueryLength) {
+            return delegate.format(query);
+        }
+        requests.increment();
+        return cache.get(query);
+    }
+
+    /**
+     * Returns number of formatted queries found in the cache.
+     *
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+        return requests.sum() - misses.sum();
+    }
+
+    /**
+     * Returns number of queries that were formatted and put into the cache.
+     *
+     * @return number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns approximate number of formatted queries evicted from the cache,
+     * concurrent misses of the same query may be counted as evictions.
+     *
+     * @return number of cache evictions
+     */
+    public long getEvictionCount() {
+        return Math.max(0, misses.sum() - cache.size());
+    }
+
+    /**
+     * Returns number of formatted queries currently in the cache.
+     *
+     * @return cache size
+     */
+    public int getSize() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ConnectionIdManager;
+import net.ttddyy.dsproxy.proxy.GlobalConnectionIdManager;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ConnectionIdManager} with the same globally unique ids as {@link GlobalConnectionIdManager}, but tracking
+ * open connections in a concurrent set instead of a synchronized one, so that obtaining and closing connections
+ * on virtual threads does not contend on a monitor.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConcurrentConnectionIdManager implements ConnectionIdManager {
+
+    private static final AtomicLong ID_COUNTER = new AtomicLong();
+
+    private final Set<String> openIds = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public String getId(Connection connection) {
+        String id = String.valueOf(ID_COUNTER.incrementAndGet());
+        openIds.add(id);
+        return id;
+    }
+
+    @Override
+    public void addClosedId(String closedId) {
+        openIds.remove(closedId);
+    }
+
+    @Override
+    public Set<String> getOpenConnectionIds() {
+        return Collections.unmodifiableSet(openIds);
+    }
+}
@@ -18,20 +18,27 @@ package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceSampler;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.flexypool.FlexyPoolConfiguration;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.P6SpyConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
 import net.ttddyy.dsproxy.listener.QueryCountStrategy;
 import net.ttddyy.dsproxy.listener.QueryExecutionListener;
 import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import net.ttddyy.dsproxy.listener.ThreadQueryCountHolder;
 import net.ttddyy.dsproxy.proxy.GlobalConnectionIdManager;
 import net.ttddyy.dsproxy.support.ProxyDataSource;
 import net.ttddyy.dsproxy.transform.ParameterTransformer;
 import net.ttddyy.dsproxy.transform.QueryTransformer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 /**
@@ -46,12 +53,22 @@ import org.springframework.context.annotation.Import;
 @Import({
         HibernateFormatterConfiguration.class,
         SqlFormatterConfiguration.class,
+        RepeatedQueryConfiguration.class,
+        RequestQueryCountConfiguration.class,
+        FetchSizeConfiguration.class,
 })
 public class DataSourceProxyConfiguration {
 
     @Autowired
     private DataSourceDecoratorProperties dataSourceDecoratorProperties;
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public ConnectionIdManagerProvider concurrentConnectionIdManagerProvider() {
+        return ConcurrentConnectionIdManager::new;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public ConnectionIdManagerProvider connectionIdManagerProvider() {
@@ -64,14 +81,44 @@ public class DataSourceProxyConfiguration {
     }
 
     @Bean
-    public ProxyDataSourceDecorator proxyDataSourceDecorator(ProxyDataSourceBuilderConfigurer proxyDataSourceBuilderConfigurer, DataSourceNameResolver dataSourceNameResolver) {
-        return new ProxyDataSourceDecorator(dataSourceDecoratorProperties, proxyDataSourceBuilderConfigurer, dataSourceNameResolver);
+    public ProxyDataSourceDecorator proxyDataSourceDecorator(ProxyDataSourceBuilderConfigurer proxyDataSourceBuilderConfigurer,
+                                                             DataSourceNameResolver dataSourceNameResolver,
+                                                             ObjectProvider<AsyncQueryLogger> asyncQueryLogger,
+                                                             ObjectProvider<DataSourceSampler> dataSourceSampler) {
+        return new ProxyDataSourceDecorator(dataSourceDecoratorProperties, proxyDataSourceBuilderConfigurer, dataSourceNameResolver,
+                asyncQueryLogger.getIfAvailable(), dataSourceSampler.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "decorator.datasource.datasource-proxy.logging", havingValue = "async")
+    public AsyncQueryLogger asyncQueryLogger(ObjectProvider<AsyncQueryLoggerMetrics> metrics) {
+        AsyncQueryLogger asyncQueryLogger = new AsyncQueryLogger(dataSourceDecoratorProperties.getDatasourceProxy());
+        metrics.ifAvailable(asyncQueryLoggerMetrics -> asyncQueryLoggerMetrics.register(asyncQueryLogger));
+        return asyncQueryLogger;
     }
 
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnProperty(value = "decorator.datasource.datasource-proxy.count-query", havingValue = "true")
     public QueryCountStrategy queryCountStrategy() {
+        var datasourceProxy = dataSourceDecoratorProperties.getDatasourceProxy();
+        // request reporting reads thread-local counters
+        if (datasourceProxy.getCountQueryStrategy() == DataSourceProxyProperties.CountQueryStrategy.THREAD
+                || datasourceProxy.getRequestQueryCount().isEnabled()) {
+            return new ThreadQueryCountHolder();
+        }
         return new SingleQueryCountHolder();
     }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(value = "decorator.datasource.datasource-proxy.logging", havingValue = "async")
+    static class AsyncQueryLoggerMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AsyncQueryLoggerMetrics asyncQueryLoggerMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new AsyncQueryLoggerMetrics(meterRegistry);
+        }
+    }
 }
\ No newline at end of file
@@ -42,6 +42,7 @@ public class DataSourceProxyProperties {
 
     private Query query = new Query();
     private SlowQuery slowQuery = new SlowQuery();
+    private Async async = new Async();
 
     /**
      * Use multiline output for logging query.
@@ -58,6 +59,13 @@ public class DataSourceProxyProperties {
      */
     private boolean formatSql = false;
 
+    /**
+     * Cache of formatted queries (only with format-sql=true).
+     *
+     * @see CachingFormatQueryCallback
+     */
+    private FormatSqlCache formatSqlCache = new FormatSqlCache();
+
     /**
      * Use json output for logging query.
      *
@@ -71,6 +79,22 @@ public class DataSourceProxyProperties {
      * @see QueryCountHolder
      */
     private boolean countQuery = false;
+    /**
+     * Strategy to count queries with (only with count-query=true).
+     */
+    private CountQueryStrategy countQueryStrategy = CountQueryStrategy.GLOBAL;
+    /**
+     * Reporting of queries executed by each request in servlet web application (only with count-query=true).
+     *
+     * @see QueryCountFilter
+     */
+    private RequestQueryCount requestQueryCount = new RequestQueryCount();
+    /**
+     * Detection of the same query executed many times within a transaction (N+1 queries).
+     *
+     * @see RepeatedQueryListener
+     */
+    private RepeatedQuery repeatedQuery = new RepeatedQuery();
 
     public DataSourceProxyLogging getLogging() {
         return this.logging;
@@ -84,6 +108,10 @@ public class DataSourceProxyProperties {
         return this.slowQuery;
     }
 
+    public Async getAsync() {
+        return this.async;
+    }
+
     public boolean isMultiline() {
         return this.multiline;
     }
@@ -92,6 +120,10 @@ public class DataSourceProxyProperties {
         return this.formatSql;
     }
 
+    public FormatSqlCache getFormatSqlCache() {
+        return this.formatSqlCache;
+    }
+
     public boolean isJsonFormat() {
         return this.jsonFormat;
     }
@@ -100,6 +132,18 @@ public class DataSourceProxyProperties {
         return this.countQuery;
     }
 
+    public CountQueryStrategy getCountQueryStrategy() {
+        return this.countQueryStrategy;
+    }
+
+    public RequestQueryCount getRequestQueryCount() {
+        return this.requestQueryCount;
+    }
+
+    public RepeatedQuery getRepeatedQuery() {
+        return this.repeatedQuery;
+    }
+
     public void setLogging(DataSourceProxyLogging logging) {
         this.logging = logging;
     }
@@ -112,6 +156,10 @@ public class DataSourceProxyProperties {
         this.slowQuery = slowQuery;
     }
 
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
     public void setMultiline(boolean multiline) {
         this.multiline = multiline;
     }
@@ -120,6 +168,10 @@ public class DataSourceProxyProperties {
         this.formatSql = formatSql;
     }
 
+    public void setFormatSqlCache(FormatSqlCache formatSqlCache) {
+        this.formatSqlCache = formatSqlCache;
+    }
+
     public void setJsonFormat(boolean jsonFormat) {
         this.jsonFormat = jsonFormat;
     }
@@ -128,6 +180,18 @@ public class DataSourceProxyProperties {
         this.countQuery = countQuery;
     }
 
+    public void setCountQueryStrategy(CountQueryStrategy countQueryStrategy) {
+        this.countQueryStrategy = countQueryStrategy;
+    }
+
+    public void setRequestQueryCount(RequestQueryCount requestQueryCount) {
+        this.requestQueryCount = requestQueryCount;
+    }
+
+    public void setRepeatedQuery(RepeatedQuery repeatedQuery) {
+        this.repeatedQuery = repeatedQuery;
+    }
+
     /**
      * Properties to configure query logging listener.
      *
@@ -201,6 +265,10 @@ public class DataSourceProxyProperties {
          */
         @DurationUnit(value = ChronoUnit.SECONDS)
         private Duration threshold = Duration.ofSeconds(300);
+        /**
+         * Threshold derived from latency distribution of each query, only with slf4j and async logging.
+         */
+        private Adaptive adaptive = new Adaptive();
 
         public boolean isEnableLogging() {
             return this.enableLogging;
@@ -226,6 +294,10 @@ public class DataSourceProxyProperties {
             return this.threshold;
         }
 
+        public Adaptive getAdaptive() {
+            return this.adaptive;
+        }
+
         public void setEnableLogging(boolean enableLogging) {
             this.enableLogging = enableLogging;
         }
@@ -241,12 +313,299 @@ public class DataSourceProxyProperties {
         public void setThreshold(Duration threshold) {
             this.threshold = threshold;
         }
+
+        public void setAdaptive(Adaptive adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        /**
+         * Properties to configure adaptive slow query threshold. Query is considered slow when it takes longer than
+         * 99th percentile of its own execution time multiplied by {@link #multiplier}, bounded by {@link #minThreshold}
+         * and {@link SlowQuery#threshold}.
+         */
+        public static class Adaptive {
+            /**
+             * Enable adaptive threshold instead of the static one.
+             */
+            private boolean enabled = false;
+            /**
+             * Multiplier of the 99th percentile of query execution time.
+             */
+            private double multiplier = 3.0;
+            /**
+             * Number of executions of the query within the window before adaptive threshold is used, static threshold is used until then.
+             */
+            private int minSamples = 100;
+            /**
+             * Minimum threshold to avoid logging fast queries due to jitter.
+             */
+            @DurationUnit(value = ChronoUnit.MILLIS)
+            private Duration minThreshold = Duration.ofMillis(10);
+            /**
+             * Period of time over which execution time of a query is tracked.
+             */
+            private Duration window = Duration.ofMinutes(10);
+            /**
+             * Maximum number of distinct queries to track, least recently executed query is evicted when exceeded.
+             */
+            private int maxQueries = 1000;
+
+            public boolean isEnabled() {
+                return this.enabled;
+            }
+
+            public double getMultiplier() {
+                return this.multiplier;
+            }
+
+            public int getMinSamples() {
+                return this.minSamples;
+            }
+
+            public Duration getMinThreshold() {
+                return this.minThreshold;
+            }
+
+            public Duration getWindow() {
+                return this.window;
+            }
+
+            public int getMaxQueries() {
+                return this.maxQueries;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public void setMultiplier(double multiplier) {
+                this.multiplier = multiplier;
+            }
+
+            public void setMinSamples(int minSamples) {
+                this.minSamples = minSamples;
+            }
+
+            public void setMinThreshold(Duration minThreshold) {
+                this.minThreshold = minThreshold;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public void setMaxQueries(int maxQueries) {
+                this.maxQueries = maxQueries;
+            }
+        }
+    }
+
+    /**
+     * Properties to configure reporting of queries executed by each request.
+     */
+    public static class RequestQueryCount {
+        /**
+         * Enable reporting of queries executed by each request, implies thread count query strategy.
+         */
+        private boolean enabled = false;
+        /**
+         * Add number of queries and time spent executing them to response headers, headers are added
+         * when response body writing starts.
+         */
+        private boolean headers = false;
+        /**
+         * Put number of queries and time spent executing them to MDC at the end of the request, keys are only
+         * available to {@link QueryCountReporter}s.
+         */
+        private boolean mdc = true;
+        /**
+         * Record number of queries and time spent executing them per request to Micrometer.
+         */
+        private boolean metrics = true;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public boolean isHeaders() {
+            return this.headers;
+        }
+
+        public boolean isMdc() {
+            return this.mdc;
+        }
+
+        public boolean isMetrics() {
+            return this.metrics;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setHeaders(boolean headers) {
+            this.headers = headers;
+        }
+
+        public void setMdc(boolean mdc) {
+            this.mdc = mdc;
+        }
+
+        public void setMetrics(boolean metrics) {
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Properties to configure detection of repeated queries.
+     */
+    public static class RepeatedQuery {
+        /**
+         * Enable detection of repeated queries.
+         */
+        private boolean enabled = false;
+        /**
+         * Maximum number of executions of the same query within a scope, query executed more times is reported.
+         */
+        private int threshold = 10;
+        /**
+         * Throw exception from the query that exceeded the threshold instead of logging, useful in tests.
+         */
+        private boolean throwException = false;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public int getThreshold() {
+            return this.threshold;
+        }
+
+        public boolean isThrowException() {
+            return this.throwException;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public void setThrowException(boolean throwException) {
+            this.throwException = throwException;
+        }
+    }
+
+    /**
+     * Properties to configure cache of formatted queries.
+     */
+    public static class FormatSqlCache {
+        /**
+         * Maximum number of formatted queries to keep, 0 disables caching.
+         */
+        private int size = 1024;
+        /**
+         * Queries longer than this number of characters are formatted without caching.
+         */
+        private int maxQueryLength = 8192;
+
+        public int getSize() {
+            return this.size;
+        }
+
+        public int getMaxQueryLength() {
+            return this.maxQueryLength;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public void setMaxQueryLength(int maxQueryLength) {
+            this.maxQueryLength = maxQueryLength;
+        }
+    }
+
+    /**
+     * Properties to configure asynchronous query logging (only with logging=async).
+     *
+     * @see AsyncQueryLogger
+     */
+    public static class Async {
+        /**
+         * Maximum number of queries waiting to be logged.
+         */
+        private int bufferSize = 8192;
+        /**
+         * Maximum number of queries logged by the background thread at once.
+         */
+        private int batchSize = 256;
+        /**
+         * What to do with a query when the buffer is full.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        public int getBufferSize() {
+            return this.bufferSize;
+        }
+
+        public int getBatchSize() {
+            return this.batchSize;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return this.overflowPolicy;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public enum OverflowPolicy {
+            /**
+             * Query is not logged and counted as dropped.
+             */
+            DROP,
+            /**
+             * Calling thread waits until there is space in the buffer.
+             */
+            BLOCK
+        }
+    }
+
+    public enum CountQueryStrategy {
+        /**
+         * Queries are counted in shared counters.
+         *
+         * @see net.ttddyy.dsproxy.listener.SingleQueryCountHolder
+         */
+        GLOBAL,
+        /**
+         * Queries are counted per thread.
+         *
+         * @see net.ttddyy.dsproxy.listener.ThreadQueryCountHolder
+         */
+        THREAD
     }
 
     public enum DataSourceProxyLogging {
         SYSOUT,
         SLF4J,
         COMMONS,
-        JUL
+        JUL,
+        /**
+         * Queries are logged using slf4j on a background thread, slow queries are logged using slf4j synchronously.
+         */
+        ASYNC
     }
 }
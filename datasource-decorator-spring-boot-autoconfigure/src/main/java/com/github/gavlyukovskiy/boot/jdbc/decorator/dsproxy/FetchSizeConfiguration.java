@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of fetch size learned per query, requires {@link RowCountingResultSetProxyLogicFactory result set proxy},
+ * so it's not applied when custom {@link ResultSetProxyLogicFactory} is defined.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "decorator.datasource.fetch-size.enabled", havingValue = "true")
+@ConditionalOnMissingBean(ResultSetProxyLogicFactory.class)
+public class FetchSizeConfiguration {
+
+    @Bean
+    public FetchSizeTuner fetchSizeTuner(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+        return new FetchSizeTuner(dataSourceDecoratorProperties.getFetchSize());
+    }
+
+    @Bean
+    public FetchSizeQueryExecutionListener fetchSizeQueryExecutionListener(FetchSizeTuner fetchSizeTuner) {
+        return new FetchSizeQueryExecutionListener(fetchSizeTuner);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+/**
+ * Properties for configuring fetch size learned from the number of rows consumed by previous executions of the query.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class FetchSizeProperties {
+
+    /**
+     * Enables applying fetch size learned per SQL fingerprint, requires datasource-proxy.
+     */
+    private boolean enabled = false;
+    /**
+     * Smallest fetch size applied to statements.
+     */
+    private int min = 10;
+    /**
+     * Largest fetch size applied to statements, limits memory used by buffered rows of large results.
+     */
+    private int max = 1000;
+    /**
+     * Maximum number of distinct queries per data source to learn fetch size for, least recently executed query is evicted when exceeded.
+     */
+    private int maxQueries = 1000;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getMin() {
+        return this.min;
+    }
+
+    public int getMax() {
+        return this.max;
+    }
+
+    public int getMaxQueries() {
+        return this.maxQueries;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    public void setMaxQueries(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+}
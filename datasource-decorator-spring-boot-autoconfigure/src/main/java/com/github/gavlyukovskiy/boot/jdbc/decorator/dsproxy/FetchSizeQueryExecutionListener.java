@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@link QueryExecutionListener} that applies fetch size learned by {@link FetchSizeTuner} to the statement before
+ * the query is executed. Fetch size set by the application is always kept, learned fetch size is applied only when
+ * the statement uses driver default ({@code 0}), e.g. MySQL streaming with {@link Integer#MIN_VALUE} is not affected.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class FetchSizeQueryExecutionListener implements QueryExecutionListener {
+
+    private static final Logger log = getLogger(FetchSizeQueryExecutionListener.class);
+
+    private final FetchSizeTuner fetchSizeTuner;
+
+    public FetchSizeQueryExecutionListener(FetchSizeTuner fetchSizeTuner) {
+        this.fetchSizeTuner = fetchSizeTuner;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.isBatch() || queryInfoList.size() != 1 || !returnsResultSet(execInfo)) {
+            return;
+        }
+        int fetchSize = fetchSizeTuner.beforeQuery(execInfo.getDataSourceName(), queryInfoList.get(0).getQuery());
+        Statement statement = execInfo.getStatement();
+        if (fetchSize > 0 && statement != null) {
+            try {
+                // 0 means the driver decides, e.g. all rows on PostgreSQL and MySQL
+                if (statement.getFetchSize() == 0) {
+                    statement.setFetchSize(fetchSize);
+                }
+            }
+            catch (SQLException e) {
+                log.debug("Failed to set fetch size {} on statement {}", fetchSize, statement, e);
+            }
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    private static boolean returnsResultSet(ExecutionInfo execInfo) {
+        String methodName = execInfo.getMethod() != null ? execInfo.getMethod().getName() : null;
+        return "executeQuery".equals(methodName) || "execute".equals(methodName);
+    }
+}
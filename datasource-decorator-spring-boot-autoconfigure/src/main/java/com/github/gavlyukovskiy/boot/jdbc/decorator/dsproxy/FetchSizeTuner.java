@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.SqlFingerprint;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Learns fetch size per data source and {@link SqlFingerprint fingerprint} of the query from the number of rows
+ * consumed from its result sets.
+ * <p>
+ * Fetch size is the 90th percentile of rows consumed by the last {@value #SAMPLES} executions plus one row, so that
+ * the end of the result is detected without another round trip, limited by {@link FetchSizeProperties#getMin()}
+ * and {@link FetchSizeProperties#getMax()}. Number of queries per data source is limited by
+ * {@link FetchSizeProperties#getMaxQueries()}, when the limit is reached the least recently executed query is discarded.
+ * <p>
+ * Consumed rows are counted by {@link RowCountingResultSetProxyLogicFactory}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class FetchSizeTuner implements ResultSetRowsListener {
+
+    static final int SAMPLES = 16;
+
+    private final FetchSizeProperties fetchSize;
+    private final LongSupplier nanoClock;
+    private final ConcurrentLruCache<String, String> fingerprints;
+    private final Map<String, Map<String, RowDistribution>> dataSources = new ConcurrentHashMap<>();
+    private final Lock registrationLock = new ReentrantLock();
+
+    public FetchSizeTuner(FetchSizeProperties fetchSize) {
+        this(fetchSize, System::nanoTime);
+    }
+
+    FetchSizeTuner(FetchSizeProperties fetchSize, LongSupplier nanoClock) {
+        this.fetchSize = fetchSize;
+        this.nanoClock = nanoClock;
+        this.fingerprints = new ConcurrentLruCache<>(Math.max(fetchSize.getMaxQueries() * 4, 256), SqlFingerprint::of);
+    }
+
+    /**
+     * Returns fetch size learned for the query that is about to be executed, the query is registered to learn
+     * its fetch size if it is executed for the first time.
+     *
+     * @param dataSourceName name of the data source
+     * @param sql query
+     * @return learned fetch size, 0 if query was not executed before
+     */
+    public int beforeQuery(String dataSourceName, String sql) {
+        return getRowDistribution(dataSourceName, sql).fetchSize;
+    }
+
+    @Override
+    public void onRowsConsumed(String dataSourceName, String query, long rows) {
+        getRowDistribution(dataSourceName, query).record(rows);
+    }
+
+    /**
+     * Returns fetch size learned for the query.
+     *
+     * @param dataSourceName name of the data source
+     * @param sql query
+     * @return learned fetch size, 0 if query was not executed before
+     */
+    public int getFetchSize(String dataSourceName, String sql) {
+        Map<String, RowDistribution> statements = dataSources.get(dataSourceName(dataSourceName));
+        RowDistribution distribution = statements != null ? statements.get(fingerprints.get(sql)) : null;
+        return distribution != null ? distribution.fetchSize : 0;
+    }
+
+    private RowDistribution getRowDistribution(String dataSourceName, String sql) {
+        String name = dataSourceName(dataSourceName);
+        Map<String, RowDistribution> statements = dataSources.get(name);
+        if (statements == null) {
+            statements = dataSources.computeIfAbsent(name, n -> new ConcurrentHashMap<>());
+        }
+        String fingerprint = fingerprints.get(sql);
+        RowDistribution distribution = statements.get(fingerprint);
+        if (distribution == null) {
+            distribution = register(statements, fingerprint);
+        }
+        distribution.lastUsed = nanoClock.getAsLong();
+        return distribution;
+    }
+
+    private static String dataSourceName(String dataSourceName) {
+        return dataSourceName != null ? dataSourceName : "";
+    }
+
+    private RowDistribution register(Map<String, RowDistribution> statements, String fingerprint) {
+        registrationLock.lock();
+        try {
+            RowDistribution distribution = statements.get(fingerprint);
+            if (distribution != null) {
+                return distribution;
+            }
+            if (statements.size() >= fetchSize.getMaxQueries()) {
+                evictLeastRecentlyUsed(statements);
+            }
+            distribution = new RowDistribution(fingerprint, fetchSize.getMin(), fetchSize.getMax());
+            statements.put(fingerprint, distribution);
+            return distribution;
+        }
+        finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(Map<String, RowDistribution> statements) {
+        RowDistribution leastRecentlyUsed = null;
+        for (RowDistribution distribution : statements.values()) {
+            if (leastRecentlyUsed == null || distribution.lastUsed - leastRecentlyUsed.lastUsed < 0) {
+                leastRecentlyUsed = distribution;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            statements.remove(leastRecentlyUsed.fingerprint);
+        }
+    }
+
+    /**
+     * Rows consumed by the last {@value #SAMPLES} executions of the query.
+     */
+    static final class RowDistribution {
+        private final String fingerprint;
+        private final int min;
+        private final int max;
+        private final long[] samples = new long[SAMPLES];
+        private final Lock lock = new ReentrantLock();
+        private int recorded;
+        private volatile int fetchSize;
+        private volatile long lastUsed;
+
+        private RowDistribution(String fingerprint, int min, int max) {
+            this.fingerprint = fingerprint;
+            this.min = min;
+            this.max = max;
+        }
+
+        private void record(long rows) {
+            lock.lock();
+            try {
+                samples[recorded % SAMPLES] = rows;
+                recorded++;
+                long[] sorted = Arrays.copyOf(samples, Math.min(recorded, SAMPLES));
+                Arrays.sort(sorted);
+                long percentile = sorted[(int) Math.ceil(sorted.length * 0.9) - 1];
+                fetchSize = (int) Math.max(min, Math.min(max, percentile + 1));
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 import org.hibernate.engine.jdbc.internal.BasicFormatterImpl;
 import org.slf4j.Logger;
@@ -19,9 +20,9 @@ class HibernateFormatterConfiguration {
 
     @Bean
     @ConditionalOnMissingBean // let users define their own
-    public ProxyDataSourceBuilder.FormatQueryCallback hibernateFormatQueryCallback() {
+    public ProxyDataSourceBuilder.FormatQueryCallback hibernateFormatQueryCallback(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
         log.debug("{} will be used as formatter", BasicFormatterImpl.class.getName());
         BasicFormatterImpl hibernateFormatter = new BasicFormatterImpl();
-        return hibernateFormatter::format;
+        return CachingFormatQueryCallback.wrap(hibernateFormatter::format, dataSourceDecoratorProperties.getDatasourceProxy().getFormatSqlCache());
     }
 }
\ No newline at end of file
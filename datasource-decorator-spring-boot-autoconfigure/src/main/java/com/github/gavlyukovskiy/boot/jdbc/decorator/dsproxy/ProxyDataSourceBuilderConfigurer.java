@@ -16,12 +16,14 @@
 
 package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.AdaptiveSlowQueryThreshold;
 import net.ttddyy.dsproxy.listener.MethodExecutionListener;
 import net.ttddyy.dsproxy.listener.QueryCountStrategy;
 import net.ttddyy.dsproxy.listener.QueryExecutionListener;
 import net.ttddyy.dsproxy.listener.logging.CommonsLogLevel;
 import net.ttddyy.dsproxy.listener.logging.LoggingFilter;
 import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.listener.logging.SLF4JSlowQueryListener;
 import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 import net.ttddyy.dsproxy.transform.ParameterTransformer;
@@ -65,6 +67,9 @@ public class ProxyDataSourceBuilderConfigurer {
     @Autowired(required = false)
     private ResultSetProxyLogicFactory resultSetProxyLogicFactory;
 
+    @Autowired(required = false)
+    private List<ResultSetRowsListener> resultSetRowsListeners;
+
     @Autowired(required = false)
     private ConnectionIdManagerProvider connectionIdManagerProvider;
 
@@ -78,11 +83,16 @@ public class ProxyDataSourceBuilderConfigurer {
         var query = datasourceProxy.getQuery();
         var slowQuery = datasourceProxy.getSlowQuery();
         switch (datasourceProxy.getLogging()) {
-            case SLF4J: {
+            case SLF4J:
+            case ASYNC: {
+                // with async logging query logging listener is moved to background thread after ProxyDataSource is built
                 if (query.isEnableLogging()) {
                     proxyDataSourceBuilder.logQueryBySlf4j(toSlf4JLogLevel(query.getLogLevel()), query.getLoggerName());
                 }
-                if (slowQuery.isEnableLogging()) {
+                if (slowQuery.isEnableLogging() && slowQuery.getAdaptive().isEnabled()) {
+                    proxyDataSourceBuilder.listener(adaptiveSlowQueryListener(slowQuery));
+                }
+                else if (slowQuery.isEnableLogging()) {
                     proxyDataSourceBuilder.logSlowQueryBySlf4j(
                             slowQuery.getThresholdDuration().toMillis(), TimeUnit.MILLISECONDS,
                             toSlf4JLogLevel(slowQuery.getLogLevel()), slowQuery.getLoggerName());
@@ -123,6 +133,10 @@ public class ProxyDataSourceBuilderConfigurer {
             }
         }
 
+        if (slowQuery.isEnableLogging() && slowQuery.getAdaptive().isEnabled()
+                && datasourceProxy.getLogging() != DataSourceProxyLogging.SLF4J && datasourceProxy.getLogging() != DataSourceProxyLogging.ASYNC) {
+            log.warn("Adaptive slow query threshold is only supported with slf4j and async logging, static threshold will be used");
+        }
         if (datasourceProxy.isMultiline() && datasourceProxy.isJsonFormat()) {
             log.warn("Found opposite multiline and json format, multiline will be used (may depend on library version)");
         }
@@ -168,11 +182,25 @@ public class ProxyDataSourceBuilderConfigurer {
         if (resultSetProxyLogicFactory != null) {
             proxyDataSourceBuilder.proxyResultSet(resultSetProxyLogicFactory);
         }
+        else if (resultSetRowsListeners != null && !resultSetRowsListeners.isEmpty()) {
+            var rowCountingResultSetProxyLogicFactory = new RowCountingResultSetProxyLogicFactory(resultSetRowsListeners);
+            proxyDataSourceBuilder.proxyResultSet(rowCountingResultSetProxyLogicFactory);
+            proxyDataSourceBuilder.listener(rowCountingResultSetProxyLogicFactory);
+        }
         if (connectionIdManagerProvider != null) {
             proxyDataSourceBuilder.connectionIdManager(connectionIdManagerProvider.get());
         }
     }
 
+    private AdaptiveSlowQueryListener adaptiveSlowQueryListener(DataSourceProxyProperties.SlowQuery slowQuery) {
+        var adaptive = slowQuery.getAdaptive();
+        // each data source has its own threshold per query
+        var threshold = new AdaptiveSlowQueryThreshold(adaptive.getMultiplier(), adaptive.getMinSamples(),
+                adaptive.getMinThreshold(), slowQuery.getThresholdDuration(), adaptive.getWindow(), adaptive.getMaxQueries());
+        String loggerName = slowQuery.getLoggerName() != null ? slowQuery.getLoggerName() : SLF4JSlowQueryListener.class.getName();
+        return new AdaptiveSlowQueryListener(threshold, getLogger(loggerName), toSlf4JLogLevel(slowQuery.getLogLevel()));
+    }
+
     private SLF4JLogLevel toSlf4JLogLevel(String logLevel) {
         if (logLevel == null) {
             return null;
@@ -17,16 +17,23 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorBeanProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceSampler;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.SamplingDataSource;
 import net.ttddyy.dsproxy.support.ProxyDataSource;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.BeanUtils;
 import org.springframework.core.Ordered;
 
 import javax.sql.DataSource;
 
 /**
  * {@link Ordered} decorator for {@link ProxyDataSource}.
+ * <p>
+ * Query logging properties can be overridden for a single data source in
+ * {@code decorator.datasource.beans.<bean name>.datasource-proxy.*}, all other properties are shared.
  *
  * @author Arthur Gavlyukovskiy
  */
@@ -35,24 +42,73 @@ public class ProxyDataSourceDecorator implements DataSourceDecorator, Ordered {
     private final DataSourceDecoratorProperties dataSourceDecoratorProperties;
     private final ProxyDataSourceBuilderConfigurer proxyDataSourceBuilderConfigurer;
     private final DataSourceNameResolver dataSourceNameResolver;
+    private final AsyncQueryLogger asyncQueryLogger;
+    private final DataSourceSampler dataSourceSampler;
 
     ProxyDataSourceDecorator(
             DataSourceDecoratorProperties dataSourceDecoratorProperties,
             ProxyDataSourceBuilderConfigurer proxyDataSourceBuilderConfigurer,
-            DataSourceNameResolver dataSourceNameResolver
+            DataSourceNameResolver dataSourceNameResolver,
+            AsyncQueryLogger asyncQueryLogger,
+            DataSourceSampler dataSourceSampler
     ) {
         this.dataSourceDecoratorProperties = dataSourceDecoratorProperties;
         this.proxyDataSourceBuilderConfigurer = proxyDataSourceBuilderConfigurer;
         this.dataSourceNameResolver = dataSourceNameResolver;
+        this.asyncQueryLogger = asyncQueryLogger;
+        this.dataSourceSampler = dataSourceSampler;
     }
 
     @Override
     public DataSource decorate(String beanName, DataSource dataSource) {
+        DataSourceDecoratorBeanProperties.DataSourceProxy overrides = dataSourceDecoratorProperties.getBeanProperties(beanName).getDatasourceProxy();
+        if (Boolean.FALSE.equals(overrides.getEnabled())) {
+            return dataSource;
+        }
         ProxyDataSourceBuilder proxyDataSourceBuilder = ProxyDataSourceBuilder.create();
-        DataSourceProxyProperties datasourceProxy = dataSourceDecoratorProperties.getDatasourceProxy();
+        DataSourceProxyProperties datasourceProxy = withOverrides(dataSourceDecoratorProperties.getDatasourceProxy(), overrides);
         proxyDataSourceBuilderConfigurer.configure(proxyDataSourceBuilder, datasourceProxy);
         String dataSourceName = dataSourceNameResolver.resolveDataSourceName(dataSource);
-        return proxyDataSourceBuilder.dataSource(dataSource).name(dataSourceName).build();
+        ProxyDataSource proxyDataSource = proxyDataSourceBuilder.dataSource(dataSource).name(dataSourceName).build();
+        if (asyncQueryLogger != null) {
+            asyncQueryLogger.replaceQueryLoggingListeners(proxyDataSource.getProxyConfig().getQueryListener());
+        }
+        if (dataSourceSampler != null) {
+            return new SamplingDataSource(beanName, proxyDataSource, dataSource, dataSourceSampler);
+        }
+        return proxyDataSource;
+    }
+
+    private static DataSourceProxyProperties withOverrides(DataSourceProxyProperties datasourceProxy,
+                                                           DataSourceDecoratorBeanProperties.DataSourceProxy overrides) {
+        if (!overrides.hasLoggingOverrides()) {
+            return datasourceProxy;
+        }
+        DataSourceProxyProperties properties = new DataSourceProxyProperties();
+        BeanUtils.copyProperties(datasourceProxy, properties, "query", "slowQuery");
+
+        DataSourceProxyProperties.Query query = new DataSourceProxyProperties.Query();
+        BeanUtils.copyProperties(datasourceProxy.getQuery(), query);
+        if (overrides.getQuery().getEnableLogging() != null) {
+            query.setEnableLogging(overrides.getQuery().getEnableLogging());
+        }
+        if (overrides.getQuery().getLogLevel() != null) {
+            query.setLogLevel(overrides.getQuery().getLogLevel());
+        }
+        properties.setQuery(query);
+
+        DataSourceProxyProperties.SlowQuery slowQuery = new DataSourceProxyProperties.SlowQuery();
+        // threshold has getter of different type, so BeanUtils can't copy it
+        BeanUtils.copyProperties(datasourceProxy.getSlowQuery(), slowQuery, "threshold");
+        slowQuery.setThreshold(datasourceProxy.getSlowQuery().getThresholdDuration());
+        if (overrides.getSlowQuery().getEnableLogging() != null) {
+            slowQuery.setEnableLogging(overrides.getSlowQuery().getEnableLogging());
+        }
+        if (overrides.getSlowQuery().getThreshold() != null) {
+            slowQuery.setThreshold(overrides.getSlowQuery().getThreshold());
+        }
+        properties.setSlowQuery(slowQuery);
+        return properties;
     }
 
     @Override
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.ThreadQueryCountHolder;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Filter that reports queries executed by each request counted by {@link ThreadQueryCountHolder},
+ * counters are cleared at the beginning and at the end of the request.
+ * <p>
+ * Only queries executed on the request thread are counted, queries executed by asynchronous processing are not.
+ * <p>
+ * Counters are put to MDC only while {@link QueryCountReporter}s are called, as filters and access logs that run after
+ * this filter returns may be executed on a different thread, or the thread may be reused for the next request before
+ * they are cleared. Counters are also exposed as {@link #QUERY_COUNT_ATTRIBUTE} and {@link #QUERY_TIME_ATTRIBUTE}
+ * request attributes that are available until the request completes, e.g. in Tomcat access log with
+ * {@code %{queryCount}r}.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see QueryCountReporter
+ */
+public class QueryCountFilter extends OncePerRequestFilter implements Ordered {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_COUNT_SELECT_HEADER = "X-Query-Count-Select";
+    public static final String QUERY_COUNT_INSERT_HEADER = "X-Query-Count-Insert";
+    public static final String QUERY_COUNT_UPDATE_HEADER = "X-Query-Count-Update";
+    public static final String QUERY_COUNT_DELETE_HEADER = "X-Query-Count-Delete";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time";
+
+    public static final String QUERY_COUNT_MDC_KEY = "queryCount";
+    public static final String QUERY_TIME_MDC_KEY = "queryTime";
+
+    public static final String QUERY_COUNT_ATTRIBUTE = "queryCount";
+    public static final String QUERY_TIME_ATTRIBUTE = "queryTime";
+
+    private static final Logger log = getLogger(QueryCountFilter.class);
+
+    private final ThreadQueryCountHolder queryCountHolder;
+    private final boolean headers;
+    private final boolean mdc;
+    private final List<QueryCountReporter> queryCountReporters;
+
+    public QueryCountFilter(ThreadQueryCountHolder queryCountHolder, boolean headers, boolean mdc,
+                            List<QueryCountReporter> queryCountReporters) {
+        this.queryCountHolder = queryCountHolder;
+        this.headers = headers;
+        this.mdc = mdc;
+        this.queryCountReporters = queryCountReporters;
+    }
+
+    @Override
+    public int getOrder() {
+        // count queries executed by other filters, e.g. security
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        queryCountHolder.clear();
+        QueryCountResponseWrapper responseWrapper = headers ? new QueryCountResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, responseWrapper != null ? responseWrapper : response);
+        }
+        finally {
+            try {
+                QueryCount queryCount = getGrandTotal();
+                if (responseWrapper != null) {
+                    responseWrapper.writeHeaders();
+                }
+                report(request, queryCount);
+            }
+            finally {
+                queryCountHolder.clear();
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCount queryCount) {
+        request.setAttribute(QUERY_COUNT_ATTRIBUTE, total(queryCount));
+        request.setAttribute(QUERY_TIME_ATTRIBUTE, queryCount.getTime());
+        if (mdc) {
+            MDC.put(QUERY_COUNT_MDC_KEY, String.valueOf(total(queryCount)));
+            MDC.put(QUERY_TIME_MDC_KEY, String.valueOf(queryCount.getTime()));
+        }
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} executed {} queries (select: {}, insert: {}, update: {}, delete: {}) in {} ms",
+                        request.getMethod(), request.getRequestURI(), total(queryCount), queryCount.getSelect(),
+                        queryCount.getInsert(), queryCount.getUpdate(), queryCount.getDelete(), queryCount.getTime());
+            }
+            for (QueryCountReporter queryCountReporter : queryCountReporters) {
+                queryCountReporter.report(request, queryCount);
+            }
+        }
+        finally {
+            if (mdc) {
+                MDC.remove(QUERY_COUNT_MDC_KEY);
+                MDC.remove(QUERY_TIME_MDC_KEY);
+            }
+        }
+    }
+
+    private QueryCount getGrandTotal() {
+        QueryCount grandTotal = new QueryCount();
+        for (QueryCount queryCount : queryCountHolder.getQueryCountMap().values()) {
+            grandTotal.setSelect(grandTotal.getSelect() + queryCount.getSelect());
+            grandTotal.setInsert(grandTotal.getInsert() + queryCount.getInsert());
+            grandTotal.setUpdate(grandTotal.getUpdate() + queryCount.getUpdate());
+            grandTotal.setDelete(grandTotal.getDelete() + queryCount.getDelete());
+            grandTotal.setOther(grandTotal.getOther() + queryCount.getOther());
+            grandTotal.setTime(grandTotal.getTime() + queryCount.getTime());
+        }
+        return grandTotal;
+    }
+
+    private static int total(QueryCount queryCount) {
+        return queryCount.getSelect() + queryCount.getInsert() + queryCount.getUpdate()
+                + queryCount.getDelete() + queryCount.getOther();
+    }
+
+    /**
+     * Adds headers right before the response is committed, as it is not possible to add them after the request was handled.
+     */
+    private final class QueryCountResponseWrapper extends HttpServletResponseWrapper {
+
+        private boolean headersWritten;
+
+        private QueryCountResponseWrapper(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void writeHeaders() {
+            if (headersWritten) {
+                return;
+            }
+            headersWritten = true;
+            if (isCommitted()) {
+                return;
+            }
+            QueryCount queryCount = getGrandTotal();
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(total(queryCount)));
+            setHeader(QUERY_COUNT_SELECT_HEADER, String.valueOf(queryCount.getSelect()));
+            setHeader(QUERY_COUNT_INSERT_HEADER, String.valueOf(queryCount.getInsert()));
+            setHeader(QUERY_COUNT_UPDATE_HEADER, String.valueOf(queryCount.getUpdate()));
+            setHeader(QUERY_COUNT_DELETE_HEADER, String.valueOf(queryCount.getDelete()));
+            setHeader(QUERY_TIME_HEADER, String.valueOf(queryCount.getTime()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.ttddyy.dsproxy.QueryCount;
+
+/**
+ * Callback for queries executed by a request, beans of this type are notified by {@link QueryCountFilter}
+ * at the end of each request.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@FunctionalInterface
+public interface QueryCountReporter {
+
+    /**
+     * @param request finished request
+     * @param queryCount queries executed by the request in all data sources
+     */
+    void report(HttpServletRequest request, QueryCount queryCount);
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryMetrics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryExecutionListener} that records execution time of queries to {@link QueryMetrics}.
+ * Batches of different statements are recorded under the first statement.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryMetricsQueryExecutionListener implements QueryExecutionListener {
+
+    private final QueryMetrics queryMetrics;
+
+    public QueryMetricsQueryExecutionListener(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        queryMetrics.record(execInfo.getDataSourceName(), queryInfoList.get(0).getQuery(),
+                TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()));
+    }
+}
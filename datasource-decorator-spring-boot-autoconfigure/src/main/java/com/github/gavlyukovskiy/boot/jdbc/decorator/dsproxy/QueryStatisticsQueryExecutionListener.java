@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryStatistics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryExecutionListener} that records execution time, updated and fetched rows of queries to {@link QueryStatistics}.
+ * Batches of different statements are recorded under the first statement. Fetched rows are counted by
+ * {@link RowCountingResultSetProxyLogicFactory}, so they are not recorded when custom result set proxy is configured.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryStatisticsQueryExecutionListener implements QueryExecutionListener, ResultSetRowsListener {
+
+    private final QueryStatistics queryStatistics;
+
+    public QueryStatisticsQueryExecutionListener(QueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        String dataSourceName = execInfo.getDataSourceName();
+        String query = queryInfoList.get(0).getQuery();
+        queryStatistics.record(dataSourceName, query, TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime()));
+        queryStatistics.recordRows(dataSourceName, query, updatedRows(execInfo.getResult()));
+    }
+
+    @Override
+    public void onRowsConsumed(String dataSourceName, String query, long rows) {
+        queryStatistics.recordRows(dataSourceName, query, rows);
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.RepeatedQueryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+/**
+ * Configuration of {@link RepeatedQueryListener}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "decorator.datasource.datasource-proxy.repeated-query.enabled", havingValue = "true")
+public class RepeatedQueryConfiguration {
+
+    @Bean
+    public RepeatedQueryListener repeatedQueryListener(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                                                       ObjectProvider<RepeatedQueryHandler> repeatedQueryHandlers) {
+        var repeatedQuery = dataSourceDecoratorProperties.getDatasourceProxy().getRepeatedQuery();
+        return new RepeatedQueryListener(repeatedQuery.getThreshold(), repeatedQuery.isThrowException(),
+                repeatedQueryHandlers.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class RepeatedQueryMetricsConfiguration {
+
+        @Bean
+        public RepeatedQueryMetrics repeatedQueryMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new RepeatedQueryMetrics(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+/**
+ * Callback for queries executed more times than allowed by {@link RepeatedQueryListener} within a single scope.
+ * Beans of this type are notified when the scope ends.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@FunctionalInterface
+public interface RepeatedQueryHandler {
+
+    /**
+     * @param dataSourceName name of the data source query was executed on
+     * @param query fingerprint of the query
+     * @param count number of executions within the scope
+     */
+    void onRepeatedQuery(String dataSourceName, String query, int count);
+}
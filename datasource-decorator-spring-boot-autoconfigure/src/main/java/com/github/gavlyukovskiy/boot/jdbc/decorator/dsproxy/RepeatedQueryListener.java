@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.SqlFingerprint;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@link QueryExecutionListener} that detects the same query (by {@link SqlFingerprint fingerprint}) executed
+ * more than threshold times within a scope, which usually means N+1 queries.
+ * <p>
+ * Scope is either opened explicitly for the current thread with {@link #beginScope()} and {@link #endScope()},
+ * e.g. for the whole request, or automatically for the transaction when query is executed with active
+ * transaction synchronization. Scopes are re-entrant, queries are counted until the outermost scope ends.
+ * Counters are kept in a per-thread open addressing table that is reused between scopes.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see RepeatedQueryHandler
+ */
+public class RepeatedQueryListener implements QueryExecutionListener {
+
+    private static final Logger log = getLogger(RepeatedQueryListener.class);
+
+    private static final ThreadLocal<Scope> scopeHolder = new ThreadLocal<>();
+
+    private static final TransactionSynchronization endScopeSynchronization = new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+            endScope();
+        }
+    };
+
+    private final int threshold;
+    private final boolean throwException;
+    private final List<RepeatedQueryHandler> repeatedQueryHandlers;
+    private final ConcurrentLruCache<String, String> fingerprints = new ConcurrentLruCache<>(1024, SqlFingerprint::of);
+
+    public RepeatedQueryListener(int threshold, boolean throwException, List<RepeatedQueryHandler> repeatedQueryHandlers) {
+        this.threshold = threshold;
+        this.throwException = throwException;
+        this.repeatedQueryHandlers = repeatedQueryHandlers;
+    }
+
+    /**
+     * Begins scope in the current thread, must be followed by {@link #endScope()}.
+     */
+    public static void beginScope() {
+        Scope scope = scopeHolder.get();
+        if (scope == null) {
+            scope = new Scope();
+            scopeHolder.set(scope);
+        }
+        scope.depth++;
+    }
+
+    /**
+     * Ends scope in the current thread, repeated queries are reported when the outermost scope ends.
+     */
+    public static void endScope() {
+        Scope scope = scopeHolder.get();
+        if (scope == null || scope.depth == 0) {
+            return;
+        }
+        if (--scope.depth == 0) {
+            try {
+                if (scope.listener != null) {
+                    scope.listener.report(scope);
+                }
+            }
+            finally {
+                scope.reset();
+            }
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        Scope scope = scopeHolder.get();
+        if (scope == null || scope.depth == 0) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            beginScope();
+            TransactionSynchronizationManager.registerSynchronization(endScopeSynchronization);
+            scope = scopeHolder.get();
+        }
+        String query = fingerprints.get(queryInfoList.get(0).getQuery());
+        int count = scope.increment(query, execInfo.getDataSourceName());
+        if (count > threshold) {
+            scope.listener = this;
+            if (throwException && count == threshold + 1) {
+                throw new IllegalStateException("Query was executed more than " + threshold + " times within a single scope: " + query);
+            }
+        }
+    }
+
+    private void report(Scope scope) {
+        for (int i = 0; i < scope.queries.length; i++) {
+            if (scope.queries[i] != null && scope.counts[i] > threshold) {
+                String dataSourceName = scope.dataSourceNames[i];
+                String query = scope.queries[i];
+                int count = scope.counts[i];
+                log.warn("Query was executed {} times within a single scope on data source '{}': {}", count, dataSourceName, query);
+                for (RepeatedQueryHandler repeatedQueryHandler : repeatedQueryHandlers) {
+                    repeatedQueryHandler.onRepeatedQuery(dataSourceName, query, count);
+                }
+            }
+        }
+    }
+
+    private static final class Scope {
+        private static final int INITIAL_CAPACITY = 64;
+        // larger tables are not retained between scopes
+        private static final int MAX_RETAINED_CAPACITY = 1024;
+
+        private int depth;
+        private String[] queries = new String[INITIAL_CAPACITY];
+        private String[] dataSourceNames = new String[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size;
+        private RepeatedQueryListener listener;
+
+        private int increment(String query, String dataSourceName) {
+            int mask = queries.length - 1;
+            int index = spread(query.hashCode()) & mask;
+            String existing;
+            while ((existing = queries[index]) != null) {
+                if (existing.equals(query)) {
+                    return ++counts[index];
+                }
+                index = (index + 1) & mask;
+            }
+            if ((size + 1) * 2 > queries.length) {
+                resize(queries.length * 2);
+                return increment(query, dataSourceName);
+            }
+            queries[index] = query;
+            dataSourceNames[index] = dataSourceName;
+            counts[index] = 1;
+            size++;
+            return 1;
+        }
+
+        private void resize(int capacity) {
+            String[] oldQueries = queries;
+            String[] oldDataSourceNames = dataSourceNames;
+            int[] oldCounts = counts;
+            queries = new String[capacity];
+            dataSourceNames = new String[capacity];
+            counts = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldQueries.length; i++) {
+                if (oldQueries[i] != null) {
+                    int index = spread(oldQueries[i].hashCode()) & mask;
+                    while (queries[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    queries[index] = oldQueries[i];
+                    dataSourceNames[index] = oldDataSourceNames[i];
+                    counts[index] = oldCounts[i];
+                }
+            }
+        }
+
+        private void reset() {
+            if (queries.length > MAX_RETAINED_CAPACITY) {
+                queries = new String[INITIAL_CAPACITY];
+                dataSourceNames = new String[INITIAL_CAPACITY];
+                counts = new int[INITIAL_CAPACITY];
+            }
+            else if (size > 0) {
+                Arrays.fill(queries, null);
+                Arrays.fill(dataSourceNames, null);
+                Arrays.fill(counts, 0);
+            }
+            size = 0;
+            listener = null;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
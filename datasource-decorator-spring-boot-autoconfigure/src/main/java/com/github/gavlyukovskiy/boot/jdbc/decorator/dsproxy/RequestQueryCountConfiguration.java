@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.RequestQueryCountMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.listener.QueryCountStrategy;
+import net.ttddyy.dsproxy.listener.ThreadQueryCountHolder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.util.stream.Collectors;
+
+/**
+ * Configuration of {@link QueryCountFilter}, requires {@link QueryCountStrategy} to be {@link ThreadQueryCountHolder},
+ * as queries are counted per request thread.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(OncePerRequestFilter.class)
+@ConditionalOnProperty(value = {
+        "decorator.datasource.datasource-proxy.count-query",
+        "decorator.datasource.datasource-proxy.request-query-count.enabled"
+}, havingValue = "true")
+public class RequestQueryCountConfiguration {
+
+    @Bean
+    public QueryCountFilter queryCountFilter(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                                             QueryCountStrategy queryCountStrategy,
+                                             ObjectProvider<QueryCountReporter> queryCountReporters) {
+        if (!(queryCountStrategy instanceof ThreadQueryCountHolder queryCountHolder)) {
+            throw new IllegalStateException("Request query count requires QueryCountStrategy to be ThreadQueryCountHolder, but found "
+                    + queryCountStrategy.getClass().getName());
+        }
+        var requestQueryCount = dataSourceDecoratorProperties.getDatasourceProxy().getRequestQueryCount();
+        return new QueryCountFilter(queryCountHolder, requestQueryCount.isHeaders(), requestQueryCount.isMdc(),
+                queryCountReporters.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(value = "decorator.datasource.datasource-proxy.request-query-count.metrics", havingValue = "true", matchIfMissing = true)
+    static class RequestQueryCountMetricsConfiguration {
+
+        @Bean
+        public RequestQueryCountMetrics requestQueryCountMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new RequestQueryCountMetrics(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+/**
+ * Receives number of rows consumed from result sets of executed queries, rows are counted by
+ * {@link RowCountingResultSetProxyLogicFactory} that is enabled when at least one listener bean is defined.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public interface ResultSetRowsListener {
+
+    /**
+     * Called when result set of the query is exhausted or closed.
+     *
+     * @param dataSourceName name of the data source
+     * @param query executed query
+     * @param rows number of rows consumed from the result set
+     */
+    void onRowsConsumed(String dataSourceName, String query, long rows);
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogicFactory;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * {@link ResultSetProxyLogicFactory} that counts rows consumed from result sets and reports them to
+ * {@link ResultSetRowsListener}s when the result set is exhausted or closed. All other calls are handled by
+ * {@link SimpleResultSetProxyLogicFactory default} result set proxy logic.
+ * <p>
+ * Result set proxy doesn't know the query it was created for, so the query is handed over from
+ * {@link #beforeQuery(ExecutionInfo, List)} through a thread local, as the result set is created by the thread that
+ * executed the query. The query is discarded in {@link #afterQuery(ExecutionInfo, List)} when the execution didn't
+ * produce a result set, so that rows of unrelated result sets, e.g. generated keys, are not reported for it.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class RowCountingResultSetProxyLogicFactory implements ResultSetProxyLogicFactory, QueryExecutionListener {
+
+    private final ResultSetProxyLogicFactory delegate = new SimpleResultSetProxyLogicFactory();
+    private final List<ResultSetRowsListener> listeners;
+    private final ThreadLocal<ExecutingQuery> executingQuery = new ThreadLocal<>();
+
+    public RowCountingResultSetProxyLogicFactory(List<ResultSetRowsListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.isBatch() || queryInfoList.size() != 1 || !returnsResultSet(execInfo)) {
+            executingQuery.remove();
+            return;
+        }
+        executingQuery.set(new ExecutingQuery(execInfo.getDataSourceName(), queryInfoList.get(0).getQuery()));
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // result set of executeQuery is already created at this point, result set of execute is obtained later by getResultSet
+        if (!execInfo.isSuccess() || !isExecuteReturningResultSet(execInfo)) {
+            executingQuery.remove();
+        }
+    }
+
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        ResultSetProxyLogic resultSetProxyLogic = delegate.create(resultSet, connectionInfo, proxyConfig);
+        ExecutingQuery query = executingQuery.get();
+        if (query == null) {
+            return resultSetProxyLogic;
+        }
+        executingQuery.remove();
+        return new RowCountingResultSetProxyLogic(resultSetProxyLogic, query);
+    }
+
+    private static boolean isExecuteReturningResultSet(ExecutionInfo execInfo) {
+        return execInfo.getMethod() != null && "execute".equals(execInfo.getMethod().getName()) && Boolean.TRUE.equals(execInfo.getResult());
+    }
+
+    private static boolean returnsResultSet(ExecutionInfo execInfo) {
+        String methodName = execInfo.getMethod() != null ? execInfo.getMethod().getName() : null;
+        return "executeQuery".equals(methodName) || "execute".equals(methodName);
+    }
+
+    private record ExecutingQuery(String dataSourceName, String query) {
+    }
+
+    private final class RowCountingResultSetProxyLogic implements ResultSetProxyLogic {
+        private final ResultSetProxyLogic delegate;
+        private final ExecutingQuery query;
+        private long rows;
+        private boolean reported;
+
+        private RowCountingResultSetProxyLogic(ResultSetProxyLogic delegate, ExecutingQuery query) {
+            this.delegate = delegate;
+            this.query = query;
+        }
+
+        @Override
+        public Object invoke(Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if ("close".equals(methodName)) {
+                report();
+                return delegate.invoke(method, args);
+            }
+            Object result = delegate.invoke(method, args);
+            if ("next".equals(methodName)) {
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                }
+                else {
+                    report();
+                }
+            }
+            return result;
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                for (ResultSetRowsListener listener : listeners) {
+                    listener.onRowsConsumed(query.dataSourceName(), query.query(), rows);
+                }
+            }
+        }
+    }
+}
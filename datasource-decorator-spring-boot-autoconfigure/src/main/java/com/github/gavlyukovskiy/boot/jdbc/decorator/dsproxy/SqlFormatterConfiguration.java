@@ -1,6 +1,7 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
 import com.github.vertical_blank.sqlformatter.SqlFormatter;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +20,8 @@ class SqlFormatterConfiguration {
 
     @Bean
     @ConditionalOnMissingBean // let users define their own
-    public ProxyDataSourceBuilder.FormatQueryCallback sqlFormatterFormatQueryCallback() {
+    public ProxyDataSourceBuilder.FormatQueryCallback sqlFormatterFormatQueryCallback(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
         log.debug("{} will be used as formatter", SqlFormatter.class.getName());
-        return SqlFormatter::format;
+        return CachingFormatQueryCallback.wrap(SqlFormatter::format, dataSourceDecoratorProperties.getDatasourceProxy().getFormatSqlCache());
     }
 }
\ No newline at end of file
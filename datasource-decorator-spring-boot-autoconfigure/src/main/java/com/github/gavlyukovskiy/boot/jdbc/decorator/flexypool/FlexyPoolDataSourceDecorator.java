@@ -17,6 +17,7 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.flexypool;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import com.vladmihalcea.flexypool.FlexyPoolDataSource;
 import com.vladmihalcea.flexypool.adaptor.PoolAdapterFactory;
 import com.vladmihalcea.flexypool.config.FlexyPoolConfiguration;
@@ -42,6 +43,9 @@ public class FlexyPoolDataSourceDecorator implements DataSourceDecorator, Ordere
     @Autowired(required = false)
     private List<FlexyPoolConfigurationBuilderCustomizer> customizers;
 
+    @Autowired(required = false)
+    private DataSourceDecoratorProperties dataSourceDecoratorProperties;
+
     @SuppressWarnings("unchecked")
     <T extends DataSource> FlexyPoolDataSourceDecorator(
             List<ConnectionAcquisitionStrategyFactory<?, T>> connectionAcquisitionStrategyFactories,
@@ -61,6 +65,10 @@ public class FlexyPoolDataSourceDecorator implements DataSourceDecorator, Ordere
 
     @Override
     public DataSource decorate(String beanName, DataSource dataSource) {
+        if (dataSourceDecoratorProperties != null
+                && Boolean.FALSE.equals(dataSourceDecoratorProperties.getBeanProperties(beanName).getFlexyPool().getEnabled())) {
+            return dataSource;
+        }
         if (dataSourceClass == null) {
             // property based configuration
             FlexyPoolDataSource<DataSource> flexyPoolDataSource = new FlexyPoolDataSource<>(dataSource);
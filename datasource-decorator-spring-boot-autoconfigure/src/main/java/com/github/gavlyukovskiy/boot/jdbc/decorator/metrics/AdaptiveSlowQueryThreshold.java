@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Slow query threshold derived from latency distribution of each query {@link SqlFingerprint fingerprint}:
+ * query is slow when it takes longer than 99th percentile of its execution time within the window multiplied
+ * by the multiplier, bounded by minimum and maximum threshold. Until query has enough executions within the window
+ * maximum threshold is used.
+ * <p>
+ * Threshold of each query is recalculated once per slice of the window or every {@value #RECALCULATION_INTERVAL}
+ * executions (minimum number of executions until adaptive threshold is used), whichever comes first.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class AdaptiveSlowQueryThreshold {
+
+    private static final int WINDOW_SLICES = 5;
+    private static final int RECALCULATION_INTERVAL = 1024;
+
+    private final double multiplier;
+    private final int minSamples;
+    private final long minThresholdNanos;
+    private final long maxThresholdNanos;
+    private final int maxQueries;
+    private final LongSupplier nanoClock;
+    private final long sliceNanos;
+    private final ConcurrentLruCache<String, String> fingerprints;
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+    private final Lock registrationLock = new ReentrantLock();
+
+    public AdaptiveSlowQueryThreshold(double multiplier, int minSamples, Duration minThreshold, Duration maxThreshold,
+                                      Duration window, int maxQueries) {
+        this(multiplier, minSamples, minThreshold, maxThreshold, window, maxQueries, System::nanoTime);
+    }
+
+    AdaptiveSlowQueryThreshold(double multiplier, int minSamples, Duration minThreshold, Duration maxThreshold,
+                               Duration window, int maxQueries, LongSupplier nanoClock) {
+        this.multiplier = multiplier;
+        this.minSamples = minSamples;
+        this.minThresholdNanos = minThreshold.toNanos();
+        this.maxThresholdNanos = maxThreshold.toNanos();
+        this.maxQueries = maxQueries;
+        this.nanoClock = nanoClock;
+        this.sliceNanos = Math.max(window.toNanos() / WINDOW_SLICES, 1);
+        this.fingerprints = new ConcurrentLruCache<>(Math.max(maxQueries * 4, 256), SqlFingerprint::of);
+    }
+
+    /**
+     * Records execution of a query and returns the threshold calculated before this execution, query is slow
+     * when its execution time is not less than the returned threshold.
+     *
+     * @param sql executed SQL
+     * @param elapsedNanos execution time in nanoseconds
+     * @return threshold in nanoseconds this execution should be compared with
+     */
+    public long record(String sql, long elapsedNanos) {
+        if (sql == null) {
+            return maxThresholdNanos;
+        }
+        long now = nanoClock.getAsLong();
+        long epoch = Math.floorDiv(now, sliceNanos);
+        Statement statement = getStatement(sql, now);
+        long thresholdNanos = statement.getThresholdNanos(epoch);
+        statement.statistics.record(epoch, elapsedNanos);
+        return thresholdNanos;
+    }
+
+    /**
+     * Returns current threshold of a query.
+     *
+     * @param sql SQL of the query
+     * @return threshold in nanoseconds
+     */
+    public long getThresholdNanos(String sql) {
+        Statement statement = sql != null ? statements.get(fingerprints.get(sql)) : null;
+        if (statement == null) {
+            return maxThresholdNanos;
+        }
+        return statement.thresholdNanos;
+    }
+
+    private Statement getStatement(String sql, long now) {
+        String fingerprint = fingerprints.get(sql);
+        Statement statement = statements.get(fingerprint);
+        if (statement == null) {
+            statement = register(fingerprint);
+        }
+        statement.statistics.lastUsed = now;
+        return statement;
+    }
+
+    private Statement register(String fingerprint) {
+        registrationLock.lock();
+        try {
+            Statement statement = statements.get(fingerprint);
+            if (statement != null) {
+                return statement;
+            }
+            if (statements.size() >= maxQueries) {
+                evictLeastRecentlyUsed();
+            }
+            statement = new Statement(new StatementStatistics(fingerprint, WINDOW_SLICES));
+            statement.statistics.lastUsed = nanoClock.getAsLong();
+            statements.put(fingerprint, statement);
+            return statement;
+        }
+        finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Statement leastRecentlyUsed = null;
+        for (Statement statement : statements.values()) {
+            if (leastRecentlyUsed == null || statement.statistics.lastUsed - leastRecentlyUsed.statistics.lastUsed < 0) {
+                leastRecentlyUsed = statement;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            statements.remove(leastRecentlyUsed.statistics.getQuery());
+        }
+    }
+
+    private final class Statement {
+        private final StatementStatistics statistics;
+        private volatile long thresholdNanos = maxThresholdNanos;
+        private volatile long thresholdEpoch = Long.MIN_VALUE;
+        // updated without synchronization, only used to trigger recalculation
+        private int executionsSinceCalculation;
+
+        private Statement(StatementStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        private long getThresholdNanos(long epoch) {
+            int interval = thresholdNanos == maxThresholdNanos ? minSamples : RECALCULATION_INTERVAL;
+            if (thresholdEpoch != epoch || ++executionsSinceCalculation >= interval) {
+                executionsSinceCalculation = 0;
+                thresholdEpoch = epoch;
+                thresholdNanos = calculateThresholdNanos(statistics.summarize(epoch));
+            }
+            return thresholdNanos;
+        }
+
+        private long calculateThresholdNanos(StatementSummary summary) {
+            if (summary == null || summary.getCalls() < minSamples) {
+                return maxThresholdNanos;
+            }
+            long thresholdNanos = (long) (summary.getP99Nanos() * multiplier);
+            return Math.min(Math.max(thresholdNanos, minThresholdNanos), maxThresholdNanos);
+        }
+    }
+}
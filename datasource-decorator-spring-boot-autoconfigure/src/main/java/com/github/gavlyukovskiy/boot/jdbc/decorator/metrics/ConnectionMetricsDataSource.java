@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data source that records time spent obtaining connections and time connections are held by the application
+ * ({@value #ACQUISITION_METRIC_NAME} and {@value #LEASE_METRIC_NAME} timers tagged with data source bean name).
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConnectionMetricsDataSource extends DelegatingDataSource {
+
+    public static final String ACQUISITION_METRIC_NAME = "jdbc.connection.acquisition";
+    public static final String LEASE_METRIC_NAME = "jdbc.connection.lease";
+
+    private final String beanName;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final boolean percentileHistogram;
+    private volatile Meters meters;
+
+    public ConnectionMetricsDataSource(String beanName, DataSource dataSource, ObjectProvider<MeterRegistry> meterRegistryProvider, boolean percentileHistogram) {
+        super(dataSource);
+        this.beanName = beanName;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Connection connection = super.getConnection();
+            success = true;
+            return leased(connection);
+        }
+        finally {
+            recordAcquisition(start, success);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Connection connection = super.getConnection(username, password);
+            success = true;
+            return leased(connection);
+        }
+        finally {
+            recordAcquisition(start, success);
+        }
+    }
+
+    private Connection leased(Connection connection) {
+        Meters meters = getMeters();
+        if (meters == null) {
+            return connection;
+        }
+        return new LeasedConnection(connection, meters.lease);
+    }
+
+    private void recordAcquisition(long start, boolean success) {
+        Meters meters = getMeters();
+        if (meters != null) {
+            (success ? meters.acquisition : meters.failedAcquisition).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters getMeters() {
+        Meters meters = this.meters;
+        if (meters == null) {
+            // resolved lazily as data sources are decorated before meter registry is available
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return null;
+            }
+            meters = new Meters(meterRegistry, beanName, percentileHistogram);
+            this.meters = meters;
+        }
+        return meters;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMetricsDataSource [" + getTargetDataSource() + "]";
+    }
+
+    private static final class Meters {
+        private final Timer acquisition;
+        private final Timer failedAcquisition;
+        private final Timer lease;
+
+        private Meters(MeterRegistry meterRegistry, String beanName, boolean percentileHistogram) {
+            this.acquisition = acquisition(meterRegistry, beanName, percentileHistogram, "success");
+            this.failedAcquisition = acquisition(meterRegistry, beanName, percentileHistogram, "failure");
+            this.lease = Timer.builder(LEASE_METRIC_NAME)
+                    .description("Time connection was held by the application")
+                    .tag("datasource", beanName)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(meterRegistry);
+        }
+
+        private static Timer acquisition(MeterRegistry meterRegistry, String beanName, boolean percentileHistogram, String outcome) {
+            return Timer.builder(ACQUISITION_METRIC_NAME)
+                    .description("Time spent obtaining connection from data source")
+                    .tag("datasource", beanName)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final class LeasedConnection extends DelegatingConnection {
+        private final Timer lease;
+        private final long leasedAt = System.nanoTime();
+        private boolean closed;
+
+        private LeasedConnection(Connection delegate, Timer lease) {
+            super(delegate);
+            this.lease = lease;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!closed) {
+                closed = true;
+                lease.record(System.nanoTime() - leasedAt, TimeUnit.NANOSECONDS);
+            }
+            super.close();
+        }
+    }
+}
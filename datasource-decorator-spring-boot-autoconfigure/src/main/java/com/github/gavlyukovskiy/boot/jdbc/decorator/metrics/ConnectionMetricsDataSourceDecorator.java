@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link Ordered} decorator for {@link ConnectionMetricsDataSource}. Applied right after flexy-pool, so that acquisition
+ * time includes flexy-pool acquisition strategies, but not time spent by other decorators.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConnectionMetricsDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final ConnectionMetricsProperties connectionMetrics;
+
+    public ConnectionMetricsDataSourceDecorator(ObjectProvider<MeterRegistry> meterRegistryProvider, ConnectionMetricsProperties connectionMetrics) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.connectionMetrics = connectionMetrics;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        return new ConnectionMetricsDataSource(beanName, dataSource, meterRegistryProvider, connectionMetrics.isPercentileHistogram());
+    }
+
+    @Override
+    public int getOrder() {
+        return 15;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+/**
+ * Properties for configuring connection metrics.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ConnectionMetricsProperties {
+
+    /**
+     * Enables recording connection acquisition and lease time per data source, requires Micrometer.
+     */
+    private boolean enabled = false;
+    /**
+     * Publish percentile histogram of connection acquisition and lease time.
+     */
+    private boolean percentileHistogram = true;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public boolean isPercentileHistogram() {
+        return this.percentileHistogram;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setPercentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+    }
+}
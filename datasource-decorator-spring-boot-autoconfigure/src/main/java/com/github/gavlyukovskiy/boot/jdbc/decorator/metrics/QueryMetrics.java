@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records query execution time into Micrometer timer 'jdbc.query' tagged with data source name
+ * and {@link SqlFingerprint fingerprint} of the query.
+ * <p>
+ * Number of timers is limited by {@link QueryMetricsProperties#getMaxQueries()}, when the limit is reached
+ * timer of the least recently executed query is removed from the registry to make room for a new one.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryMetrics {
+
+    public static final String METRIC_NAME = "jdbc.query";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final QueryMetricsProperties queryMetrics;
+    private final ConcurrentLruCache<String, String> fingerprints;
+    private final Map<TimerKey, TimerEntry> timers = new ConcurrentHashMap<>();
+    private final Lock registrationLock = new ReentrantLock();
+    private volatile MeterRegistry meterRegistry;
+
+    public QueryMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider, QueryMetricsProperties queryMetrics) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.queryMetrics = queryMetrics;
+        this.fingerprints = new ConcurrentLruCache<>(Math.max(queryMetrics.getMaxQueries() * 4, 256), SqlFingerprint::of);
+    }
+
+    /**
+     * Records execution of a query.
+     *
+     * @param dataSourceName name of the data source
+     * @param sql executed SQL
+     * @param elapsedNanos execution time in nanoseconds
+     */
+    public void record(String dataSourceName, String sql, long elapsedNanos) {
+        if (sql == null) {
+            return;
+        }
+        MeterRegistry meterRegistry = getMeterRegistry();
+        if (meterRegistry == null) {
+            return;
+        }
+        TimerKey key = new TimerKey(dataSourceName, fingerprints.get(sql));
+        TimerEntry entry = timers.get(key);
+        if (entry == null) {
+            entry = register(meterRegistry, key);
+        }
+        entry.lastUsed = System.nanoTime();
+        entry.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns number of queries that currently have timers.
+     *
+     * @return number of timers
+     */
+    public int getTimerCount() {
+        return timers.size();
+    }
+
+    private TimerEntry register(MeterRegistry meterRegistry, TimerKey key) {
+        registrationLock.lock();
+        try {
+            TimerEntry entry = timers.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            if (timers.size() >= queryMetrics.getMaxQueries()) {
+                evictLeastRecentlyUsed(meterRegistry);
+            }
+            Timer timer = Timer.builder(METRIC_NAME)
+                    .description("Execution time of JDBC queries")
+                    .tag("datasource", key.dataSourceName())
+                    .tag("query", key.fingerprint())
+                    .publishPercentileHistogram(queryMetrics.isPercentileHistogram())
+                    .register(meterRegistry);
+            entry = new TimerEntry(timer);
+            timers.put(key, entry);
+            return entry;
+        }
+        finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(MeterRegistry meterRegistry) {
+        Map.Entry<TimerKey, TimerEntry> leastRecentlyUsed = null;
+        for (Map.Entry<TimerKey, TimerEntry> entry : timers.entrySet()) {
+            if (leastRecentlyUsed == null || entry.getValue().lastUsed - leastRecentlyUsed.getValue().lastUsed < 0) {
+                leastRecentlyUsed = entry;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            timers.remove(leastRecentlyUsed.getKey());
+            meterRegistry.remove(leastRecentlyUsed.getValue().timer);
+        }
+    }
+
+    private MeterRegistry getMeterRegistry() {
+        MeterRegistry meterRegistry = this.meterRegistry;
+        if (meterRegistry == null) {
+            // resolved lazily as data sources are decorated before meter registry is available
+            meterRegistry = meterRegistryProvider.getIfAvailable();
+            this.meterRegistry = meterRegistry;
+        }
+        return meterRegistry;
+    }
+
+    private record TimerKey(String dataSourceName, String fingerprint) {
+    }
+
+    private static final class TimerEntry {
+        private final Timer timer;
+        // updated without synchronization, approximate recency is enough for eviction
+        private long lastUsed = System.nanoTime();
+
+        private TimerEntry(Timer timer) {
+            this.timer = timer;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.QueryMetricsQueryExecutionListener;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.QueryMetricsJdbcEventListener;
+import com.p6spy.engine.spy.P6DataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of query metrics, recorded by datasource-proxy listener if available, otherwise by p6spy listener.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(name = "decorator.datasource.query-metrics.enabled", havingValue = "true")
+public class QueryMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryMetrics queryMetrics(ObjectProvider<MeterRegistry> meterRegistry, DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+        return new QueryMetrics(meterRegistry, dataSourceDecoratorProperties.getQueryMetrics());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(ProxyDataSource.class)
+    static class DataSourceProxyQueryMetricsConfiguration {
+
+        @Bean
+        public QueryMetricsQueryExecutionListener queryMetricsQueryExecutionListener(QueryMetrics queryMetrics) {
+            return new QueryMetricsQueryExecutionListener(queryMetrics);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(P6DataSource.class)
+    // avoid recording every query twice
+    @ConditionalOnMissingClass("net.ttddyy.dsproxy.support.ProxyDataSource")
+    static class P6SpyQueryMetricsConfiguration {
+
+        @Bean
+        public QueryMetricsJdbcEventListener queryMetricsJdbcEventListener(QueryMetrics queryMetrics, DataSourceNameResolver dataSourceNameResolver) {
+            return new QueryMetricsJdbcEventListener(queryMetrics, dataSourceNameResolver);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+/**
+ * Properties for configuring query metrics.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryMetricsProperties {
+
+    /**
+     * Enables recording execution time of queries by SQL fingerprint, requires Micrometer.
+     */
+    private boolean enabled = false;
+    /**
+     * Maximum number of distinct queries per all data sources to record, least recently executed query is evicted when exceeded.
+     */
+    private int maxQueries = 200;
+    /**
+     * Publish percentile histogram of query execution time.
+     */
+    private boolean percentileHistogram = true;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getMaxQueries() {
+        return this.maxQueries;
+    }
+
+    public boolean isPercentileHistogram() {
+        return this.percentileHistogram;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxQueries(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    public void setPercentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.springframework.util.ConcurrentLruCache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Aggregates execution statistics of queries per data source and {@link SqlFingerprint fingerprint} of the query
+ * over a sliding {@link QueryStatisticsProperties#getWindow() window}, similar to pg_stat_statements.
+ * <p>
+ * Number of aggregated queries per data source is limited by {@link QueryStatisticsProperties#getMaxQueries()},
+ * when the limit is reached statistics of the least recently executed query are discarded.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryStatistics {
+
+    private final QueryStatisticsProperties queryStatistics;
+    private final LongSupplier nanoClock;
+    private final long sliceNanos;
+    private final ConcurrentLruCache<String, String> fingerprints;
+    private final Map<String, Map<String, StatementStatistics>> dataSources = new ConcurrentHashMap<>();
+    private final Lock registrationLock = new ReentrantLock();
+
+    public QueryStatistics(QueryStatisticsProperties queryStatistics) {
+        this(queryStatistics, System::nanoTime);
+    }
+
+    QueryStatistics(QueryStatisticsProperties queryStatistics, LongSupplier nanoClock) {
+        this.queryStatistics = queryStatistics;
+        this.nanoClock = nanoClock;
+        this.sliceNanos = Math.max(queryStatistics.getWindow().toNanos() / queryStatistics.getWindowSlices(), 1);
+        this.fingerprints = new ConcurrentLruCache<>(Math.max(queryStatistics.getMaxQueries() * 4, 256), SqlFingerprint::of);
+    }
+
+    /**
+     * Records execution of a query.
+     *
+     * @param dataSourceName name of the data source
+     * @param sql executed SQL
+     * @param elapsedNanos execution time in nanoseconds
+     */
+    public void record(String dataSourceName, String sql, long elapsedNanos) {
+        if (dataSourceName == null || sql == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        StatementStatistics statistics = getStatementStatistics(dataSourceName, sql, now);
+        statistics.record(Math.floorDiv(now, sliceNanos), elapsedNanos);
+    }
+
+    /**
+     * Records rows fetched or updated by a query.
+     *
+     * @param dataSourceName name of the data source
+     * @param sql executed SQL
+     * @param rows number of rows
+     */
+    public void recordRows(String dataSourceName, String sql, long rows) {
+        if (dataSourceName == null || sql == null || rows <= 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        StatementStatistics statistics = getStatementStatistics(dataSourceName, sql, now);
+        statistics.recordRows(Math.floorDiv(now, sliceNanos), rows);
+    }
+
+    /**
+     * Returns queries with the highest total execution time within the window per data source.
+     *
+     * @param limit maximum number of queries per data source
+     * @return statistics of queries sorted by total execution time descending, by data source name
+     */
+    public Map<String, List<StatementSummary>> getTopStatements(int limit) {
+        long epoch = Math.floorDiv(nanoClock.getAsLong(), sliceNanos);
+        Map<String, List<StatementSummary>> topStatements = new LinkedHashMap<>();
+        dataSources.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(dataSource -> {
+                    List<StatementSummary> summaries = new ArrayList<>();
+                    for (StatementStatistics statistics : dataSource.getValue().values()) {
+                        StatementSummary summary = statistics.summarize(epoch);
+                        if (summary != null) {
+                            summaries.add(summary);
+                        }
+                    }
+                    summaries.sort(Comparator.comparingLong(StatementSummary::getTotalNanos).reversed());
+                    topStatements.put(dataSource.getKey(), summaries.subList(0, Math.min(limit, summaries.size())));
+                });
+        return topStatements;
+    }
+
+    private StatementStatistics getStatementStatistics(String dataSourceName, String sql, long now) {
+        Map<String, StatementStatistics> statements = dataSources.get(dataSourceName);
+        if (statements == null) {
+            statements = dataSources.computeIfAbsent(dataSourceName, name -> new ConcurrentHashMap<>());
+        }
+        String fingerprint = fingerprints.get(sql);
+        StatementStatistics statistics = statements.get(fingerprint);
+        if (statistics == null) {
+            statistics = register(statements, fingerprint);
+        }
+        statistics.lastUsed = now;
+        return statistics;
+    }
+
+    private StatementStatistics register(Map<String, StatementStatistics> statements, String fingerprint) {
+        registrationLock.lock();
+        try {
+            StatementStatistics statistics = statements.get(fingerprint);
+            if (statistics != null) {
+                return statistics;
+            }
+            if (statements.size() >= queryStatistics.getMaxQueries()) {
+                evictLeastRecentlyUsed(statements);
+            }
+            statistics = new StatementStatistics(fingerprint, queryStatistics.getWindowSlices());
+            statistics.lastUsed = nanoClock.getAsLong();
+            statements.put(fingerprint, statistics);
+            return statistics;
+        }
+        finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(Map<String, StatementStatistics> statements) {
+        StatementStatistics leastRecentlyUsed = null;
+        for (StatementStatistics statistics : statements.values()) {
+            if (leastRecentlyUsed == null || statistics.lastUsed - leastRecentlyUsed.lastUsed < 0) {
+                leastRecentlyUsed = statistics;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            statements.remove(leastRecentlyUsed.getQuery());
+        }
+    }
+}
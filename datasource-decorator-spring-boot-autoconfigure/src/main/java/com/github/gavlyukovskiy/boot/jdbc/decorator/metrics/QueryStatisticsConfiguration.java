@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.QueryStatisticsQueryExecutionListener;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.QueryStatisticsJdbcEventListener;
+import com.p6spy.engine.spy.P6DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of query statistics, recorded by datasource-proxy listener if available, otherwise by p6spy listener.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "decorator.datasource.query-statistics.enabled", havingValue = "true")
+public class QueryStatisticsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public QueryStatistics queryStatistics(DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+        return new QueryStatistics(dataSourceDecoratorProperties.getQueryStatistics());
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Endpoint.class)
+    static class QueryStatisticsEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public QueryStatisticsEndpoint queryStatisticsEndpoint(QueryStatistics queryStatistics, DataSourceDecoratorProperties dataSourceDecoratorProperties) {
+            return new QueryStatisticsEndpoint(queryStatistics, dataSourceDecoratorProperties.getQueryStatistics());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(ProxyDataSource.class)
+    static class DataSourceProxyQueryStatisticsConfiguration {
+
+        @Bean
+        public QueryStatisticsQueryExecutionListener queryStatisticsQueryExecutionListener(QueryStatistics queryStatistics) {
+            return new QueryStatisticsQueryExecutionListener(queryStatistics);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(P6DataSource.class)
+    // avoid recording every query twice
+    @ConditionalOnMissingClass("net.ttddyy.dsproxy.support.ProxyDataSource")
+    static class P6SpyQueryStatisticsConfiguration {
+
+        @Bean
+        public QueryStatisticsJdbcEventListener queryStatisticsJdbcEventListener(QueryStatistics queryStatistics, DataSourceNameResolver dataSourceNameResolver) {
+            return new QueryStatisticsJdbcEventListener(queryStatistics, dataSourceNameResolver);
+        }
+    }
+}
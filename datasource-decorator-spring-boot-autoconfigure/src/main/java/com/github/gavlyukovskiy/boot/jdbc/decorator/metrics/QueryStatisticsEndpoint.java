@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.springframework.boot.actuate.endpoint.OperationResponseBody;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Endpoint @Endpoint} to expose queries with the highest total execution time per data source.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Endpoint(id = "datasourcequeries")
+public class QueryStatisticsEndpoint {
+
+    private final QueryStatistics queryStatistics;
+    private final QueryStatisticsProperties queryStatisticsProperties;
+
+    public QueryStatisticsEndpoint(QueryStatistics queryStatistics, QueryStatisticsProperties queryStatisticsProperties) {
+        this.queryStatistics = queryStatistics;
+        this.queryStatisticsProperties = queryStatisticsProperties;
+    }
+
+    @ReadOperation
+    public DataSourceQueriesDescriptor queries() {
+        return new DataSourceQueriesDescriptor(queryStatisticsProperties.getWindow().toMillis(),
+                queryStatistics.getTopStatements(queryStatisticsProperties.getTop()));
+    }
+
+    /**
+     * Description of queries executed within the window.
+     */
+    public static final class DataSourceQueriesDescriptor implements OperationResponseBody {
+
+        private final long windowMillis;
+        private final Map<String, List<StatementSummary>> dataSources;
+
+        private DataSourceQueriesDescriptor(long windowMillis, Map<String, List<StatementSummary>> dataSources) {
+            this.windowMillis = windowMillis;
+            this.dataSources = dataSources;
+        }
+
+        public long getWindowMillis() {
+            return this.windowMillis;
+        }
+
+        public Map<String, List<StatementSummary>> getDataSources() {
+            return this.dataSources;
+        }
+    }
+}
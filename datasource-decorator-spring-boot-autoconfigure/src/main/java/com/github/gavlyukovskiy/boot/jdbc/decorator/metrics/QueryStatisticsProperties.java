@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import java.time.Duration;
+
+/**
+ * Properties for configuring query statistics.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryStatisticsProperties {
+
+    /**
+     * Enables aggregating execution statistics of queries by SQL fingerprint.
+     */
+    private boolean enabled = false;
+    /**
+     * Maximum number of distinct queries per data source to aggregate, least recently executed query is evicted when exceeded.
+     */
+    private int maxQueries = 200;
+    /**
+     * Period of time over which statistics are aggregated.
+     */
+    private Duration window = Duration.ofMinutes(5);
+    /**
+     * Number of slices the window is split into, statistics of the oldest slice are discarded as the window slides.
+     */
+    private int windowSlices = 5;
+    /**
+     * Number of queries with the highest total execution time reported per data source.
+     */
+    private int top = 10;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getMaxQueries() {
+        return this.maxQueries;
+    }
+
+    public Duration getWindow() {
+        return this.window;
+    }
+
+    public int getWindowSlices() {
+        return this.windowSlices;
+    }
+
+    public int getTop() {
+        return this.top;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxQueries(int maxQueries) {
+        this.maxQueries = maxQueries;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public void setWindowSlices(int windowSlices) {
+        this.windowSlices = windowSlices;
+    }
+
+    public void setTop(int top) {
+        this.top = top;
+    }
+}
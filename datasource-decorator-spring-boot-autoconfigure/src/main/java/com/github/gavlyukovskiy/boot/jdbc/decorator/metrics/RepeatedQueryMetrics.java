@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.RepeatedQueryHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * {@link RepeatedQueryHandler} that counts scopes in which a query exceeded repeated query threshold.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class RepeatedQueryMetrics implements RepeatedQueryHandler {
+
+    public static final String METRIC_NAME = "jdbc.repeated.queries";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public RepeatedQueryMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public void onRepeatedQuery(String dataSourceName, String query, int count) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        // query is not used as a tag to keep the number of counters bounded, it is logged instead
+        Counter.builder(METRIC_NAME)
+                .description("Number of times a query exceeded repeated query threshold within a single scope")
+                .tag("datasource", String.valueOf(dataSourceName))
+                .register(meterRegistry)
+                .increment();
+    }
+}
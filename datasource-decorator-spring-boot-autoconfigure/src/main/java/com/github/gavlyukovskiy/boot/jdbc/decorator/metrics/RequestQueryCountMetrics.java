@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.QueryCountReporter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import net.ttddyy.dsproxy.QueryCount;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryCountReporter} that records number of queries executed by each request and time spent executing them.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class RequestQueryCountMetrics implements QueryCountReporter {
+
+    public static final String QUERIES_METRIC_NAME = "jdbc.request.queries";
+    public static final String QUERY_TIME_METRIC_NAME = "jdbc.request.query.time";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private volatile Meters meters;
+
+    public RequestQueryCountMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public void report(HttpServletRequest request, QueryCount queryCount) {
+        Meters meters = getMeters();
+        if (meters == null) {
+            return;
+        }
+        meters.select.record(queryCount.getSelect());
+        meters.insert.record(queryCount.getInsert());
+        meters.update.record(queryCount.getUpdate());
+        meters.delete.record(queryCount.getDelete());
+        meters.other.record(queryCount.getOther());
+        meters.time.record(queryCount.getTime(), TimeUnit.MILLISECONDS);
+    }
+
+    private Meters getMeters() {
+        Meters meters = this.meters;
+        if (meters == null) {
+            // resolved lazily as meter registry may not be available when filter is created
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return null;
+            }
+            meters = new Meters(meterRegistry);
+            this.meters = meters;
+        }
+        return meters;
+    }
+
+    private static final class Meters {
+        private final DistributionSummary select;
+        private final DistributionSummary insert;
+        private final DistributionSummary update;
+        private final DistributionSummary delete;
+        private final DistributionSummary other;
+        private final Timer time;
+
+        private Meters(MeterRegistry meterRegistry) {
+            this.select = queries(meterRegistry, "select");
+            this.insert = queries(meterRegistry, "insert");
+            this.update = queries(meterRegistry, "update");
+            this.delete = queries(meterRegistry, "delete");
+            this.other = queries(meterRegistry, "other");
+            this.time = Timer.builder(QUERY_TIME_METRIC_NAME)
+                    .description("Time spent executing queries per request")
+                    .register(meterRegistry);
+        }
+
+        private static DistributionSummary queries(MeterRegistry meterRegistry, String type) {
+            return DistributionSummary.builder(QUERIES_METRIC_NAME)
+                    .description("Number of queries executed per request")
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+    }
+}
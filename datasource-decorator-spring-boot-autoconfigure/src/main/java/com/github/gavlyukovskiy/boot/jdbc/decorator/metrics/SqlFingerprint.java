@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL into a fingerprint that is the same for all executions of the same statement:
+ * literals are replaced with '?', IN lists and multi-row VALUES are collapsed, comments are removed
+ * and whitespace is collapsed.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN ?\\(\\?(?: ?, ?\\?)+ ?\\)");
+    private static final Pattern VALUES_ROWS = Pattern.compile("(\\(\\?(?: ?, ?\\?)* ?\\))(?: ?, ?\\(\\?(?: ?, ?\\?)* ?\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Returns fingerprint of the given SQL.
+     *
+     * @param sql SQL statement
+     * @return normalized SQL
+     */
+    public static String of(String sql) {
+        StringBuilder fingerprint = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // string literal, quotes are escaped by doubling them
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                fingerprint.append('?');
+            }
+            else if (c == '"' || c == '`') {
+                // quoted identifier is copied as is
+                int end = sql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                fingerprint.append(sql, i, end);
+                i = end;
+            }
+            else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            }
+            else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            }
+            else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (!fingerprint.isEmpty() && fingerprint.charAt(fingerprint.length() - 1) != ' ') {
+                    fingerprint.append(' ');
+                }
+            }
+            else if (Character.isDigit(c) && !endsWithIdentifier(fingerprint)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                fingerprint.append('?');
+            }
+            else {
+                fingerprint.append(c);
+                i++;
+            }
+        }
+        int end = fingerprint.length();
+        while (end > 0 && (fingerprint.charAt(end - 1) == ' ' || fingerprint.charAt(end - 1) == ';')) {
+            end--;
+        }
+        fingerprint.setLength(end);
+        String normalized = IN_LIST.matcher(fingerprint).replaceAll("IN (?)");
+        return VALUES_ROWS.matcher(normalized).replaceAll("$1");
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder fingerprint) {
+        if (fingerprint.isEmpty()) {
+            return false;
+        }
+        char last = fingerprint.charAt(fingerprint.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of a single query over a sliding window, the window is split into slices that are reused
+ * in a ring as time passes, so that recording doesn't allocate. Recording is lock-free, slice is reset by the thread
+ * that moved it to the new epoch, so executions recorded concurrently with the reset may be lost.
+ * <p>
+ * Execution time is recorded into a log-linear histogram with 4 sub-buckets per power of two of microseconds,
+ * percentiles are reported as upper bound of the bucket (up to 25% above the actual value).
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class StatementStatistics {
+
+    private static final int SUB_BUCKETS = 4;
+    // covers up to 2^32 microseconds (~71 minutes), slower queries are recorded in the last bucket
+    static final int BUCKETS = 31 * SUB_BUCKETS;
+
+    private final String query;
+    private final Slice[] slices;
+    // updated without synchronization, approximate recency is enough for eviction
+    volatile long lastUsed;
+
+    StatementStatistics(String query, int windowSlices) {
+        this.query = query;
+        this.slices = new Slice[windowSlices];
+        for (int i = 0; i < windowSlices; i++) {
+            this.slices[i] = new Slice();
+        }
+    }
+
+    String getQuery() {
+        return this.query;
+    }
+
+    void record(long epoch, long elapsedNanos) {
+        Slice slice = slice(epoch);
+        slice.calls.increment();
+        slice.totalNanos.add(elapsedNanos);
+        slice.histogram.incrementAndGet(bucket(elapsedNanos / 1000));
+    }
+
+    void recordRows(long epoch, long rows) {
+        slice(epoch).rows.add(rows);
+    }
+
+    /**
+     * Sums statistics of all slices that belong to the window ending at given epoch.
+     *
+     * @return summary or {@code null} if query wasn't executed within the window
+     */
+    StatementSummary summarize(long epoch) {
+        long calls = 0;
+        long totalNanos = 0;
+        long rows = 0;
+        long[] histogram = new long[BUCKETS];
+        for (Slice slice : slices) {
+            long sliceEpoch = slice.epoch.get();
+            if (sliceEpoch > epoch || sliceEpoch <= epoch - slices.length) {
+                continue;
+            }
+            calls += slice.calls.sum();
+            totalNanos += slice.totalNanos.sum();
+            rows += slice.rows.sum();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] += slice.histogram.get(i);
+            }
+        }
+        if (calls == 0) {
+            return null;
+        }
+        return new StatementSummary(query, calls, totalNanos, percentile(histogram, 0.99), rows);
+    }
+
+    private Slice slice(long epoch) {
+        Slice slice = slices[(int) Math.floorMod(epoch, (long) slices.length)];
+        // slice is reset only when moving forward, late writes from the previous epoch are added to the current one
+        long sliceEpoch = slice.epoch.get();
+        while (sliceEpoch < epoch) {
+            if (slice.epoch.compareAndSet(sliceEpoch, epoch)) {
+                slice.reset();
+                break;
+            }
+            sliceEpoch = slice.epoch.get();
+        }
+        return slice;
+    }
+
+    private static long percentile(long[] histogram, double percentile) {
+        long count = 0;
+        for (long bucketCount : histogram) {
+            count += bucketCount;
+        }
+        long threshold = (long) Math.ceil(count * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= threshold && cumulative > 0) {
+                return bucketUpperBound(i) * 1000;
+            }
+        }
+        return 0;
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int index = (msb - 1) * SUB_BUCKETS + (int) ((micros >>> (msb - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int msb = bucket / SUB_BUCKETS + 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (msb - 2)) - 1;
+    }
+
+    private static final class Slice {
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private void reset() {
+            calls.reset();
+            totalNanos.reset();
+            rows.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution statistics of a query within {@link QueryStatisticsProperties#getWindow() window}, times are in milliseconds.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public final class StatementSummary {
+
+    private final String query;
+    private final long calls;
+    private final long totalNanos;
+    private final long p99Nanos;
+    private final long rows;
+
+    StatementSummary(String query, long calls, long totalNanos, long p99Nanos, long rows) {
+        this.query = query;
+        this.calls = calls;
+        this.totalNanos = totalNanos;
+        this.p99Nanos = p99Nanos;
+        this.rows = rows;
+    }
+
+    /**
+     * Returns fingerprint of the query.
+     *
+     * @return normalized SQL
+     */
+    public String getQuery() {
+        return this.query;
+    }
+
+    public long getCalls() {
+        return this.calls;
+    }
+
+    public double getTotalTime() {
+        return toMillis(this.totalNanos);
+    }
+
+    public double getMeanTime() {
+        return toMillis(this.totalNanos) / this.calls;
+    }
+
+    /**
+     * Returns approximate 99th percentile of execution time, rounded up to the histogram bucket.
+     *
+     * @return 99th percentile in milliseconds
+     */
+    public double getP99Time() {
+        return toMillis(this.p99Nanos);
+    }
+
+    /**
+     * Returns number of rows fetched and rows affected by updates.
+     *
+     * @return number of rows
+     */
+    public long getRows() {
+        return this.rows;
+    }
+
+    long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    long getP99Nanos() {
+        return this.p99Nanos;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
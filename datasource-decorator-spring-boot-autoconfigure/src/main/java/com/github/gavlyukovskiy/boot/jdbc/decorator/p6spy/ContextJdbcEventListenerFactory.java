@@ -18,10 +18,12 @@ package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 
 import com.p6spy.engine.event.CompoundJdbcEventListener;
 import com.p6spy.engine.event.JdbcEventListener;
+import com.p6spy.engine.logging.LoggingEventListener;
 import com.p6spy.engine.spy.JdbcEventListenerFactory;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 /**
  * Factory to support all defined {@link JdbcEventListener} in the context.
@@ -34,16 +36,28 @@ public class ContextJdbcEventListenerFactory implements JdbcEventListenerFactory
     private final CompoundJdbcEventListener compoundJdbcEventListener;
 
     ContextJdbcEventListenerFactory(JdbcEventListenerFactory delegate, List<JdbcEventListener> listeners) {
+        this(delegate, listeners, UnaryOperator.identity());
+    }
+
+    /**
+     * @param loggingEventListener replaces P6Spy {@link LoggingEventListener}, returns {@code null} to exclude it
+     */
+    ContextJdbcEventListenerFactory(JdbcEventListenerFactory delegate, List<JdbcEventListener> listeners,
+                                    UnaryOperator<JdbcEventListener> loggingEventListener) {
         Assert.notNull(delegate, "JdbcEventListenerFactory should not be null");
-        Assert.notEmpty(listeners, "Listeners should not be empty");
+        Assert.notNull(listeners, "Listeners should not be null");
 
         JdbcEventListener jdbcEventListener = delegate.createJdbcEventListener();
-        if (jdbcEventListener instanceof CompoundJdbcEventListener) {
-            compoundJdbcEventListener = (CompoundJdbcEventListener) jdbcEventListener;
-        }
-        else {
-            compoundJdbcEventListener = new CompoundJdbcEventListener();
-            compoundJdbcEventListener.addListener(jdbcEventListener);
+        List<JdbcEventListener> delegateListeners = jdbcEventListener instanceof CompoundJdbcEventListener
+                ? ((CompoundJdbcEventListener) jdbcEventListener).getEventListeners()
+                : List.of(jdbcEventListener);
+        // listener of the delegate may be shared between contexts, so it's copied rather than modified
+        compoundJdbcEventListener = new CompoundJdbcEventListener();
+        for (JdbcEventListener listener : delegateListeners) {
+            JdbcEventListener replacement = listener instanceof LoggingEventListener ? loggingEventListener.apply(listener) : listener;
+            if (replacement != null) {
+                compoundJdbcEventListener.addListener(replacement);
+            }
         }
         listeners.forEach(compoundJdbcEventListener::addListener);
     }
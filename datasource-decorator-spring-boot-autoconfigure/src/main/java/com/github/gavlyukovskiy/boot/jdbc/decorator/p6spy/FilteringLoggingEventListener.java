@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy.P6SpyProperties.P6SpyLogFilter;
+import com.p6spy.engine.common.Loggable;
+import com.p6spy.engine.logging.Category;
+import com.p6spy.engine.logging.LoggingEventListener;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * {@link LoggingEventListener} that skips events before P6Spy builds the log message, so that SQL with parameter values
+ * is never materialized for queries that are not logged.
+ * <p>
+ * Events are filtered by execution time, excluded categories, data source name and regex pattern matched against SQL
+ * without parameter values, cheapest checks go first.
+ *
+ * @author Arthur Gavlyukovskiy
+ * @see P6SpyLogFilter
+ */
+public class FilteringLoggingEventListener extends LoggingEventListener {
+
+    private final DataSourceNameResolver dataSourceNameResolver;
+    private final long minExecutionTimeNanos;
+    private final Set<String> excludedCategories;
+    private final Set<String> dataSources;
+    private final Pattern sqlPattern;
+
+    public FilteringLoggingEventListener(P6SpyProperties p6spy, DataSourceNameResolver dataSourceNameResolver) {
+        P6SpyLogFilter logFilter = p6spy.getLogFilter();
+        this.dataSourceNameResolver = dataSourceNameResolver;
+        this.minExecutionTimeNanos = logFilter.getMinExecutionTime() != null ? logFilter.getMinExecutionTime().toNanos() : 0;
+        this.excludedCategories = new HashSet<>(p6spy.getExcludeCategories());
+        this.dataSources = new HashSet<>(logFilter.getDataSources());
+        this.sqlPattern = logFilter.getSqlPattern();
+    }
+
+    /**
+     * Whether any of pre-filters is configured.
+     *
+     * @param p6spy p6spy properties
+     * @return {@code true} if events need to be filtered before logging
+     */
+    public static boolean isFilteringEnabled(P6SpyProperties p6spy) {
+        P6SpyLogFilter logFilter = p6spy.getLogFilter();
+        return logFilter.getSqlPattern() != null
+                || !logFilter.getDataSources().isEmpty()
+                || logFilter.getMinExecutionTime() != null
+                || !p6spy.getExcludeCategories().isEmpty();
+    }
+
+    @Override
+    protected void logElapsed(Loggable loggable, long timeElapsedNanos, Category category, SQLException e) {
+        if (isLoggable(loggable, timeElapsedNanos, category)) {
+            super.logElapsed(loggable, timeElapsedNanos, category, e);
+        }
+    }
+
+    private boolean isLoggable(Loggable loggable, long timeElapsedNanos, Category category) {
+        if (timeElapsedNanos < minExecutionTimeNanos) {
+            return false;
+        }
+        if (!excludedCategories.isEmpty() && excludedCategories.contains(category.getName())) {
+            return false;
+        }
+        if (!dataSources.isEmpty()) {
+            String dataSourceName = dataSourceNameResolver.resolveDataSourceName(loggable.getConnectionInformation().getDataSource());
+            if (!dataSources.contains(dataSourceName)) {
+                return false;
+            }
+        }
+        if (sqlPattern != null) {
+            String sql = loggable.getSql();
+            return sql != null && sqlPattern.matcher(sql).matches();
+        }
+        return true;
+    }
+}
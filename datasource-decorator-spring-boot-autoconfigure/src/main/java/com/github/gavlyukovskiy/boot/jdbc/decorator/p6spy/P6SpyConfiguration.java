@@ -17,13 +17,16 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceSampler;
+import com.p6spy.engine.common.P6LogQuery;
 import com.p6spy.engine.event.JdbcEventListener;
-import com.p6spy.engine.logging.P6LogFactory;
+import com.p6spy.engine.logging.P6LogOptions;
 import com.p6spy.engine.spy.DefaultJdbcEventListenerFactory;
 import com.p6spy.engine.spy.JdbcEventListenerFactory;
 import com.p6spy.engine.spy.P6DataSource;
 import com.p6spy.engine.spy.P6ModuleManager;
-import com.p6spy.engine.spy.P6SpyFactory;
+import com.p6spy.engine.spy.P6SpyOptions;
 import com.p6spy.engine.spy.option.EnvironmentVariables;
 import com.p6spy.engine.spy.option.P6OptionsSource;
 import com.p6spy.engine.spy.option.SpyDotProperties;
@@ -31,16 +34,18 @@ import com.p6spy.engine.spy.option.SystemProperties;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -66,77 +71,51 @@ public class P6SpyConfiguration implements InitializingBean, DisposableBean {
 
     private Map<String, String> initialP6SpyOptions;
 
+    private P6SpyPropertiesOptions propertiesOptions;
+
     @Override
     public void afterPropertiesSet() {
         P6SpyProperties p6spy = dataSourceDecoratorProperties.getP6spy();
         initialP6SpyOptions = findDefinedOptions();
-        String customModuleList = initialP6SpyOptions.get("modulelist");
-        if (customModuleList != null) {
+        if (initialP6SpyOptions.containsKey("modulelist")) {
             log.info("P6Spy modulelist is overridden, some p6spy configuration features will not be applied");
         }
-        else {
-            List<String> moduleList = new ArrayList<>();
-            // default factory, holds P6Spy configuration
-            moduleList.add(P6SpyFactory.class.getName());
-            if (p6spy.isEnableLogging()) {
-                moduleList.add(P6LogFactory.class.getName());
-            }
-            System.setProperty("p6spy.config.modulelist", String.join(",", moduleList));
-        }
-        if (!initialP6SpyOptions.containsKey("logMessageFormat")) {
-            if (p6spy.getLogFormat() != null) {
-                System.setProperty("p6spy.config.logMessageFormat", "com.p6spy.engine.spy.appender.CustomLineFormat");
-                System.setProperty("p6spy.config.customLogMessageFormat", p6spy.getLogFormat());
-            }
-            else if (p6spy.isMultiline()) {
-                System.setProperty("p6spy.config.logMessageFormat", "com.p6spy.engine.spy.appender.MultiLineFormat");
-            }
-        }
-        if (p6spy.isEnableLogging() && !initialP6SpyOptions.containsKey("appender")) {
-            switch (p6spy.getLogging()) {
-                case SYSOUT -> System.setProperty("p6spy.config.appender", "com.p6spy.engine.spy.appender.StdoutLogger");
-                case SLF4J -> System.setProperty("p6spy.config.appender", "com.p6spy.engine.spy.appender.Slf4JLogger");
-                case FILE -> System.setProperty("p6spy.config.appender", "com.p6spy.engine.spy.appender.FileLogger");
-                case CUSTOM -> System.setProperty("p6spy.config.appender", p6spy.getCustomAppenderClass());
-            }
-        }
-        if (!initialP6SpyOptions.containsKey("logfile")) {
-            System.setProperty("p6spy.config.logfile", p6spy.getLogFile());
-        }
-        if (!p6spy.getExcludeCategories().isEmpty()) {
-            System.setProperty("p6spy.config.excludecategories", String.join(",", p6spy.getExcludeCategories()));
-        }
-        if (p6spy.getLogFilter().getPattern() != null) {
-            System.setProperty("p6spy.config.filter", "true");
-            System.setProperty("p6spy.config.sqlexpression", p6spy.getLogFilter().getPattern().pattern());
-        }
-        // If factories were loaded before this method is initialized changing properties will not be applied
-        // Changes done in this method could not override anything user specified, therefore it is safe to call reload
-        P6ModuleManager.getInstance().reload();
+        propertiesOptions = new P6SpyPropertiesOptions(p6spy, initialP6SpyOptions.keySet());
+        Map<String, String> options = new HashMap<>(initialP6SpyOptions);
+        options.putAll(propertiesOptions.getOptions());
+        // Options are loaded into already initialized modules instead of reloading all modules from system properties,
+        // user defined options are loaded too in case they were defined after modules were initialized
+        loadOptions(options);
     }
 
     @Override
     public void destroy() {
-        P6SpyProperties p6spy = dataSourceDecoratorProperties.getP6spy();
-        if (!initialP6SpyOptions.containsKey("modulelist")) {
-            System.clearProperty("p6spy.config.modulelist");
+        P6ModuleManager moduleManager = P6ModuleManager.getInstance();
+        Map<String, String> defaults = new HashMap<>(moduleManager.getOptions(P6SpyOptions.class).getDefaults());
+        P6LogOptions logOptions = moduleManager.getOptions(P6LogOptions.class);
+        if (logOptions != null) {
+            defaults.putAll(logOptions.getDefaults());
         }
-        if (!initialP6SpyOptions.containsKey("logMessageFormat")) {
-            if (p6spy.getLogFormat() != null) {
-                System.clearProperty("p6spy.config.logMessageFormat");
-                System.clearProperty("p6spy.config.customLogMessageFormat");
-            }
-            else if (p6spy.isMultiline()) {
-                System.clearProperty("p6spy.config.logMessageFormat");
+        // user defined options are loaded again, so that they are kept even if p6spy resets options missing in the map
+        Map<String, String> options = new HashMap<>(initialP6SpyOptions);
+        for (String option : propertiesOptions.getOptions().keySet()) {
+            String value = defaults.get(option);
+            if (value != null) {
+                options.putIfAbsent(option, value);
             }
         }
-        if (!initialP6SpyOptions.containsKey("appender")) {
-            System.clearProperty("p6spy.config.appender");
-        }
-        if (!initialP6SpyOptions.containsKey("logfile")) {
-            System.clearProperty("p6spy.config.logfile");
+        loadOptions(options);
+    }
+
+    private static void loadOptions(Map<String, String> options) {
+        P6ModuleManager moduleManager = P6ModuleManager.getInstance();
+        moduleManager.getOptions(P6SpyOptions.class).load(options);
+        P6LogOptions logOptions = moduleManager.getOptions(P6LogOptions.class);
+        if (logOptions != null) {
+            logOptions.load(options);
         }
-        P6ModuleManager.getInstance().reload();
+        // appender and its message format are resolved only on initialization
+        P6LogQuery.initialize();
     }
 
     private Map<String, String> findDefinedOptions() {
@@ -152,19 +131,36 @@ public class P6SpyConfiguration implements InitializingBean, DisposableBean {
                 .filter(Objects::nonNull)
                 .flatMap(options -> options.entrySet().stream())
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                        // always using value from the first P6OptionsSource
-                        (value1, value2) -> value1));
+                        // same precedence as in P6ModuleManager, system properties override everything
+                        (value1, value2) -> value2));
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public JdbcEventListenerFactory jdbcEventListenerFactory() {
+    public JdbcEventListenerFactory jdbcEventListenerFactory(DataSourceNameResolver dataSourceNameResolver) {
         JdbcEventListenerFactory jdbcEventListenerFactory = new DefaultJdbcEventListenerFactory();
-        return listeners != null ? new ContextJdbcEventListenerFactory(jdbcEventListenerFactory, listeners) : jdbcEventListenerFactory;
+        P6SpyProperties p6spy = dataSourceDecoratorProperties.getP6spy();
+        UnaryOperator<JdbcEventListener> loggingEventListener;
+        // logging module is always loaded by P6Spy unless modulelist is overridden, its listener is excluded instead
+        if (!p6spy.isEnableLogging() && !initialP6SpyOptions.containsKey("modulelist")) {
+            loggingEventListener = listener -> null;
+        }
+        else if (FilteringLoggingEventListener.isFilteringEnabled(p6spy)) {
+            FilteringLoggingEventListener filteringLoggingEventListener = new FilteringLoggingEventListener(p6spy, dataSourceNameResolver);
+            loggingEventListener = listener -> filteringLoggingEventListener;
+        }
+        else if (listeners == null) {
+            return jdbcEventListenerFactory;
+        }
+        else {
+            loggingEventListener = UnaryOperator.identity();
+        }
+        return new ContextJdbcEventListenerFactory(jdbcEventListenerFactory, listeners != null ? listeners : List.of(), loggingEventListener);
     }
 
     @Bean
-    public P6SpyDataSourceDecorator p6SpyDataSourceDecorator(JdbcEventListenerFactory jdbcEventListenerFactory) {
-        return new P6SpyDataSourceDecorator(jdbcEventListenerFactory);
+    public P6SpyDataSourceDecorator p6SpyDataSourceDecorator(JdbcEventListenerFactory jdbcEventListenerFactory,
+                                                             ObjectProvider<DataSourceSampler> dataSourceSampler) {
+        return new P6SpyDataSourceDecorator(dataSourceDecoratorProperties, jdbcEventListenerFactory, dataSourceSampler.getIfAvailable());
     }
 }
@@ -17,32 +17,62 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorBeanProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceSampler;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.SamplingDataSource;
 import com.p6spy.engine.spy.JdbcEventListenerFactory;
 import com.p6spy.engine.spy.P6DataSource;
 import org.springframework.core.Ordered;
 
 import javax.sql.DataSource;
+import java.util.List;
 
 /**
  * {@link Ordered} decorator for {@link P6DataSource}.
+ * <p>
+ * Data sources with logging disabled in {@code decorator.datasource.beans.<bean name>.p6spy.enable-logging}
+ * use factory without {@link com.p6spy.engine.logging.LoggingEventListener}, so log messages are never built for them.
  *
  * @author Arthur Gavlyukovskiy
  */
 public class P6SpyDataSourceDecorator implements DataSourceDecorator, Ordered {
 
+    private final DataSourceDecoratorProperties dataSourceDecoratorProperties;
     private final JdbcEventListenerFactory jdbcEventListenerFactory;
+    private final DataSourceSampler dataSourceSampler;
+    private volatile JdbcEventListenerFactory nonLoggingJdbcEventListenerFactory;
 
-    P6SpyDataSourceDecorator(JdbcEventListenerFactory jdbcEventListenerFactory) {
+    P6SpyDataSourceDecorator(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                             JdbcEventListenerFactory jdbcEventListenerFactory, DataSourceSampler dataSourceSampler) {
+        this.dataSourceDecoratorProperties = dataSourceDecoratorProperties;
         this.jdbcEventListenerFactory = jdbcEventListenerFactory;
+        this.dataSourceSampler = dataSourceSampler;
     }
 
     @Override
     public DataSource decorate(String beanName, DataSource dataSource) {
+        DataSourceDecoratorBeanProperties.P6Spy p6spy = dataSourceDecoratorProperties.getBeanProperties(beanName).getP6spy();
+        if (Boolean.FALSE.equals(p6spy.getEnabled())) {
+            return dataSource;
+        }
         P6DataSource p6DataSource = new P6DataSource(dataSource);
-        p6DataSource.setJdbcEventListenerFactory(jdbcEventListenerFactory);
+        p6DataSource.setJdbcEventListenerFactory(Boolean.FALSE.equals(p6spy.getEnableLogging())
+                ? getNonLoggingJdbcEventListenerFactory()
+                : jdbcEventListenerFactory);
+        if (dataSourceSampler != null) {
+            return new SamplingDataSource(beanName, p6DataSource, dataSource, dataSourceSampler);
+        }
         return p6DataSource;
     }
 
+    private JdbcEventListenerFactory getNonLoggingJdbcEventListenerFactory() {
+        if (nonLoggingJdbcEventListenerFactory == null) {
+            nonLoggingJdbcEventListenerFactory = new ContextJdbcEventListenerFactory(jdbcEventListenerFactory, List.of(), listener -> null);
+        }
+        return nonLoggingJdbcEventListenerFactory;
+    }
+
     @Override
     public int getOrder() {
         return 30;
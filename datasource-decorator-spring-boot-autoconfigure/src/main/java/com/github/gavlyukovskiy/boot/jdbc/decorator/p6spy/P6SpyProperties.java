@@ -16,6 +16,7 @@
 
 package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -146,13 +147,50 @@ public class P6SpyProperties {
          * Use regex pattern to filter log messages. Only matched messages will be logged.
          */
         private Pattern pattern;
+        /**
+         * Use regex pattern to filter queries before log message is built, matched against SQL without parameter values.
+         * Only matched queries will be logged.
+         */
+        private Pattern sqlPattern;
+        /**
+         * Names of data sources which queries will be logged, all data sources if empty.
+         */
+        private List<String> dataSources = new ArrayList<>();
+        /**
+         * Only queries executed for at least this time will be logged.
+         */
+        private Duration minExecutionTime;
 
         public Pattern getPattern() {
             return this.pattern;
         }
 
+        public Pattern getSqlPattern() {
+            return this.sqlPattern;
+        }
+
+        public List<String> getDataSources() {
+            return this.dataSources;
+        }
+
+        public Duration getMinExecutionTime() {
+            return this.minExecutionTime;
+        }
+
         public void setPattern(Pattern pattern) {
             this.pattern = pattern;
         }
+
+        public void setSqlPattern(Pattern sqlPattern) {
+            this.sqlPattern = sqlPattern;
+        }
+
+        public void setDataSources(List<String> dataSources) {
+            this.dataSources = dataSources;
+        }
+
+        public void setMinExecutionTime(Duration minExecutionTime) {
+            this.minExecutionTime = minExecutionTime;
+        }
     }
 }
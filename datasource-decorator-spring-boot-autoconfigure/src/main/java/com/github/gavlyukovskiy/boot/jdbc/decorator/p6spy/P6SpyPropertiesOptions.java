@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * P6Spy options derived from {@link P6SpyProperties} that are loaded into P6Spy modules by {@link P6SpyConfiguration}.
+ * <p>
+ * Options explicitly defined by the user (in spy.properties, environment variables or system properties) are not included,
+ * so that they always take precedence.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class P6SpyPropertiesOptions {
+
+    private final Map<String, String> options;
+
+    P6SpyPropertiesOptions(P6SpyProperties p6spy, Set<String> definedOptions) {
+        Map<String, String> options = new HashMap<>();
+        if (!definedOptions.contains("logMessageFormat")) {
+            if (p6spy.getLogFormat() != null) {
+                options.put("logMessageFormat", "com.p6spy.engine.spy.appender.CustomLineFormat");
+                options.put("customLogMessageFormat", p6spy.getLogFormat());
+            }
+            else if (p6spy.isMultiline()) {
+                options.put("logMessageFormat", "com.p6spy.engine.spy.appender.MultiLineFormat");
+            }
+        }
+        if (p6spy.isEnableLogging() && !definedOptions.contains("appender")) {
+            switch (p6spy.getLogging()) {
+                case SYSOUT -> options.put("appender", "com.p6spy.engine.spy.appender.StdoutLogger");
+                case SLF4J -> options.put("appender", "com.p6spy.engine.spy.appender.Slf4JLogger");
+                case FILE -> options.put("appender", "com.p6spy.engine.spy.appender.FileLogger");
+                case CUSTOM -> options.put("appender", p6spy.getCustomAppenderClass());
+            }
+        }
+        if (!definedOptions.contains("logfile")) {
+            options.put("logfile", p6spy.getLogFile());
+        }
+        if (!p6spy.getExcludeCategories().isEmpty()) {
+            options.put("excludecategories", String.join(",", p6spy.getExcludeCategories()));
+        }
+        if (p6spy.getLogFilter().getPattern() != null) {
+            options.put("filter", "true");
+            options.put("sqlexpression", p6spy.getLogFilter().getPattern().pattern());
+        }
+        this.options = Collections.unmodifiableMap(options);
+    }
+
+    Map<String, String> getOptions() {
+        return options;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryMetrics;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+
+/**
+ * {@link com.p6spy.engine.event.JdbcEventListener} that records execution time of queries to {@link QueryMetrics}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryMetricsJdbcEventListener extends SimpleJdbcEventListener {
+
+    private final QueryMetrics queryMetrics;
+    private final DataSourceNameResolver dataSourceNameResolver;
+
+    public QueryMetricsJdbcEventListener(QueryMetrics queryMetrics, DataSourceNameResolver dataSourceNameResolver) {
+        this.queryMetrics = queryMetrics;
+        this.dataSourceNameResolver = dataSourceNameResolver;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String dataSourceName = dataSourceNameResolver.resolveDataSourceName(statementInformation.getConnectionInformation().getDataSource());
+        queryMetrics.record(dataSourceName, statementInformation.getSql(), timeElapsedNanos);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceNameResolver;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryStatistics;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+
+/**
+ * {@link com.p6spy.engine.event.JdbcEventListener} that records execution time, fetched and updated rows
+ * of queries to {@link QueryStatistics}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class QueryStatisticsJdbcEventListener extends SimpleJdbcEventListener {
+
+    private final QueryStatistics queryStatistics;
+    private final DataSourceNameResolver dataSourceNameResolver;
+
+    public QueryStatisticsJdbcEventListener(QueryStatistics queryStatistics, DataSourceNameResolver dataSourceNameResolver) {
+        this.queryStatistics = queryStatistics;
+        this.dataSourceNameResolver = dataSourceNameResolver;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String dataSourceName = dataSourceNameResolver.resolveDataSourceName(statementInformation.getConnectionInformation().getDataSource());
+        queryStatistics.record(dataSourceName, statementInformation.getSql(), timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, sql, rowCount, e);
+        String dataSourceName = dataSourceNameResolver.resolveDataSourceName(statementInformation.getConnectionInformation().getDataSource());
+        queryStatistics.recordRows(dataSourceName, statementInformation.getSql(), rowCount);
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        // current row is zero-based and starts at -1 before the first call to next()
+        String dataSourceName = dataSourceNameResolver.resolveDataSourceName(resultSetInformation.getConnectionInformation().getDataSource());
+        queryStatistics.recordRows(dataSourceName, resultSetInformation.getSql(), resultSetInformation.getCurrRow() + 1);
+    }
+}
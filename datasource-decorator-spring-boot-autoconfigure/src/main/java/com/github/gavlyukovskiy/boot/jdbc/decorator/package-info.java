@@ -0,0 +1,26 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Spring Boot auto-configuration of data source decorators.
+ * <p>
+ * Decorators don't hold monitors around JDBC calls or other potentially blocking operations, such as Micrometer meter
+ * registration, as a virtual thread that blocks while holding a monitor pins its carrier thread. Shared state is
+ * updated with concurrent collections and atomics, or guarded by {@link java.util.concurrent.locks.ReentrantLock}
+ * instead of {@code synchronized}. The lock costs the same on platform threads, so it is used regardless of whether
+ * virtual threads are enabled.
+ */
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.SqlFingerprint;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves whether result of the statement can be cached and which tables the statement modifies.
+ * <p>
+ * Fingerprinting is done once per distinct SQL, results of {@value #MAX_CACHED_QUERIES} most recently used statements are cached.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+class CachedQueryResolver {
+
+    static final int MAX_CACHED_QUERIES = 1000;
+
+    private final List<ResultCacheProperties.CachedQuery> queries;
+    private final Duration defaultTtl;
+    private final ConcurrentLruCache<String, ResolvedQuery> queriesBySql;
+
+    CachedQueryResolver(List<ResultCacheProperties.CachedQuery> queries, Duration defaultTtl) {
+        this.queries = queries.stream()
+                .filter(query -> query.getPattern() != null)
+                .toList();
+        this.defaultTtl = defaultTtl;
+        this.queriesBySql = new ConcurrentLruCache<>(MAX_CACHED_QUERIES, this::computeQuery);
+    }
+
+    /**
+     * Whether results of any query can be cached.
+     *
+     * @return {@code false} if no query is configured to be cached
+     */
+    boolean hasQueries() {
+        return !queries.isEmpty();
+    }
+
+    /**
+     * Returns cacheability and modified tables of the statement.
+     *
+     * @param sql SQL of the statement
+     * @return resolved query
+     */
+    ResolvedQuery resolve(String sql) {
+        return queriesBySql.get(sql);
+    }
+
+    private ResolvedQuery computeQuery(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        Set<String> modifiedTables = SqlTables.modifiedTables(fingerprint);
+        if (!modifiedTables.isEmpty()) {
+            return new ResolvedQuery(modifiedTables, Collections.emptySet(), 0);
+        }
+        for (ResultCacheProperties.CachedQuery query : queries) {
+            if (query.getPattern().matcher(fingerprint).matches()) {
+                Duration ttl = query.getTtl() != null ? query.getTtl() : defaultTtl;
+                if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                    break;
+                }
+                return new ResolvedQuery(Collections.emptySet(), SqlTables.identifiers(fingerprint), ttl.toNanos());
+            }
+        }
+        return new ResolvedQuery(Collections.emptySet(), Collections.emptySet(), 0);
+    }
+
+    /**
+     * Resolved statement.
+     *
+     * @param modifiedTables tables modified by the statement, empty for queries
+     * @param identifiers identifiers of cacheable query, used for invalidation
+     * @param ttlNanos time to live of the cached result, 0 if result is not cached
+     */
+    record ResolvedQuery(Set<String> modifiedTables, Set<String> identifiers, long ttlNanos) {
+
+        boolean isCacheable() {
+            return ttlNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Materialized result of a query, values are stored per column to be served by {@link CachedResultSet}.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class CachedResult {
+
+    private static final int OBJECT_HEADER_SIZE = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int INITIAL_ROWS = 16;
+
+    private final CachedResultSetMetaData metaData;
+    private final Object[][] columns;
+    private final int rowCount;
+    private final long estimatedSize;
+
+    private CachedResult(CachedResultSetMetaData metaData, Object[][] columns, int rowCount, long estimatedSize) {
+        this.metaData = metaData;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * Whether result with given columns can be materialized, values that are only valid while result set is open
+     * (e.g. LOBs and arrays) can't be cached.
+     *
+     * @param metaData metadata of the result set
+     * @return {@code true} if all columns can be cached
+     * @throws SQLException if metadata can't be read
+     */
+    static boolean isCacheable(ResultSetMetaData metaData) throws SQLException {
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            switch (metaData.getColumnType(column)) {
+                case Types.BLOB, Types.CLOB, Types.NCLOB, Types.ARRAY, Types.REF, Types.STRUCT, Types.SQLXML,
+                     Types.DATALINK, Types.REF_CURSOR, Types.JAVA_OBJECT -> {
+                    return false;
+                }
+                default -> {
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads all remaining rows of the result set.
+     *
+     * @param resultSet result set with cacheable columns
+     * @return materialized result
+     * @throws SQLException if result set can't be read
+     */
+    static CachedResult read(ResultSet resultSet) throws SQLException {
+        CachedResultSetMetaData metaData = CachedResultSetMetaData.of(resultSet.getMetaData());
+        int columnCount = metaData.getColumnCount();
+        Object[][] columns = new Object[columnCount][INITIAL_ROWS];
+        long estimatedSize = metaData.estimatedSize();
+        int rowCount = 0;
+        while (resultSet.next()) {
+            if (rowCount == columns[0].length) {
+                for (int column = 0; column < columnCount; column++) {
+                    columns[column] = Arrays.copyOf(columns[column], rowCount * 2);
+                }
+            }
+            for (int column = 0; column < columnCount; column++) {
+                Object value = resultSet.getObject(column + 1);
+                columns[column][rowCount] = value;
+                estimatedSize += estimateSize(value);
+            }
+            rowCount++;
+        }
+        for (int column = 0; column < columnCount; column++) {
+            columns[column] = Arrays.copyOf(columns[column], rowCount);
+            estimatedSize += OBJECT_HEADER_SIZE + (long) rowCount * REFERENCE_SIZE;
+        }
+        return new CachedResult(metaData, columns, rowCount, estimatedSize);
+    }
+
+    CachedResultSetMetaData getMetaData() {
+        return metaData;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns estimated number of bytes retained by the result.
+     *
+     * @return estimated size in bytes
+     */
+    long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Returns value of the column in the row.
+     *
+     * @param row 0-based row index
+     * @param column 1-based column index
+     * @return value as it was returned by {@link ResultSet#getObject(int)}
+     */
+    Object getValue(int row, int column) {
+        return columns[column - 1][row];
+    }
+
+    static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return OBJECT_HEADER_SIZE * 2 + string.length() * 2L;
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT_HEADER_SIZE + bytes.length;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return OBJECT_HEADER_SIZE * 4;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return OBJECT_HEADER_SIZE + REFERENCE_SIZE;
+        }
+        if (value instanceof java.util.Date || value instanceof TemporalAccessor || value instanceof UUID) {
+            return OBJECT_HEADER_SIZE * 3;
+        }
+        return OBJECT_HEADER_SIZE * 8;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Snapshot of {@link ResultSetMetaData} of a cached result.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class CachedResultSetMetaData implements ResultSetMetaData {
+
+    private final String[] labels;
+    private final String[] names;
+    private final int[] types;
+    private final String[] typeNames;
+    private final String[] classNames;
+    private final int[] precisions;
+    private final int[] scales;
+    private final int[] displaySizes;
+    private final int[] nullables;
+    private final boolean[] autoIncrements;
+    private final boolean[] caseSensitives;
+    private final boolean[] searchables;
+    private final boolean[] currencies;
+    private final boolean[] signeds;
+    private final String[] tableNames;
+    private final String[] schemaNames;
+    private final String[] catalogNames;
+    private final Map<String, Integer> columnsByLabel = new HashMap<>();
+
+    private CachedResultSetMetaData(int columnCount) {
+        this.labels = new String[columnCount];
+        this.names = new String[columnCount];
+        this.types = new int[columnCount];
+        this.typeNames = new String[columnCount];
+        this.classNames = new String[columnCount];
+        this.precisions = new int[columnCount];
+        this.scales = new int[columnCount];
+        this.displaySizes = new int[columnCount];
+        this.nullables = new int[columnCount];
+        this.autoIncrements = new boolean[columnCount];
+        this.caseSensitives = new boolean[columnCount];
+        this.searchables = new boolean[columnCount];
+        this.currencies = new boolean[columnCount];
+        this.signeds = new boolean[columnCount];
+        this.tableNames = new String[columnCount];
+        this.schemaNames = new String[columnCount];
+        this.catalogNames = new String[columnCount];
+    }
+
+    static CachedResultSetMetaData of(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        CachedResultSetMetaData snapshot = new CachedResultSetMetaData(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            int column = i + 1;
+            snapshot.labels[i] = metaData.getColumnLabel(column);
+            snapshot.names[i] = metaData.getColumnName(column);
+            snapshot.types[i] = metaData.getColumnType(column);
+            snapshot.typeNames[i] = metaData.getColumnTypeName(column);
+            snapshot.classNames[i] = metaData.getColumnClassName(column);
+            snapshot.precisions[i] = metaData.getPrecision(column);
+            snapshot.scales[i] = metaData.getScale(column);
+            snapshot.displaySizes[i] = metaData.getColumnDisplaySize(column);
+            snapshot.nullables[i] = metaData.isNullable(column);
+            snapshot.autoIncrements[i] = metaData.isAutoIncrement(column);
+            snapshot.caseSensitives[i] = metaData.isCaseSensitive(column);
+            snapshot.searchables[i] = metaData.isSearchable(column);
+            snapshot.currencies[i] = metaData.isCurrency(column);
+            snapshot.signeds[i] = metaData.isSigned(column);
+            snapshot.tableNames[i] = metaData.getTableName(column);
+            snapshot.schemaNames[i] = metaData.getSchemaName(column);
+            snapshot.catalogNames[i] = metaData.getCatalogName(column);
+            if (snapshot.labels[i] != null) {
+                snapshot.columnsByLabel.putIfAbsent(snapshot.labels[i].toLowerCase(Locale.ROOT), column);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns index of the first column with given label, labels are compared case-insensitively.
+     *
+     * @param columnLabel column label
+     * @return 1-based column index
+     * @throws SQLException if there is no such column
+     */
+    int findColumn(String columnLabel) throws SQLException {
+        Integer column = columnLabel != null ? columnsByLabel.get(columnLabel.toLowerCase(Locale.ROOT)) : null;
+        if (column == null) {
+            throw new SQLException("Column '" + columnLabel + "' not found");
+        }
+        return column;
+    }
+
+    long estimatedSize() {
+        long size = 0;
+        for (int i = 0; i < labels.length; i++) {
+            size += CachedResult.estimateSize(labels[i]) + CachedResult.estimateSize(names[i]) + CachedResult.estimateSize(typeNames[i])
+                    + CachedResult.estimateSize(classNames[i]) + CachedResult.estimateSize(tableNames[i]) + 64;
+        }
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return labels.length;
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return autoIncrements[index(column)];
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return caseSensitives[index(column)];
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return searchables[index(column)];
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return currencies[index(column)];
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return nullables[index(column)];
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return signeds[index(column)];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return displaySizes[index(column)];
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return labels[index(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return names[index(column)];
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return schemaNames[index(column)];
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return precisions[index(column)];
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return scales[index(column)];
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return tableNames[index(column)];
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return catalogNames[index(column)];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return types[index(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return typeNames[index(column)];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        index(column);
+        return true;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return classNames[index(column)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        throw new SQLException("Cached result set metadata is not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private int index(int column) throws SQLException {
+        if (column < 1 || column > labels.length) {
+            throw new SQLException("Column index " + column + " is out of range [1, " + labels.length + "]");
+        }
+        return column - 1;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cached query results of a single data source bounded by their estimated size, least recently used results are
+ * discarded first.
+ * <p>
+ * Results are indexed by identifiers of their queries, so that modification of a table discards all results
+ * that may have read it. To not cache a result read before concurrent modification, every modification increments
+ * version of the table, and result is only stored if versions of its identifiers didn't change since the query started.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+class ResultCache {
+
+    private final long maxSize;
+    private final ResultCacheStatistics statistics;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByIdentifier = new HashMap<>();
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private long size;
+
+    ResultCache(long maxSize, ResultCacheStatistics statistics) {
+        this(maxSize, statistics, System::nanoTime);
+    }
+
+    ResultCache(long maxSize, ResultCacheStatistics statistics, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.statistics = statistics;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns cached result if it has not expired.
+     *
+     * @param key query and its parameters
+     * @return cached result or {@code null}
+     */
+    CachedResult get(Key key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - nanoClock.getAsLong() <= 0) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                statistics.recordMiss();
+                return null;
+            }
+            statistics.recordHit();
+            return entry.result;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns version of the tables that must be passed to {@link #put} of the result of the query that is about to start.
+     *
+     * @param identifiers identifiers of the query
+     * @return version of the tables
+     */
+    long version(Set<String> identifiers) {
+        long version = 0;
+        for (String identifier : identifiers) {
+            AtomicLong tableVersion = tableVersions.get(identifier);
+            if (tableVersion != null) {
+                version += tableVersion.get();
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Stores result of the query unless any of the tables it may read was modified since the query started.
+     *
+     * @param key query and its parameters
+     * @param identifiers identifiers of the query
+     * @param version version of the tables before the query started
+     * @param ttlNanos time to live of the result
+     * @param result result of the query
+     */
+    void put(Key key, Set<String> identifiers, long version, long ttlNanos, CachedResult result) {
+        long entrySize = result.getEstimatedSize() + key.estimatedSize();
+        if (entrySize > maxSize) {
+            return;
+        }
+        lock.lock();
+        try {
+            // versions are incremented before invalidation under the same lock, so the check can't miss one
+            if (version(identifiers) != version) {
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(result, identifiers, entrySize, nanoClock.getAsLong() + ttlNanos));
+            for (String identifier : identifiers) {
+                keysByIdentifier.computeIfAbsent(identifier, k -> new HashSet<>()).add(key);
+            }
+            size += entrySize;
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                Map.Entry<Key, Entry> eldest = iterator.next();
+                iterator.remove();
+                unindex(eldest.getKey(), eldest.getValue());
+                statistics.recordEviction();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards results of all queries that may have read any of the tables.
+     *
+     * @param tables modified tables
+     */
+    void invalidate(Collection<String> tables) {
+        if (tables.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            int invalidated = 0;
+            for (String table : tables) {
+                tableVersions.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+                Set<Key> keys = keysByIdentifier.get(table);
+                if (keys != null) {
+                    for (Key key : List.copyOf(keys)) {
+                        if (remove(key)) {
+                            invalidated++;
+                        }
+                    }
+                }
+            }
+            statistics.recordInvalidations(invalidated);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns estimated size of all cached results.
+     *
+     * @return size in bytes
+     */
+    long size() {
+        lock.lock();
+        try {
+            return size;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unindex(key, entry);
+        return true;
+    }
+
+    private void unindex(Key key, Entry entry) {
+        size -= entry.size;
+        for (String identifier : entry.identifiers) {
+            Set<Key> keys = keysByIdentifier.get(identifier);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByIdentifier.remove(identifier);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache key of a query execution.
+     *
+     * @param sql SQL of the query
+     * @param parameters values of the parameters by their index
+     * @param maxRows maximum number of rows requested by the statement
+     */
+    record Key(String sql, List<Object> parameters, long maxRows) {
+
+        long estimatedSize() {
+            long size = CachedResult.estimateSize(sql) + 64;
+            for (Object parameter : parameters) {
+                size += CachedResult.estimateSize(parameter);
+            }
+            return size;
+        }
+    }
+
+    private record Entry(CachedResult result, Set<String> identifiers, long size, long expiresAt) {
+    }
+}
@@ -0,0 +1,1008 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingPreparedStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingStatement;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Data source that serves results of whitelisted queries from {@link ResultCache} and discards cached results
+ * when statements executed through this data source modify tables they read.
+ * <p>
+ * Physical connection is obtained from the target data source only when a statement can't be served from the cache,
+ * auto-commit, read-only and transaction isolation set before that are applied to it once it's obtained.
+ * Prepared statements of cacheable queries record parameters of simple immutable types, and are prepared on the physical
+ * connection only on cache miss, any other call switches them to plain delegation.
+ * <p>
+ * Queries reading tables modified by uncommitted transaction of the same connection bypass the cache.
+ * Tables modified in a transaction are invalidated again on commit, so that results read by other connections before
+ * the commit are discarded. Cached results don't follow isolation of transactions that read them.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ResultCacheDataSource extends DelegatingDataSource {
+
+    private final CachedQueryResolver cachedQueryResolver;
+    private final ResultCache cache;
+
+    ResultCacheDataSource(DataSource dataSource, CachedQueryResolver cachedQueryResolver, ResultCache cache) {
+        super(dataSource);
+        this.cachedQueryResolver = cachedQueryResolver;
+        this.cache = cache;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new ResultCacheConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new ResultCacheConnection(username, password);
+    }
+
+    private static boolean isImmutableValue(Object value) {
+        return value == null || value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte || value instanceof Boolean || value instanceof Character
+                || value instanceof BigDecimal || value instanceof BigInteger || value instanceof Double || value instanceof Float
+                || value instanceof UUID || value instanceof LocalDate || value instanceof LocalTime || value instanceof LocalDateTime
+                || value instanceof OffsetDateTime || value instanceof OffsetTime || value instanceof ZonedDateTime
+                || value instanceof Instant;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCacheDataSource [" + getTargetDataSource() + "]";
+    }
+
+    private interface ParameterSetter {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+
+    private interface JdbcCall<T> {
+        T call() throws SQLException;
+    }
+
+    private record Parameter(Object value, ParameterSetter setter) {
+    }
+
+    private final class ResultCacheConnection extends DelegatingConnection {
+        private final String username;
+        private final String password;
+        private final Set<String> modifiedTables = new HashSet<>();
+        private Connection target;
+        private boolean closed;
+        private Boolean autoCommit;
+        private Boolean readOnly;
+        private Integer transactionIsolation;
+
+        private ResultCacheConnection(String username, String password) {
+            // target connection is obtained on first call that needs it
+            super(null);
+            this.username = username;
+            this.password = password;
+        }
+
+        /**
+         * Returns physical connection, {@code null} if it was not obtained yet.
+         *
+         * @return target connection
+         */
+        @Override
+        public Connection getDelegate() {
+            return target;
+        }
+
+        @Override
+        protected Connection delegate() throws SQLException {
+            if (target == null) {
+                checkOpen();
+                Connection connection = username == null
+                        ? obtainTargetDataSource().getConnection()
+                        : obtainTargetDataSource().getConnection(username, password);
+                try {
+                    if (autoCommit != null) {
+                        connection.setAutoCommit(autoCommit);
+                    }
+                    if (readOnly != null) {
+                        connection.setReadOnly(readOnly);
+                    }
+                    if (transactionIsolation != null) {
+                        connection.setTransactionIsolation(transactionIsolation);
+                    }
+                }
+                catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+                target = connection;
+            }
+            return target;
+        }
+
+        private Connection physicalConnection() throws SQLException {
+            return delegate();
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+        }
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return new InvalidatingStatement(super.createStatement(), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new InvalidatingStatement(super.createStatement(resultSetType, resultSetConcurrency), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new InvalidatingStatement(super.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            CachedQueryResolver.ResolvedQuery query = cachedQueryResolver.resolve(sql);
+            if (query.isCacheable()) {
+                checkOpen();
+                return new CachingPreparedStatement(this, sql, query);
+            }
+            return invalidating(super.prepareStatement(sql), sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return invalidating(super.prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return invalidating(super.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            return invalidating(super.prepareStatement(sql, autoGeneratedKeys), sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            return invalidating(super.prepareStatement(sql, columnIndexes), sql);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            return invalidating(super.prepareStatement(sql, columnNames), sql);
+        }
+
+        private PreparedStatement invalidating(PreparedStatement statement, String sql) {
+            Set<String> tables = cachedQueryResolver.resolve(sql).modifiedTables();
+            return tables.isEmpty() ? statement : new InvalidatingPreparedStatement(statement, this, tables);
+        }
+
+        private <T> T modifying(Set<String> tables, JdbcCall<T> call) throws SQLException {
+            try {
+                return call.call();
+            }
+            finally {
+                // statement may fail after modifying some rows, e.g. a batch
+                modified(tables);
+            }
+        }
+
+        private void modified(Set<String> tables) {
+            if (tables.isEmpty()) {
+                return;
+            }
+            cache.invalidate(tables);
+            boolean targetAutoCommit;
+            try {
+                targetAutoCommit = target != null && target.getAutoCommit();
+            }
+            catch (SQLException e) {
+                targetAutoCommit = false;
+            }
+            if (!targetAutoCommit) {
+                modifiedTables.addAll(tables);
+            }
+        }
+
+        private boolean hasModified(Set<String> identifiers) {
+            return !modifiedTables.isEmpty() && !Collections.disjoint(modifiedTables, identifiers);
+        }
+
+        private void transactionCompleted(boolean committed) {
+            if (committed) {
+                // results read by other connections before the commit are stale
+                cache.invalidate(modifiedTables);
+            }
+            modifiedTables.clear();
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) throws SQLException {
+            if (target == null) {
+                checkOpen();
+                this.autoCommit = autoCommit;
+            }
+            else {
+                super.setAutoCommit(autoCommit);
+            }
+            if (autoCommit) {
+                transactionCompleted(true);
+            }
+        }
+
+        @Override
+        public boolean getAutoCommit() throws SQLException {
+            if (target == null && autoCommit != null) {
+                checkOpen();
+                return autoCommit;
+            }
+            return super.getAutoCommit();
+        }
+
+        @Override
+        public void setReadOnly(boolean readOnly) throws SQLException {
+            if (target == null) {
+                checkOpen();
+                this.readOnly = readOnly;
+            }
+            else {
+                super.setReadOnly(readOnly);
+            }
+        }
+
+        @Override
+        public boolean isReadOnly() throws SQLException {
+            if (target == null && readOnly != null) {
+                checkOpen();
+                return readOnly;
+            }
+            return super.isReadOnly();
+        }
+
+        @Override
+        public void setTransactionIsolation(int level) throws SQLException {
+            if (target == null) {
+                checkOpen();
+                this.transactionIsolation = level;
+            }
+            else {
+                super.setTransactionIsolation(level);
+            }
+        }
+
+        @Override
+        public int getTransactionIsolation() throws SQLException {
+            if (target == null && transactionIsolation != null) {
+                checkOpen();
+                return transactionIsolation;
+            }
+            return super.getTransactionIsolation();
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            if (target == null) {
+                checkOpen();
+                return;
+            }
+            super.commit();
+            transactionCompleted(true);
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            if (target == null) {
+                checkOpen();
+                return;
+            }
+            super.rollback();
+            transactionCompleted(false);
+        }
+
+        @Override
+        public SQLWarning getWarnings() throws SQLException {
+            if (target == null) {
+                checkOpen();
+                return null;
+            }
+            return super.getWarnings();
+        }
+
+        @Override
+        public void clearWarnings() throws SQLException {
+            if (target == null) {
+                checkOpen();
+                return;
+            }
+            super.clearWarnings();
+        }
+
+        @Override
+        public boolean isValid(int timeout) throws SQLException {
+            if (target == null) {
+                return !closed;
+            }
+            return super.isValid(timeout);
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return closed || target != null && target.isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // uncommitted changes may still be committed by the driver on close
+            transactionCompleted(true);
+            if (target != null) {
+                target.close();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return (T) this;
+            }
+            Connection connection = delegate();
+            return iface.isInstance(connection) ? (T) connection : connection.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return true;
+            }
+            Connection connection = delegate();
+            return iface.isInstance(connection) || connection.isWrapperFor(iface);
+        }
+
+        @Override
+        public String toString() {
+            return "ResultCacheConnection [" + (target != null ? target : "not obtained") + "]";
+        }
+    }
+
+    private final class InvalidatingStatement extends DelegatingStatement {
+        private final ResultCacheConnection connection;
+        private final Set<String> batchTables = new HashSet<>();
+
+        private InvalidatingStatement(Statement delegate, ResultCacheConnection connection) {
+            super(delegate);
+            this.connection = connection;
+        }
+
+        private Set<String> modifiedTables(String sql) {
+            return sql != null ? cachedQueryResolver.resolve(sql).modifiedTables() : Collections.emptySet();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            super.getConnection();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery(String sql) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeQuery(sql));
+        }
+
+        @Override
+        public int executeUpdate(String sql) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeUpdate(sql));
+        }
+
+        @Override
+        public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeUpdate(sql, autoGeneratedKeys));
+        }
+
+        @Override
+        public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeUpdate(sql, columnIndexes));
+        }
+
+        @Override
+        public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeUpdate(sql, columnNames));
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeLargeUpdate(sql));
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeLargeUpdate(sql, autoGeneratedKeys));
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeLargeUpdate(sql, columnIndexes));
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.executeLargeUpdate(sql, columnNames));
+        }
+
+        @Override
+        public boolean execute(String sql) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.execute(sql));
+        }
+
+        @Override
+        public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.execute(sql, autoGeneratedKeys));
+        }
+
+        @Override
+        public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.execute(sql, columnIndexes));
+        }
+
+        @Override
+        public boolean execute(String sql, String[] columnNames) throws SQLException {
+            return connection.modifying(modifiedTables(sql), () -> super.execute(sql, columnNames));
+        }
+
+        @Override
+        public void addBatch(String sql) throws SQLException {
+            super.addBatch(sql);
+            batchTables.addAll(modifiedTables(sql));
+        }
+
+        @Override
+        public void clearBatch() throws SQLException {
+            super.clearBatch();
+            batchTables.clear();
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            try {
+                return connection.modifying(Set.copyOf(batchTables), super::executeBatch);
+            }
+            finally {
+                batchTables.clear();
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            try {
+                return connection.modifying(Set.copyOf(batchTables), super::executeLargeBatch);
+            }
+            finally {
+                batchTables.clear();
+            }
+        }
+    }
+
+    private static final class InvalidatingPreparedStatement extends DelegatingPreparedStatement {
+        private final ResultCacheConnection connection;
+        private final Set<String> tables;
+
+        private InvalidatingPreparedStatement(PreparedStatement delegate, ResultCacheConnection connection, Set<String> tables) {
+            super(delegate);
+            this.connection = connection;
+            this.tables = tables;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            super.getConnection();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            return connection.modifying(tables, super::executeQuery);
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            return connection.modifying(tables, super::executeUpdate);
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            return connection.modifying(tables, super::executeLargeUpdate);
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            return connection.modifying(tables, super::execute);
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            return connection.modifying(tables, super::executeBatch);
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            return connection.modifying(tables, super::executeLargeBatch);
+        }
+    }
+
+    private final class CachingPreparedStatement extends DelegatingPreparedStatement {
+        private final ResultCacheConnection connection;
+        private final String sql;
+        private final CachedQueryResolver.ResolvedQuery query;
+        private final Map<Integer, Parameter> parameters = new TreeMap<>();
+        private PreparedStatement target;
+        private boolean recording = true;
+        private boolean closed;
+        private Integer queryTimeout;
+        private Integer fetchSize;
+        private long maxRows;
+        private ResultSet resultSet;
+
+        private CachingPreparedStatement(ResultCacheConnection connection, String sql, CachedQueryResolver.ResolvedQuery query) {
+            // target statement is prepared on cache miss or on first call that can't be recorded
+            super(null);
+            this.connection = connection;
+            this.sql = sql;
+            this.query = query;
+        }
+
+        /**
+         * Returns physical statement, {@code null} if it was not prepared yet.
+         *
+         * @return target statement
+         */
+        @Override
+        public PreparedStatement getDelegate() {
+            return target;
+        }
+
+        @Override
+        protected PreparedStatement delegate() throws SQLException {
+            checkOpen();
+            if (recording) {
+                prepare();
+                recording = false;
+            }
+            return target;
+        }
+
+        private PreparedStatement prepare() throws SQLException {
+            if (target == null) {
+                PreparedStatement statement = connection.physicalConnection().prepareStatement(sql);
+                try {
+                    if (queryTimeout != null) {
+                        statement.setQueryTimeout(queryTimeout);
+                    }
+                    if (fetchSize != null) {
+                        statement.setFetchSize(fetchSize);
+                    }
+                    if (maxRows != 0) {
+                        statement.setLargeMaxRows(maxRows);
+                    }
+                }
+                catch (SQLException e) {
+                    statement.close();
+                    throw e;
+                }
+                target = statement;
+            }
+            target.clearParameters();
+            for (Parameter parameter : parameters.values()) {
+                parameter.setter().set(target);
+            }
+            return target;
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+        }
+
+        private void record(int parameterIndex, Object value, ParameterSetter setter) throws SQLException {
+            if (recording) {
+                checkOpen();
+                parameters.put(parameterIndex, new Parameter(value, setter));
+            }
+            else {
+                setter.set(delegate());
+            }
+        }
+
+        private List<Object> parameterValues() {
+            List<Object> values = new ArrayList<>(parameters.size());
+            for (Parameter parameter : parameters.values()) {
+                values.add(parameter.value());
+            }
+            return values;
+        }
+
+        private void closeResultSet() throws SQLException {
+            if (resultSet != null) {
+                resultSet.close();
+                resultSet = null;
+            }
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            if (!recording) {
+                return super.executeQuery();
+            }
+            checkOpen();
+            closeResultSet();
+            if (connection.hasModified(query.identifiers())) {
+                // uncommitted changes of this connection must be visible to it
+                resultSet = prepare().executeQuery();
+                return resultSet;
+            }
+            ResultCache.Key key = new ResultCache.Key(sql, parameterValues(), maxRows);
+            CachedResult result = cache.get(key);
+            if (result == null) {
+                long version = cache.version(query.identifiers());
+                ResultSet targetResultSet = prepare().executeQuery();
+                if (!CachedResult.isCacheable(targetResultSet.getMetaData())) {
+                    resultSet = targetResultSet;
+                    return resultSet;
+                }
+                try {
+                    result = CachedResult.read(targetResultSet);
+                }
+                finally {
+                    targetResultSet.close();
+                }
+                cache.put(key, query.identifiers(), version, query.ttlNanos(), result);
+            }
+            resultSet = new CachedResultSet(result, this);
+            return resultSet;
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return resultSet;
+            }
+            return super.getResultSet();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            checkOpen();
+            return connection;
+        }
+
+        @Override
+        public void clearParameters() throws SQLException {
+            if (recording) {
+                checkOpen();
+                parameters.clear();
+            }
+            else {
+                super.clearParameters();
+            }
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType) throws SQLException {
+            record(parameterIndex, null, statement -> statement.setNull(parameterIndex, sqlType));
+        }
+
+        @Override
+        public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+            record(parameterIndex, null, statement -> statement.setNull(parameterIndex, sqlType, typeName));
+        }
+
+        @Override
+        public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setBoolean(parameterIndex, x));
+        }
+
+        @Override
+        public void setByte(int parameterIndex, byte x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setByte(parameterIndex, x));
+        }
+
+        @Override
+        public void setShort(int parameterIndex, short x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setShort(parameterIndex, x));
+        }
+
+        @Override
+        public void setInt(int parameterIndex, int x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setInt(parameterIndex, x));
+        }
+
+        @Override
+        public void setLong(int parameterIndex, long x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setLong(parameterIndex, x));
+        }
+
+        @Override
+        public void setFloat(int parameterIndex, float x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setFloat(parameterIndex, x));
+        }
+
+        @Override
+        public void setDouble(int parameterIndex, double x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setDouble(parameterIndex, x));
+        }
+
+        @Override
+        public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setBigDecimal(parameterIndex, x));
+        }
+
+        @Override
+        public void setString(int parameterIndex, String x) throws SQLException {
+            record(parameterIndex, x, statement -> statement.setString(parameterIndex, x));
+        }
+
+        @Override
+        public void setNString(int parameterIndex, String value) throws SQLException {
+            record(parameterIndex, value, statement -> statement.setNString(parameterIndex, value));
+        }
+
+        @Override
+        public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+            byte[] copy = x != null ? x.clone() : null;
+            record(parameterIndex, copy != null ? ByteBuffer.wrap(copy) : null, statement -> statement.setBytes(parameterIndex, copy));
+        }
+
+        @Override
+        public void setDate(int parameterIndex, Date x) throws SQLException {
+            Date copy = x != null ? (Date) x.clone() : null;
+            record(parameterIndex, copy, statement -> statement.setDate(parameterIndex, copy));
+        }
+
+        @Override
+        public void setTime(int parameterIndex, Time x) throws SQLException {
+            Time copy = x != null ? (Time) x.clone() : null;
+            record(parameterIndex, copy, statement -> statement.setTime(parameterIndex, copy));
+        }
+
+        @Override
+        public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+            Timestamp copy = x != null ? (Timestamp) x.clone() : null;
+            record(parameterIndex, copy, statement -> statement.setTimestamp(parameterIndex, copy));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x) throws SQLException {
+            if (!isImmutableValue(x)) {
+                super.setObject(parameterIndex, x);
+                return;
+            }
+            record(parameterIndex, x, statement -> statement.setObject(parameterIndex, x));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+            if (!isImmutableValue(x)) {
+                super.setObject(parameterIndex, x, targetSqlType);
+                return;
+            }
+            record(parameterIndex, Arrays.asList(x, targetSqlType), statement -> statement.setObject(parameterIndex, x, targetSqlType));
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+            if (!isImmutableValue(x)) {
+                super.setObject(parameterIndex, x, targetSqlType);
+                return;
+            }
+            record(parameterIndex, Arrays.asList(x, targetSqlType), statement -> statement.setObject(parameterIndex, x, targetSqlType));
+        }
+
+        @Override
+        public void setQueryTimeout(int seconds) throws SQLException {
+            if (!recording) {
+                super.setQueryTimeout(seconds);
+                return;
+            }
+            checkOpen();
+            queryTimeout = seconds;
+            if (target != null) {
+                target.setQueryTimeout(seconds);
+            }
+        }
+
+        @Override
+        public int getQueryTimeout() throws SQLException {
+            if (recording && queryTimeout != null) {
+                checkOpen();
+                return queryTimeout;
+            }
+            return super.getQueryTimeout();
+        }
+
+        @Override
+        public void setFetchSize(int rows) throws SQLException {
+            if (!recording) {
+                super.setFetchSize(rows);
+                return;
+            }
+            checkOpen();
+            fetchSize = rows;
+            if (target != null) {
+                target.setFetchSize(rows);
+            }
+        }
+
+        @Override
+        public int getFetchSize() throws SQLException {
+            if (recording && fetchSize != null) {
+                checkOpen();
+                return fetchSize;
+            }
+            return super.getFetchSize();
+        }
+
+        @Override
+        public void setMaxRows(int max) throws SQLException {
+            setLargeMaxRows(max);
+        }
+
+        @Override
+        public void setLargeMaxRows(long max) throws SQLException {
+            if (!recording) {
+                super.setLargeMaxRows(max);
+                return;
+            }
+            checkOpen();
+            if (max < 0) {
+                throw new SQLException("Max rows must be >= 0");
+            }
+            maxRows = max;
+            if (target != null) {
+                target.setLargeMaxRows(max);
+            }
+        }
+
+        @Override
+        public int getMaxRows() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return (int) Math.min(maxRows, Integer.MAX_VALUE);
+            }
+            return super.getMaxRows();
+        }
+
+        @Override
+        public long getLargeMaxRows() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return maxRows;
+            }
+            return super.getLargeMaxRows();
+        }
+
+        @Override
+        public SQLWarning getWarnings() throws SQLException {
+            if (recording) {
+                checkOpen();
+                return target != null ? target.getWarnings() : null;
+            }
+            return super.getWarnings();
+        }
+
+        @Override
+        public void clearWarnings() throws SQLException {
+            if (recording) {
+                checkOpen();
+                if (target != null) {
+                    target.clearWarnings();
+                }
+                return;
+            }
+            super.clearWarnings();
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return closed || connection.isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                closeResultSet();
+            }
+            finally {
+                if (target != null) {
+                    target.close();
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return (T) this;
+            }
+            PreparedStatement statement = delegate();
+            return iface.isInstance(statement) ? (T) statement : statement.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return true;
+            }
+            PreparedStatement statement = delegate();
+            return iface.isInstance(statement) || statement.isWrapperFor(iface);
+        }
+
+        @Override
+        public String toString() {
+            return "CachingPreparedStatement [" + (target != null ? target : sql) + "]";
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Ordered} decorator for {@link ResultCacheDataSource}. Applied after connection metrics, so that connection
+ * acquisition is only measured when the connection is actually obtained, and before datasource-proxy and p6spy, so that
+ * queries served from the cache are still logged by them. Data sources are not decorated if no query is configured to be cached.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ResultCacheDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final ResultCacheProperties resultCache;
+    private final ObjectProvider<ResultCacheMetrics> metrics;
+    private final Map<String, ResultCacheStatistics> statistics = new ConcurrentHashMap<>();
+
+    public ResultCacheDataSourceDecorator(ResultCacheProperties resultCache, ObjectProvider<ResultCacheMetrics> metrics) {
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        CachedQueryResolver cachedQueryResolver = new CachedQueryResolver(resultCache.getQueries(), resultCache.getTtl());
+        if (!cachedQueryResolver.hasQueries()) {
+            return dataSource;
+        }
+        ResultCacheStatistics dataSourceStatistics = new ResultCacheStatistics();
+        ResultCache cache = new ResultCache(resultCache.getMaxSize().toBytes(), dataSourceStatistics);
+        if (statistics.putIfAbsent(beanName, dataSourceStatistics) == null) {
+            metrics.ifAvailable(cacheMetrics -> cacheMetrics.register(beanName, dataSourceStatistics, cache));
+        }
+        return new ResultCacheDataSource(dataSource, cachedQueryResolver, cache);
+    }
+
+    /**
+     * Returns cache statistics by data source bean name.
+     *
+     * @return cache statistics
+     */
+    public Map<String, ResultCacheStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public int getOrder() {
+        return 17;
+    }
+}
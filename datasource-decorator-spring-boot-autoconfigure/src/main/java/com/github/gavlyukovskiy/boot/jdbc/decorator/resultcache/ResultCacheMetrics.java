@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Registers result cache statistics of decorated data source: {@value #REQUESTS_METRIC_NAME} counter tagged with
+ * 'result' (hit or miss), {@value #EVICTIONS_METRIC_NAME} and {@value #INVALIDATIONS_METRIC_NAME} counters,
+ * {@value #HIT_RATIO_METRIC_NAME} and {@value #SIZE_METRIC_NAME} gauges.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ResultCacheMetrics {
+
+    public static final String REQUESTS_METRIC_NAME = "jdbc.result.cache.requests";
+    public static final String EVICTIONS_METRIC_NAME = "jdbc.result.cache.evictions";
+    public static final String INVALIDATIONS_METRIC_NAME = "jdbc.result.cache.invalidations";
+    public static final String HIT_RATIO_METRIC_NAME = "jdbc.result.cache.hit.ratio";
+    public static final String SIZE_METRIC_NAME = "jdbc.result.cache.size";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public ResultCacheMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    void register(String dataSourceName, ResultCacheStatistics statistics, ResultCache cache) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, statistics, ResultCacheStatistics::getHits)
+                .description("Number of cacheable queries requested from the result cache")
+                .tag("datasource", dataSourceName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, statistics, ResultCacheStatistics::getMisses)
+                .description("Number of cacheable queries requested from the result cache")
+                .tag("datasource", dataSourceName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS_METRIC_NAME, statistics, ResultCacheStatistics::getEvictions)
+                .description("Number of cached results discarded because the cache was full")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        FunctionCounter.builder(INVALIDATIONS_METRIC_NAME, statistics, ResultCacheStatistics::getInvalidations)
+                .description("Number of cached results discarded because tables they read were modified")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        Gauge.builder(HIT_RATIO_METRIC_NAME, statistics, ResultCacheStatistics::getHitRatio)
+                .description("Ratio of cacheable queries served from the result cache")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        Gauge.builder(SIZE_METRIC_NAME, cache, ResultCache::size)
+                .description("Estimated size of cached results")
+                .baseUnit("bytes")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Properties for configuring read-through cache of query results.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class ResultCacheProperties {
+
+    /**
+     * Enables caching of results of whitelisted queries.
+     */
+    private boolean enabled = false;
+    /**
+     * Time to live of cached result of queries that don't specify their own.
+     */
+    @DurationUnit(value = ChronoUnit.SECONDS)
+    private Duration ttl = Duration.ofMinutes(1);
+    /**
+     * Maximum estimated size of cached results per data source, least recently used results are discarded first.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(10);
+    /**
+     * Queries which results are cached by SQL fingerprint, first matching wins.
+     */
+    private List<CachedQuery> queries = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public Duration getTtl() {
+        return this.ttl;
+    }
+
+    public DataSize getMaxSize() {
+        return this.maxSize;
+    }
+
+    public List<CachedQuery> getQueries() {
+        return this.queries;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setQueries(List<CachedQuery> queries) {
+        this.queries = queries;
+    }
+
+    public static class CachedQuery {
+        /**
+         * Pattern that should match the whole SQL fingerprint, e.g. '(?i)select .* from country where code = \?'.
+         */
+        private Pattern pattern;
+        /**
+         * Time to live of cached result of matching queries, default ttl is used if not set.
+         */
+        @DurationUnit(value = ChronoUnit.SECONDS)
+        private Duration ttl;
+
+        public Pattern getPattern() {
+            return this.pattern;
+        }
+
+        public Duration getTtl() {
+            return this.ttl;
+        }
+
+        public void setPattern(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts table names from SQL fingerprints, names are lower-cased and stripped of schema and quotes.
+ * <p>
+ * Tables modified by a statement are parsed from its target clauses, while queries are matched against all identifiers
+ * they contain, so that a table missed by parsing of a complex query can only cause extra invalidation, never a stale result.
+ * Tables modified by triggers or stored procedures are not visible.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class SqlTables {
+
+    private static final String NAME = "(?:[\\w$]+|\"[^\"]+\"|`[^`]+`|\\[[^]]+])";
+    private static final Pattern QUALIFIED_NAME = Pattern.compile(NAME + "(?:\\s*\\.\\s*" + NAME + ")*");
+    private static final String TABLE_WITH_ALIAS = QUALIFIED_NAME.pattern() + "(?:\\s+(?:as\\s+)?\\w+)?";
+    private static final Pattern TABLE_LIST = Pattern.compile(
+            "(?i)\\b(?:from|join|into|update|table|using)\\s+(" + TABLE_WITH_ALIAS + "(?:\\s*,\\s*" + TABLE_WITH_ALIAS + ")*)");
+    private static final Pattern MODIFYING_STATEMENT = Pattern.compile(
+            "(?is)^\\s*(?:insert|update|delete|merge|upsert|replace|truncate|drop|alter)\\b.*"
+                    + "|^\\s*with\\b.*\\b(?:insert|update|delete|merge)\\b.*");
+    private static final Pattern IDENTIFIER = Pattern.compile(NAME);
+
+    private SqlTables() {
+    }
+
+    /**
+     * Returns tables modified by the statement.
+     *
+     * @param fingerprint SQL fingerprint
+     * @return names of modified tables, empty if statement doesn't modify data or schema
+     */
+    static Set<String> modifiedTables(String fingerprint) {
+        if (!MODIFYING_STATEMENT.matcher(fingerprint).matches()) {
+            return Collections.emptySet();
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = TABLE_LIST.matcher(fingerprint);
+        while (matcher.find()) {
+            for (String table : matcher.group(1).split(",")) {
+                Matcher name = QUALIFIED_NAME.matcher(table.trim());
+                if (name.lookingAt()) {
+                    tables.add(lastPart(name.group()));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * Returns all identifiers of the query, including names of tables it reads.
+     *
+     * @param fingerprint SQL fingerprint
+     * @return normalized identifiers
+     */
+    static Set<String> identifiers(String fingerprint) {
+        Set<String> identifiers = new LinkedHashSet<>();
+        Matcher matcher = IDENTIFIER.matcher(fingerprint);
+        while (matcher.find()) {
+            identifiers.add(normalize(matcher.group()));
+        }
+        return Collections.unmodifiableSet(identifiers);
+    }
+
+    private static String lastPart(String qualifiedName) {
+        String last = qualifiedName;
+        Matcher matcher = IDENTIFIER.matcher(qualifiedName);
+        while (matcher.find()) {
+            last = matcher.group();
+        }
+        return normalize(last);
+    }
+
+    private static String normalize(String name) {
+        char first = name.charAt(0);
+        if (first == '"' || first == '`' || first == '[') {
+            name = name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
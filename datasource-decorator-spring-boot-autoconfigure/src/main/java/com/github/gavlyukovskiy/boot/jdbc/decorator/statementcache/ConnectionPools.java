@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pool specific access to physical connections behind connections obtained from the pool.
+ * <p>
+ * Physical connection of HikariCP and other pools is obtained by {@link Connection#unwrap(Class)}. DBCP2 returns its own
+ * connection from {@code unwrap}, so the innermost delegate is used, which is only available when access to underlying
+ * connection is allowed. As statements prepared on the physical connection bypass the pool, failures of these statements
+ * that indicate a broken connection are reported back to the pool, so that the connection is evicted.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+final class ConnectionPools {
+
+    private static final Logger log = getLogger(ConnectionPools.class);
+
+    private static final boolean HIKARI_AVAILABLE =
+            ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", ConnectionPools.class.getClassLoader());
+    private static final boolean DBCP2_AVAILABLE =
+            ClassUtils.isPresent("org.apache.commons.dbcp2.BasicDataSource", ConnectionPools.class.getClassLoader());
+
+    private ConnectionPools() {
+    }
+
+    /**
+     * Returns connection of the pool stripped of decorators provided by this library.
+     *
+     * @param connection decorated connection
+     * @return connection returned by the pool
+     */
+    static Connection poolConnection(Connection connection) {
+        Connection candidate = connection;
+        while (candidate instanceof DelegatingConnection) {
+            candidate = ((DelegatingConnection) candidate).getDelegate();
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns physical connection that is reused by the pool across borrows.
+     *
+     * @param poolConnection connection returned by the pool
+     * @return physical connection or {@code null} if it's not accessible
+     * @throws SQLException if connection can't be unwrapped
+     */
+    static Connection physicalConnection(Connection poolConnection) throws SQLException {
+        if (DBCP2_AVAILABLE && poolConnection.isWrapperFor(org.apache.commons.dbcp2.DelegatingConnection.class)) {
+            // null unless access to underlying connection is allowed
+            return poolConnection.unwrap(org.apache.commons.dbcp2.DelegatingConnection.class).getInnermostDelegate();
+        }
+        return poolConnection.isWrapperFor(Connection.class) ? poolConnection.unwrap(Connection.class) : poolConnection;
+    }
+
+    /**
+     * Evicts connection from the pool if the exception indicates that connection is broken.
+     *
+     * @param dataSource     pool data source
+     * @param poolConnection connection returned by the pool
+     * @param exception      exception thrown by the statement prepared on the physical connection
+     */
+    static void checkException(DataSource dataSource, Connection poolConnection, SQLException exception) {
+        if (!isConnectionBroken(exception)) {
+            return;
+        }
+        try {
+            if (HIKARI_AVAILABLE && dataSource.isWrapperFor(HikariDataSource.class)) {
+                dataSource.unwrap(HikariDataSource.class).evictConnection(poolConnection);
+            }
+            else if (DBCP2_AVAILABLE && dataSource.isWrapperFor(BasicDataSource.class)) {
+                dataSource.unwrap(BasicDataSource.class).invalidateConnection(poolConnection);
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            log.debug("Failed to evict broken connection {} from the pool", poolConnection, e);
+        }
+    }
+
+    private static boolean isConnectionBroken(SQLException exception) {
+        for (SQLException e = exception; e != null; e = e.getNextException()) {
+            if (e instanceof SQLNonTransientConnectionException || e instanceof SQLRecoverableException) {
+                return true;
+            }
+            // SQL state class 08 is connection exception
+            if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of client-side prepared statement cache.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "decorator.datasource.prepared-statement-cache.enabled", havingValue = "true")
+public class PreparedStatementCacheConfiguration {
+
+    @Bean
+    public PreparedStatementCacheDataSourceDecorator preparedStatementCacheDataSourceDecorator(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                                                                                               ObjectProvider<PreparedStatementCacheMetrics> metrics) {
+        return new PreparedStatementCacheDataSourceDecorator(dataSourceDecoratorProperties.getPreparedStatementCache(), metrics);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class PreparedStatementCacheMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public PreparedStatementCacheMetrics preparedStatementCacheMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new PreparedStatementCacheMetrics(meterRegistry);
+        }
+    }
+}
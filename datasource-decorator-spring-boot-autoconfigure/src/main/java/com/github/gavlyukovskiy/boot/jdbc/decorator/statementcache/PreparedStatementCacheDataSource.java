@@ -0,0 +1,517 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingPreparedStatement;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Data source that keeps prepared statements open after application closes them and reuses them
+ * when the same SQL is prepared again on the same physical connection.
+ * <p>
+ * Statements are prepared directly on the physical connection (e.g. unwrapped from HikariCP proxy), so that they
+ * outlive the logical connection returned to the application, see {@link ConnectionPools} for how the physical
+ * connection is resolved. When it's not accessible statements are prepared on the pool connection without caching.
+ * Statements are cached by SQL, result set type,
+ * concurrency and holdability in least recently used order, up to configured size per physical connection.
+ * Before statement is returned to the cache its parameters and batch are cleared, fetch size, max rows,
+ * max field size, fetch direction and query timeout are restored, statements with other settings changed are closed.
+ * <p>
+ * As statements bypass the pool proxy, the pool doesn't see their executions and failures. Failures that indicate
+ * a broken connection are reported to the pool, and uncommitted transaction is rolled back when connection is closed,
+ * same as HikariCP does for its own statements.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class PreparedStatementCacheDataSource extends DelegatingDataSource {
+
+    private final int maxSize;
+    private final PreparedStatementCacheStatistics statistics;
+    private final Map<Connection, StatementCache> caches = new ConcurrentHashMap<>();
+
+    public PreparedStatementCacheDataSource(DataSource dataSource, int maxSize, PreparedStatementCacheStatistics statistics) {
+        super(dataSource);
+        this.maxSize = maxSize;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new CachingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new CachingConnection(super.getConnection(username, password));
+    }
+
+    /**
+     * Returns statistics of the cache.
+     *
+     * @return cache statistics
+     */
+    public PreparedStatementCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private StatementCache getCache(Connection poolConnection) throws SQLException {
+        Connection physicalConnection = ConnectionPools.physicalConnection(poolConnection);
+        if (physicalConnection == null) {
+            return null;
+        }
+        StatementCache cache = caches.get(physicalConnection);
+        if (cache == null) {
+            // physical connections are closed by the pool without notice, so caches of closed ones are dropped
+            // whenever pool opens a new one, statements of closed connection are closed by the driver
+            caches.keySet().removeIf(PreparedStatementCacheDataSource::isClosed);
+            cache = caches.computeIfAbsent(physicalConnection, StatementCache::new);
+        }
+        return cache;
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        }
+        catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        }
+        catch (SQLException e) {
+            // statement is discarded anyway
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedStatementCacheDataSource [" + getTargetDataSource() + "]";
+    }
+
+    private record StatementKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+
+        private static final int DEFAULT_HOLDABILITY = 0;
+
+        private PreparedStatement prepare(Connection connection) throws SQLException {
+            if (resultSetHoldability != DEFAULT_HOLDABILITY) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            }
+            if (resultSetType != ResultSet.TYPE_FORWARD_ONLY || resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+                return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+            }
+            return connection.prepareStatement(sql);
+        }
+    }
+
+    /**
+     * Idle statements of a single physical connection, statement is removed while it's used by the application.
+     */
+    private final class StatementCache {
+        private final Connection connection;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<StatementKey, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        private StatementCache(Connection connection) {
+            this.connection = connection;
+        }
+
+        private PreparedStatement borrow(StatementKey key) {
+            lock.lock();
+            try {
+                return statements.remove(key);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(StatementKey key, PreparedStatement statement) {
+            PreparedStatement statementToClose = null;
+            lock.lock();
+            try {
+                if (statements.containsKey(key)) {
+                    // the same SQL was prepared twice at the same time, only one is kept
+                    statementToClose = statement;
+                }
+                else {
+                    statements.put(key, statement);
+                    if (statements.size() > maxSize) {
+                        Iterator<PreparedStatement> iterator = statements.values().iterator();
+                        statementToClose = iterator.next();
+                        iterator.remove();
+                        statistics.recordEviction();
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+            if (statementToClose != null) {
+                closeQuietly(statementToClose);
+            }
+        }
+    }
+
+    private final class CachingConnection extends DelegatingConnection {
+        private final List<CachedPreparedStatement> openStatements = new ArrayList<>();
+        private Connection poolConnection;
+        private StatementCache cache;
+        private boolean dirty;
+
+        private CachingConnection(Connection delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return prepare(new StatementKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, StatementKey.DEFAULT_HOLDABILITY));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return prepare(new StatementKey(sql, resultSetType, resultSetConcurrency, StatementKey.DEFAULT_HOLDABILITY));
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return prepare(new StatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+        }
+
+        private PreparedStatement prepare(StatementKey key) throws SQLException {
+            if (poolConnection == null) {
+                poolConnection = ConnectionPools.poolConnection(getDelegate());
+                cache = getCache(poolConnection);
+            }
+            if (cache == null) {
+                return key.prepare(delegate());
+            }
+            PreparedStatement statement = cache.borrow(key);
+            if (statement == null) {
+                statistics.recordMiss();
+                statement = key.prepare(cache.connection);
+            }
+            else {
+                statistics.recordHit();
+            }
+            CachedPreparedStatement cachedStatement = new CachedPreparedStatement(statement, key, cache, this);
+            openStatements.add(cachedStatement);
+            return cachedStatement;
+        }
+
+        private SQLException checkException(SQLException e) {
+            ConnectionPools.checkException(getTargetDataSource(), poolConnection, e);
+            return e;
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            super.commit();
+            dirty = false;
+        }
+
+        @Override
+        public void rollback() throws SQLException {
+            super.rollback();
+            dirty = false;
+        }
+
+        @Override
+        public void setAutoCommit(boolean autoCommit) throws SQLException {
+            super.setAutoCommit(autoCommit);
+            if (autoCommit) {
+                dirty = false;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                for (CachedPreparedStatement statement : new ArrayList<>(openStatements)) {
+                    statement.close();
+                }
+                if (dirty && !getAutoCommit()) {
+                    super.rollback();
+                }
+            }
+            finally {
+                dirty = false;
+                super.close();
+            }
+        }
+    }
+
+    private final class CachedPreparedStatement extends DelegatingPreparedStatement {
+        private final StatementKey key;
+        private final StatementCache cache;
+        private final CachingConnection connection;
+        private boolean closed;
+        private boolean reusable = true;
+        private boolean batched;
+        private ResultSet resultSet;
+        private Integer originalQueryTimeout;
+        private Integer originalFetchSize;
+        private Integer originalMaxRows;
+        private Integer originalMaxFieldSize;
+        private Integer originalFetchDirection;
+
+        private CachedPreparedStatement(PreparedStatement delegate, StatementKey key, StatementCache cache, CachingConnection connection) {
+            super(delegate);
+            this.key = key;
+            this.cache = cache;
+            this.connection = connection;
+        }
+
+        @Override
+        protected PreparedStatement delegate() throws SQLException {
+            if (closed) {
+                // physical statement may be already used by someone else
+                throw new SQLException("Statement is closed");
+            }
+            return super.delegate();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            delegate();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            connection.dirty = true;
+            try {
+                resultSet = super.executeQuery();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+            return resultSet;
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            connection.dirty = true;
+            try {
+                return super.execute();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLException {
+            resultSet = super.getResultSet();
+            return resultSet;
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            connection.dirty = true;
+            try {
+                return super.executeUpdate();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            connection.dirty = true;
+            try {
+                return super.executeLargeUpdate();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+        }
+
+        @Override
+        public void addBatch() throws SQLException {
+            super.addBatch();
+            batched = true;
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            connection.dirty = true;
+            batched = false;
+            try {
+                return super.executeBatch();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            connection.dirty = true;
+            batched = false;
+            try {
+                return super.executeLargeBatch();
+            }
+            catch (SQLException e) {
+                throw connection.checkException(e);
+            }
+        }
+
+        @Override
+        public void setQueryTimeout(int seconds) throws SQLException {
+            if (originalQueryTimeout == null) {
+                originalQueryTimeout = delegate().getQueryTimeout();
+            }
+            super.setQueryTimeout(seconds);
+        }
+
+        @Override
+        public void setFetchSize(int rows) throws SQLException {
+            if (originalFetchSize == null) {
+                originalFetchSize = delegate().getFetchSize();
+            }
+            super.setFetchSize(rows);
+        }
+
+        @Override
+        public void setMaxRows(int max) throws SQLException {
+            if (originalMaxRows == null) {
+                originalMaxRows = delegate().getMaxRows();
+            }
+            super.setMaxRows(max);
+        }
+
+        @Override
+        public void setMaxFieldSize(int max) throws SQLException {
+            if (originalMaxFieldSize == null) {
+                originalMaxFieldSize = delegate().getMaxFieldSize();
+            }
+            super.setMaxFieldSize(max);
+        }
+
+        @Override
+        public void setFetchDirection(int direction) throws SQLException {
+            if (originalFetchDirection == null) {
+                originalFetchDirection = delegate().getFetchDirection();
+            }
+            super.setFetchDirection(direction);
+        }
+
+        @Override
+        public void setLargeMaxRows(long max) throws SQLException {
+            reusable = false;
+            super.setLargeMaxRows(max);
+        }
+
+        @Override
+        public void setPoolable(boolean poolable) throws SQLException {
+            reusable = false;
+            super.setPoolable(poolable);
+        }
+
+        @Override
+        public void setEscapeProcessing(boolean enable) throws SQLException {
+            reusable = false;
+            super.setEscapeProcessing(enable);
+        }
+
+        @Override
+        public void setCursorName(String name) throws SQLException {
+            reusable = false;
+            super.setCursorName(name);
+        }
+
+        @Override
+        public void closeOnCompletion() throws SQLException {
+            reusable = false;
+            super.closeOnCompletion();
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return closed || super.isClosed();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connection.openStatements.remove(this);
+            PreparedStatement statement = getDelegate();
+            if (reusable && reset(statement)) {
+                cache.release(key, statement);
+            }
+            else {
+                statement.close();
+            }
+        }
+
+        private boolean reset(PreparedStatement statement) {
+            try {
+                if (statement.isClosed()) {
+                    return false;
+                }
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                if (batched) {
+                    statement.clearBatch();
+                }
+                statement.clearParameters();
+                if (originalQueryTimeout != null) {
+                    statement.setQueryTimeout(originalQueryTimeout);
+                }
+                if (originalFetchSize != null) {
+                    statement.setFetchSize(originalFetchSize);
+                }
+                if (originalMaxRows != null) {
+                    statement.setMaxRows(originalMaxRows);
+                }
+                if (originalMaxFieldSize != null) {
+                    statement.setMaxFieldSize(originalMaxFieldSize);
+                }
+                if (originalFetchDirection != null) {
+                    statement.setFetchDirection(originalFetchDirection);
+                }
+                return true;
+            }
+            catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+}
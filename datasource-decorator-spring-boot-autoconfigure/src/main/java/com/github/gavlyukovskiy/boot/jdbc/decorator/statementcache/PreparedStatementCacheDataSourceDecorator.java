@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Ordered} decorator for {@link PreparedStatementCacheDataSource}. Applied after flexy-pool and connection leak
+ * detection, that don't wrap statements, and before statement timeouts, datasource-proxy and p6spy, so that every
+ * prepared statement is still visible to them.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class PreparedStatementCacheDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final PreparedStatementCacheProperties preparedStatementCache;
+    private final ObjectProvider<PreparedStatementCacheMetrics> metrics;
+    private final Map<String, PreparedStatementCacheStatistics> statistics = new ConcurrentHashMap<>();
+
+    public PreparedStatementCacheDataSourceDecorator(PreparedStatementCacheProperties preparedStatementCache,
+                                                     ObjectProvider<PreparedStatementCacheMetrics> metrics) {
+        this.preparedStatementCache = preparedStatementCache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        PreparedStatementCacheStatistics dataSourceStatistics = statistics.computeIfAbsent(beanName, name -> {
+            PreparedStatementCacheStatistics newStatistics = new PreparedStatementCacheStatistics();
+            metrics.ifAvailable(cacheMetrics -> cacheMetrics.register(name, newStatistics));
+            return newStatistics;
+        });
+        return new PreparedStatementCacheDataSource(dataSource, preparedStatementCache.getMaxSize(), dataSourceStatistics);
+    }
+
+    /**
+     * Returns cache statistics by data source bean name.
+     *
+     * @return cache statistics
+     */
+    public Map<String, PreparedStatementCacheStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public int getOrder() {
+        return 14;
+    }
+}
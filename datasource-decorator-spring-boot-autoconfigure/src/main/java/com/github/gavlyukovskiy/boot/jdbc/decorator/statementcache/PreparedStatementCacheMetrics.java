@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Registers prepared statement cache statistics of decorated data source: {@value #REQUESTS_METRIC_NAME} counter
+ * tagged with 'result' (hit or miss), {@value #EVICTIONS_METRIC_NAME} counter and {@value #HIT_RATIO_METRIC_NAME} gauge.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class PreparedStatementCacheMetrics {
+
+    public static final String REQUESTS_METRIC_NAME = "jdbc.statement.cache.requests";
+    public static final String EVICTIONS_METRIC_NAME = "jdbc.statement.cache.evictions";
+    public static final String HIT_RATIO_METRIC_NAME = "jdbc.statement.cache.hit.ratio";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public PreparedStatementCacheMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    void register(String dataSourceName, PreparedStatementCacheStatistics statistics) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, statistics, PreparedStatementCacheStatistics::getHits)
+                .description("Number of prepared statements requested from the cache")
+                .tag("datasource", dataSourceName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(REQUESTS_METRIC_NAME, statistics, PreparedStatementCacheStatistics::getMisses)
+                .description("Number of prepared statements requested from the cache")
+                .tag("datasource", dataSourceName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS_METRIC_NAME, statistics, PreparedStatementCacheStatistics::getEvictions)
+                .description("Number of cached prepared statements closed because the cache was full")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+        Gauge.builder(HIT_RATIO_METRIC_NAME, statistics, PreparedStatementCacheStatistics::getHitRatio)
+                .description("Ratio of prepared statements served from the cache")
+                .tag("datasource", dataSourceName)
+                .register(registry);
+    }
+}
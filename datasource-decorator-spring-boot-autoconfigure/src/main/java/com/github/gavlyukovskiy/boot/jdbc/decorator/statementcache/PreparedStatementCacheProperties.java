@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+/**
+ * Properties for configuring client-side cache of prepared statements.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class PreparedStatementCacheProperties {
+
+    /**
+     * Enables caching of prepared statements per physical connection.
+     */
+    private boolean enabled = false;
+    /**
+     * Maximum number of cached prepared statements per physical connection, least recently used are closed first.
+     */
+    private int maxSize = 250;
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.SqlFingerprint;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resolves query timeout of the statement by its SQL.
+ * <p>
+ * Fingerprinting is done once per distinct SQL, results of {@value #MAX_CACHED_QUERIES} most recently used statements are cached.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+class QueryTimeoutResolver {
+
+    static final int MAX_CACHED_QUERIES = 1000;
+
+    private final List<StatementTimeoutProperties.QueryTimeout> queries;
+    private final int defaultTimeoutSeconds;
+    private final ConcurrentLruCache<String, Integer> timeoutsBySql;
+
+    QueryTimeoutResolver(List<StatementTimeoutProperties.QueryTimeout> queries, Duration defaultTimeout) {
+        this.queries = queries.stream()
+                .filter(query -> query.getPattern() != null && query.getTimeout() != null)
+                .toList();
+        this.defaultTimeoutSeconds = toSeconds(defaultTimeout);
+        this.timeoutsBySql = new ConcurrentLruCache<>(MAX_CACHED_QUERIES, this::computeTimeoutSeconds);
+    }
+
+    /**
+     * Whether any statement gets query timeout.
+     *
+     * @return {@code false} if there is neither default nor query specific timeout
+     */
+    boolean hasTimeouts() {
+        return defaultTimeoutSeconds > 0 || !queries.isEmpty();
+    }
+
+    /**
+     * Returns query timeout of the statement.
+     *
+     * @param sql SQL of the statement, {@code null} if unknown (e.g. batch)
+     * @return query timeout in seconds, 0 if there is no timeout
+     */
+    int resolveTimeoutSeconds(String sql) {
+        if (sql == null || queries.isEmpty()) {
+            return defaultTimeoutSeconds;
+        }
+        return timeoutsBySql.get(sql);
+    }
+
+    private int computeTimeoutSeconds(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        for (StatementTimeoutProperties.QueryTimeout query : queries) {
+            if (query.getPattern().matcher(fingerprint).matches()) {
+                return toSeconds(query.getTimeout());
+            }
+        }
+        return defaultTimeoutSeconds;
+    }
+
+    private static int toSeconds(Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (timeout.toMillis() + 999) / 1000);
+    }
+}
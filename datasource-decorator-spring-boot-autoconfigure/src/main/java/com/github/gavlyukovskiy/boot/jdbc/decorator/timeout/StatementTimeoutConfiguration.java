@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of default query timeouts of statements.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "decorator.datasource.statement-timeout.enabled", havingValue = "true")
+public class StatementTimeoutConfiguration {
+
+    @Bean
+    public StatementTimeoutDataSourceDecorator statementTimeoutDataSourceDecorator(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                                                                                   ObjectProvider<StatementTimeoutListener> listeners) {
+        return new StatementTimeoutDataSourceDecorator(dataSourceDecoratorProperties, listeners);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class StatementTimeoutMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public StatementTimeoutMetrics statementTimeoutMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new StatementTimeoutMetrics(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingCallableStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingPreparedStatement;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingStatement;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Data source that applies query timeout to every statement, unless application sets its own timeout,
+ * and notifies {@link StatementTimeoutListener}s about timed out executions.
+ * <p>
+ * Prepared and callable statements get the timeout once when they are prepared, plain statements on each execution
+ * when timeout of the SQL differs from the previous one. Execution is considered timed out on {@link SQLTimeoutException}
+ * or SQL state {@value #QUERY_CANCELED_SQL_STATE} used by drivers that don't throw it (e.g. PostgreSQL).
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementTimeoutDataSource extends DelegatingDataSource {
+
+    private static final String QUERY_CANCELED_SQL_STATE = "57014";
+
+    private final String beanName;
+    private final QueryTimeoutResolver queryTimeoutResolver;
+    private final List<StatementTimeoutListener> listeners;
+
+    StatementTimeoutDataSource(String beanName, DataSource dataSource, QueryTimeoutResolver queryTimeoutResolver,
+                               List<StatementTimeoutListener> listeners) {
+        super(dataSource);
+        this.beanName = beanName;
+        this.queryTimeoutResolver = queryTimeoutResolver;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new TimeoutConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new TimeoutConnection(super.getConnection(username, password));
+    }
+
+    private <S extends Statement> S withTimeout(S statement, String sql) throws SQLException {
+        int timeout = queryTimeoutResolver.resolveTimeoutSeconds(sql);
+        if (timeout > 0) {
+            try {
+                statement.setQueryTimeout(timeout);
+            }
+            catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return statement;
+    }
+
+    private SQLException checkTimeout(SQLException e, String sql) {
+        if (e instanceof SQLTimeoutException || QUERY_CANCELED_SQL_STATE.equals(e.getSQLState())) {
+            for (StatementTimeoutListener listener : listeners) {
+                listener.onTimeout(beanName, sql);
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementTimeoutDataSource [" + getTargetDataSource() + "]";
+    }
+
+    private final class TimeoutConnection extends DelegatingConnection {
+
+        private TimeoutConnection(Connection delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Statement createStatement() throws SQLException {
+            return new TimeoutStatement(super.createStatement(), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new TimeoutStatement(super.createStatement(resultSetType, resultSetConcurrency), this);
+        }
+
+        @Override
+        public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new TimeoutStatement(super.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability), this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql), sql), sql, this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql, resultSetType, resultSetConcurrency), sql), sql, this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql), sql, this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql, autoGeneratedKeys), sql), sql, this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql, columnIndexes), sql), sql, this);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+            return new TimeoutPreparedStatement(withTimeout(super.prepareStatement(sql, columnNames), sql), sql, this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql) throws SQLException {
+            return new TimeoutCallableStatement(withTimeout(super.prepareCall(sql), sql), sql, this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return new TimeoutCallableStatement(withTimeout(super.prepareCall(sql, resultSetType, resultSetConcurrency), sql), sql, this);
+        }
+
+        @Override
+        public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+            return new TimeoutCallableStatement(withTimeout(super.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql), sql, this);
+        }
+    }
+
+    private final class TimeoutStatement extends DelegatingStatement {
+        private final TimeoutConnection connection;
+        private boolean explicitTimeout;
+        private int appliedTimeout;
+
+        private TimeoutStatement(Statement delegate, TimeoutConnection connection) {
+            super(delegate);
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            super.getConnection();
+            return connection;
+        }
+
+        @Override
+        public void setQueryTimeout(int seconds) throws SQLException {
+            explicitTimeout = true;
+            super.setQueryTimeout(seconds);
+        }
+
+        private void applyTimeout(String sql) throws SQLException {
+            if (!explicitTimeout) {
+                int timeout = queryTimeoutResolver.resolveTimeoutSeconds(sql);
+                if (timeout != appliedTimeout) {
+                    super.setQueryTimeout(timeout);
+                    appliedTimeout = timeout;
+                }
+            }
+        }
+
+        @Override
+        public ResultSet executeQuery(String sql) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeQuery(sql);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeUpdate(sql);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeUpdate(sql, autoGeneratedKeys);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeUpdate(sql, columnIndexes);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeUpdate(sql, columnNames);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.execute(sql);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.execute(sql, autoGeneratedKeys);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.execute(sql, columnIndexes);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute(String sql, String[] columnNames) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.execute(sql, columnNames);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeLargeUpdate(sql);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeLargeUpdate(sql, autoGeneratedKeys);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeLargeUpdate(sql, columnIndexes);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+            applyTimeout(sql);
+            try {
+                return super.executeLargeUpdate(sql, columnNames);
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            // statements of the batch may differ, so only default timeout applies
+            applyTimeout(null);
+            try {
+                return super.executeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, null);
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            applyTimeout(null);
+            try {
+                return super.executeLargeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, null);
+            }
+        }
+    }
+
+    private final class TimeoutPreparedStatement extends DelegatingPreparedStatement {
+        private final String sql;
+        private final TimeoutConnection connection;
+
+        private TimeoutPreparedStatement(PreparedStatement delegate, String sql, TimeoutConnection connection) {
+            super(delegate);
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            super.getConnection();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            try {
+                return super.executeQuery();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            try {
+                return super.executeUpdate();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            try {
+                return super.execute();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            try {
+                return super.executeLargeUpdate();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            try {
+                return super.executeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            try {
+                return super.executeLargeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+    }
+
+    private final class TimeoutCallableStatement extends DelegatingCallableStatement {
+        private final String sql;
+        private final TimeoutConnection connection;
+
+        private TimeoutCallableStatement(CallableStatement delegate, String sql, TimeoutConnection connection) {
+            super(delegate);
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            super.getConnection();
+            return connection;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            try {
+                return super.executeQuery();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            try {
+                return super.executeUpdate();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            try {
+                return super.execute();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            try {
+                return super.executeLargeUpdate();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            try {
+                return super.executeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            try {
+                return super.executeLargeBatch();
+            }
+            catch (SQLException e) {
+                throw checkTimeout(e, sql);
+            }
+        }
+    }
+}
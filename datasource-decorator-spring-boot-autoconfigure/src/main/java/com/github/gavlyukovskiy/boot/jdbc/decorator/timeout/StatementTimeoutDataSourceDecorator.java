@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecorator;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * {@link Ordered} decorator for {@link StatementTimeoutDataSource}. Applied after connection metrics and before
+ * datasource-proxy and p6spy, so that timed out executions are still logged by them.
+ * Data sources without any timeout configured are not decorated.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementTimeoutDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+    private final DataSourceDecoratorProperties dataSourceDecoratorProperties;
+    private final ObjectProvider<StatementTimeoutListener> listeners;
+
+    public StatementTimeoutDataSourceDecorator(DataSourceDecoratorProperties dataSourceDecoratorProperties,
+                                               ObjectProvider<StatementTimeoutListener> listeners) {
+        this.dataSourceDecoratorProperties = dataSourceDecoratorProperties;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public DataSource decorate(String beanName, DataSource dataSource) {
+        StatementTimeoutProperties statementTimeout = dataSourceDecoratorProperties.getStatementTimeout();
+        Duration defaultTimeout = dataSourceDecoratorProperties.getBeanProperties(beanName).getStatementTimeout().getDefaultTimeout();
+        QueryTimeoutResolver queryTimeoutResolver = new QueryTimeoutResolver(statementTimeout.getQueries(),
+                defaultTimeout != null ? defaultTimeout : statementTimeout.getDefaultTimeout());
+        if (!queryTimeoutResolver.hasTimeouts()) {
+            return dataSource;
+        }
+        return new StatementTimeoutDataSource(beanName, dataSource, queryTimeoutResolver, listeners.orderedStream().toList());
+    }
+
+    @Override
+    public int getOrder() {
+        return 16;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+/**
+ * Listener that is notified when statement execution is cancelled because of the query timeout.
+ * All beans of this type are notified.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+@FunctionalInterface
+public interface StatementTimeoutListener {
+
+    /**
+     * Called after statement execution has timed out, before the exception is rethrown to the application.
+     *
+     * @param dataSourceName name of the data source bean
+     * @param sql            SQL of the statement, {@code null} for batches of plain statements
+     */
+    void onTimeout(String dataSourceName, String sql);
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts statement timeouts per data source in {@value #METRIC_NAME} counter.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementTimeoutMetrics implements StatementTimeoutListener {
+
+    public static final String METRIC_NAME = "jdbc.statement.timeouts";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public StatementTimeoutMetrics(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public void onTimeout(String dataSourceName, String sql) {
+        Counter counter = counters.get(dataSourceName);
+        if (counter == null) {
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return;
+            }
+            counter = counters.computeIfAbsent(dataSourceName, name -> Counter.builder(METRIC_NAME)
+                    .description("Number of statements cancelled because of query timeout")
+                    .tag("datasource", name)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Properties for configuring default query timeouts of statements.
+ *
+ * @author Arthur Gavlyukovskiy
+ */
+public class StatementTimeoutProperties {
+
+    /**
+     * Enables applying default query timeouts to statements.
+     */
+    private boolean enabled = false;
+    /**
+     * Query timeout applied to statements that don't match any of {@link #queries}, rounded up to seconds.
+     */
+    @DurationUnit(value = ChronoUnit.SECONDS)
+    private Duration defaultTimeout;
+    /**
+     * Query timeouts by SQL fingerprint, first matching wins.
+     */
+    private List<QueryTimeout> queries = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public Duration getDefaultTimeout() {
+        return this.defaultTimeout;
+    }
+
+    public List<QueryTimeout> getQueries() {
+        return this.queries;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public void setQueries(List<QueryTimeout> queries) {
+        this.queries = queries;
+    }
+
+    public static class QueryTimeout {
+        /**
+         * Pattern that should match the whole SQL fingerprint, e.g. '(?i)select .* from report_.*'.
+         */
+        private Pattern pattern;
+        /**
+         * Query timeout of matching statements, rounded up to seconds.
+         */
+        @DurationUnit(value = ChronoUnit.SECONDS)
+        private Duration timeout;
+
+        public Pattern getPattern() {
+            return this.pattern;
+        }
+
+        public Duration getTimeout() {
+            return this.timeout;
+        }
+
+        public void setPattern(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
 import org.springframework.boot.flyway.autoconfigure.FlywayAutoConfiguration;
 import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
@@ -36,6 +38,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 import javax.sql.DataSource;
@@ -175,6 +178,33 @@ class DataSourceDecoratorAutoConfigurationTests {
         });
     }
 
+    @Test
+    void testDecoratingCanBeDisabledInBeanOverrides() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues("decorator.datasource.beans.secondDataSource.enabled:false")
+                .withUserConfiguration(TestMultiDataSourceConfiguration.class);
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean("dataSource", DataSource.class);
+            assertThat(dataSource).isInstanceOf(DecoratedDataSource.class);
+
+            DataSource secondDataSource = context.getBean("secondDataSource", DataSource.class);
+            assertThat(secondDataSource).isInstanceOf(BasicDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratorsCanBeDisabledForSpecificBean() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.beans.dataSource.p6spy.enabled:false",
+                "decorator.datasource.beans.dataSource.flexy-pool.enabled:false");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+
+            assertThatDataSourceDecoratingChain(dataSource).containsExactly(ProxyDataSource.class);
+        });
+    }
+
     @Test
     void testDecoratingChainBuiltCorrectly() {
         contextRunner.run(context -> {
@@ -230,6 +260,34 @@ class DataSourceDecoratorAutoConfigurationTests {
             assertThat(dataSource2).isInstanceOf(DecoratedDataSource.class);
         });
     }
+
+    @Test
+    void testDecoratingIsRecordedInApplicationStartup() {
+        BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(1000);
+        applicationStartup.startRecording();
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withInitializer(context -> context.setApplicationStartup(applicationStartup));
+
+        contextRunner.run(context -> {
+            List<StartupStep> steps = applicationStartup.getBufferedTimeline().getEvents().stream()
+                    .map(StartupTimeline.TimelineEvent::getStartupStep)
+                    .filter(step -> step.getName().startsWith("decorator.datasource."))
+                    .toList();
+            assertThat(steps).extracting(StartupStep::getName).containsExactly(
+                    "decorator.datasource.decorator",
+                    "decorator.datasource.decorator",
+                    "decorator.datasource.decorator",
+                    "decorator.datasource.decorate"
+            );
+            assertThat(steps).extracting(step -> tagValue(step, "decorator")).containsExactly(
+                    "flexyPoolDataSourceDecorator",
+                    "proxyDataSourceDecorator",
+                    "p6SpyDataSourceDecorator",
+                    null
+            );
+            assertThat(steps).extracting(step -> tagValue(step, "beanName")).containsOnly("dataSource");
+        });
+    }
     
     @Test
     void testRoutingDataSourceIsDecorated() {
@@ -255,6 +313,29 @@ class DataSourceDecoratorAutoConfigurationTests {
         });
     }
 
+    @Test
+    void testRoutingDataSourceTargetsAreDecorated() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues("decorator.datasource.decorate-routing-data-source-targets=true")
+                .withUserConfiguration(TestAbstractRoutingDataSourceConfiguration.class);
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(dataSource).isInstanceOf(AbstractRoutingDataSource.class);
+
+            AbstractRoutingDataSource routingDataSource = (AbstractRoutingDataSource) dataSource;
+            DataSource target = routingDataSource.getResolvedDataSources().get("ds1");
+            assertThat(target).isInstanceOf(DecoratedDataSource.class);
+            assertThat(((DecoratedDataSource) target).getBeanName()).isEqualTo("dataSource.ds1");
+            assertThat(((DecoratedDataSource) target).getRealDataSource()).isInstanceOf(BasicDataSource.class);
+            assertThat(((DecoratedDataSource) target).getDecoratedDataSource()).isInstanceOf(P6DataSource.class);
+            // default target is the same pool, so it's not decorated twice
+            assertThat(routingDataSource.getResolvedDefaultDataSource()).isSameAs(target);
+
+            DataSourceNameResolver dataSourceNameResolver = context.getBean(DataSourceNameResolver.class);
+            assertThat(dataSourceNameResolver.resolveDataSourceName(((DecoratedDataSource) target).getRealDataSource())).isEqualTo("dataSource.ds1");
+        });
+    }
+
     @Test
     void testUnwrapsRealDataSourceForFlyway() {
         ApplicationContextRunner contextRunner = this.contextRunner
@@ -284,6 +365,38 @@ class DataSourceDecoratorAutoConfigurationTests {
         });
     }
 
+    @Test
+    void testRepeatedUnwrapReturnsSameInstance() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(dataSource.unwrap(HikariDataSource.class)).isSameAs(dataSource.unwrap(HikariDataSource.class));
+            assertThat(dataSource.unwrap(ProxyDataSource.class)).isSameAs(dataSource.unwrap(ProxyDataSource.class));
+            assertThat(dataSource.unwrap(DecoratedDataSource.class)).isSameAs(dataSource);
+        });
+    }
+
+    @Test
+    void testIsWrapperForConsistentWithUnwrap() {
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(dataSource.isWrapperFor(HikariDataSource.class)).isTrue();
+            assertThat(dataSource.isWrapperFor(P6DataSource.class)).isTrue();
+            assertThat(dataSource.isWrapperFor(ProxyDataSource.class)).isTrue();
+            assertThat(dataSource.isWrapperFor(FlexyPoolDataSource.class)).isTrue();
+            assertThat(dataSource.isWrapperFor(DecoratedDataSource.class)).isTrue();
+            assertThat(dataSource.isWrapperFor(BasicDataSource.class)).isFalse();
+        });
+    }
+
+    private static String tagValue(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals(key)) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
     private AbstractListAssert<?, List<?>, Object, ObjectAssert<Object>> assertThatDataSourceDecoratingChain(DataSource dataSource) {
         return assertThat(((DecoratedDataSource) dataSource).getDecoratingChain()).extracting("dataSource").extracting("class");
     }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceNameResolverTest {
+
+    private ApplicationContext applicationContext;
+    private DataSourceNameResolver dataSourceNameResolver;
+
+    @BeforeEach
+    void setUp() {
+        applicationContext = Mockito.mock(ApplicationContext.class);
+        dataSourceNameResolver = new DataSourceNameResolver(applicationContext);
+    }
+
+    @Test
+    void shouldResolveAndCacheBeanName() {
+        DataSource dataSource = new SimpleDriverDataSource();
+        Mockito.when(applicationContext.getBeansOfType(DataSource.class)).thenReturn(Map.of("customDataSource", dataSource));
+
+        assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo("customDataSource");
+        assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo("customDataSource");
+
+        Mockito.verify(applicationContext, Mockito.times(1)).getBeansOfType(DataSource.class);
+    }
+
+    @Test
+    void shouldResolveAndCacheHikariPoolName() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setPoolName("customPool");
+
+            assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo("customPool");
+            dataSource.setPoolName("changedPool");
+            assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo("customPool");
+
+            Mockito.verifyNoInteractions(applicationContext);
+        }
+    }
+
+    @Test
+    void shouldFallbackToDefaultNameForUnknownDataSource() {
+        Mockito.when(applicationContext.getBeansOfType(DataSource.class)).thenReturn(Map.of());
+
+        assertThat(dataSourceNameResolver.resolveDataSourceName(new SimpleDriverDataSource())).isEqualTo("dataSource");
+    }
+
+    @Test
+    void shouldResolveNamesOfManyDataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            dataSources.put("dataSource" + i, new SimpleDriverDataSource());
+        }
+        Mockito.when(applicationContext.getBeansOfType(DataSource.class)).thenReturn(dataSources);
+
+        dataSources.forEach((beanName, dataSource) ->
+                assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo(beanName));
+        dataSources.forEach((beanName, dataSource) ->
+                assertThat(dataSourceNameResolver.resolveDataSourceName(dataSource)).isEqualTo(beanName));
+
+        Mockito.verify(applicationContext, Mockito.times(100)).getBeansOfType(DataSource.class);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DecoratedDataSourceTest {
+
+    private final DataSource realDataSource = Mockito.mock(DataSource.class);
+    private final DataSource targetDataSource = Mockito.mock(DataSource.class);
+    private final DecoratedDataSource dataSource = new DecoratedDataSource("dataSource", realDataSource, targetDataSource, List.of());
+
+    @Test
+    void shouldCacheUnwrapMiss() throws SQLException {
+        Mockito.when(targetDataSource.unwrap(Runnable.class)).thenThrow(new SQLException("not a wrapper"));
+
+        assertThatThrownBy(() -> dataSource.unwrap(Runnable.class)).isInstanceOf(SQLException.class);
+        assertThatThrownBy(() -> dataSource.unwrap(Runnable.class)).isInstanceOf(SQLException.class);
+        assertThat(dataSource.isWrapperFor(Runnable.class)).isFalse();
+
+        Mockito.verify(targetDataSource, Mockito.times(1)).unwrap(Runnable.class);
+        Mockito.verify(targetDataSource, Mockito.never()).isWrapperFor(Runnable.class);
+    }
+
+    @Test
+    void shouldAnswerIsWrapperForFromUnwrapCache() throws SQLException {
+        Runnable target = () -> {};
+        Mockito.when(targetDataSource.unwrap(Runnable.class)).thenReturn(target);
+
+        assertThat(dataSource.isWrapperFor(Runnable.class)).isTrue();
+        assertThat(dataSource.unwrap(Runnable.class)).isSameAs(target);
+
+        Mockito.verify(targetDataSource, Mockito.times(1)).unwrap(Runnable.class);
+    }
+
+    @Test
+    void shouldUnwrapItself() throws SQLException {
+        assertThat(dataSource.unwrap(DecoratedDataSource.class)).isSameAs(dataSource);
+        assertThat(dataSource.isWrapperFor(DecoratedDataSource.class)).isTrue();
+        // real data source is returned for its own type as Spring Boot expects
+        assertThat(dataSource.unwrap(DataSource.class)).isSameAs(realDataSource);
+
+        Mockito.verifyNoInteractions(targetDataSource);
+    }
+}
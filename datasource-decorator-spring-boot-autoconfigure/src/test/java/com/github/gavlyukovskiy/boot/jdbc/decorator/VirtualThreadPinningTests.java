@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.connection.DelegatingConnection;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.ConcurrentConnectionIdManager;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy.ConnectionIdManagerProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the whole decorating chain on virtual threads with a driver that parks on every call,
+ * any monitor held by a decorator around the driver call pins the carrier thread and is reported by JFR.
+ * <p>
+ * Test task additionally runs with {@code -Djdk.tracePinnedThreads=full} to print stack traces of pinned threads.
+ */
+class VirtualThreadPinningTests {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(BlockingDataSourceDecorator.class)
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt(),
+                    "spring.threads.virtual.enabled:true",
+                    // console of the test runner is a synchronized stream, which would be reported instead of decorators
+                    "decorator.datasource.p6spy.enable-logging:false",
+                    "decorator.datasource.datasource-proxy.query.enable-logging:false",
+                    "decorator.datasource.datasource-proxy.slow-query.enable-logging:false",
+                    "decorator.datasource.query-metrics.enabled:true",
+                    "decorator.datasource.query-statistics.enabled:true",
+                    "decorator.datasource.connection-metrics.enabled:true",
+                    "decorator.datasource.leak-detection.enabled:true",
+                    "decorator.datasource.datasource-proxy.slow-query.adaptive.enabled:true",
+                    "decorator.datasource.datasource-proxy.repeated-query.enabled:true");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDecoratingChainDoesNotPinVirtualThreads() {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads require Java 21");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(context.getBean(ConnectionIdManagerProvider.class).get()).isInstanceOf(ConcurrentConnectionIdManager.class);
+            // pool is started under a monitor, which is out of scope of this test
+            executeQuery(dataSource);
+
+            Path recordingFile = tempDir.resolve("pinning.jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+                recording.start();
+                runOnVirtualThreads(() -> {
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        executeQuery(dataSource);
+                    }
+                    return null;
+                });
+                recording.stop();
+                recording.dump(recordingFile);
+            }
+
+            List<RecordedEvent> pinnedEvents = RecordingFile.readAllEvents(recordingFile);
+            assertThat(pinnedEvents)
+                    .as("virtual threads were pinned:%n%s", pinnedEvents)
+                    .isEmpty();
+        });
+    }
+
+    private static void executeQuery(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1");
+             ResultSet resultSet = statement.executeQuery()) {
+            assertThat(resultSet.next()).isTrue();
+        }
+    }
+
+    private static void runOnVirtualThreads(Callable<Void> task) throws Exception {
+        // reflective to compile against Java 17
+        ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void park() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    /**
+     * Applied right after FlexyPool and leak detection, so that every decorator above parks inside driver calls.
+     */
+    static class BlockingDataSourceDecorator implements DataSourceDecorator, Ordered {
+
+        @Override
+        public DataSource decorate(String beanName, DataSource dataSource) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    park();
+                    return new BlockingConnection(super.getConnection());
+                }
+            };
+        }
+
+        @Override
+        public int getOrder() {
+            return 12;
+        }
+    }
+
+    private static class BlockingConnection extends DelegatingConnection {
+
+        private BlockingConnection(Connection delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            park();
+            PreparedStatement statement = super.prepareStatement(sql);
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            park();
+                        }
+                        try {
+                            return method.invoke(statement, args);
+                        }
+                        catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public void close() throws SQLException {
+            park();
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementBatchingConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedByDefault() {
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(context).doesNotHaveBean(StatementBatchingDataSourceDecorator.class);
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(StatementBatchingDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratedBeforeDataSourceProxy() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.statement-batching.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, StatementBatchingDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testRoundTripsSavedAreCounted() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.statement-batching.enabled:true",
+                        "decorator.datasource.statement-batching.batch-size:10",
+                        "decorator.datasource.statement-batching.pattern:(?i)insert into city .*");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("create table city (id int primary key, name varchar(50))");
+                }
+                connection.setAutoCommit(false);
+                try (PreparedStatement ps = connection.prepareStatement("insert into city (id, name) values (?, ?)")) {
+                    for (int i = 0; i < 5; i++) {
+                        ps.setInt(1, i);
+                        ps.setString(2, "city-" + i);
+                        ps.executeUpdate();
+                    }
+                }
+                connection.commit();
+            }
+
+            StatementBatchingStatistics statistics = context.getBean(StatementBatchingDataSourceDecorator.class).getStatistics().get("dataSource");
+            assertThat(statistics.getStatements()).isEqualTo(5);
+            assertThat(statistics.getBatches()).isEqualTo(1);
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.get(StatementBatchingMetrics.ROUND_TRIPS_SAVED_METRIC_NAME)
+                    .tag("datasource", "dataSource").functionCounter().count())
+                    .isEqualTo(4);
+        });
+    }
+}
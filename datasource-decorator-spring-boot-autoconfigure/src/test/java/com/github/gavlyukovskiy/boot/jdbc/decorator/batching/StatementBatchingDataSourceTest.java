@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.batching;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatementBatchingDataSourceTest {
+
+    private static final String INSERT_CITY = "insert into city (id, name) values (?, ?)";
+
+    private final StatementBatchingStatistics statistics = new StatementBatchingStatistics();
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2DataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table city (id int primary key, name varchar(50), data blob)");
+        }
+        dataSource = new StatementBatchingDataSource(h2DataSource, Pattern.compile("(?i)(insert|update) .*"), 3, statistics);
+    }
+
+    @Test
+    void testRepeatedInsertsAreBatchedWithinTransaction() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= 7; i++) {
+                // statement prepared for every row is batched as well
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_CITY)) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "city-" + i);
+                    assertThat(ps.executeUpdate()).isEqualTo(1);
+                }
+            }
+            assertThat(statistics.getBatches()).isEqualTo(2);
+            connection.commit();
+        }
+
+        assertThat(countCities()).isEqualTo(7);
+        assertThat(statistics.getStatements()).isEqualTo(7);
+        assertThat(statistics.getBatches()).isEqualTo(3);
+        assertThat(statistics.getRoundTripsSaved()).isEqualTo(4);
+    }
+
+    @Test
+    void testBatchIsExecutedBeforeRead() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_CITY)) {
+                ps.setInt(1, 1);
+                ps.setString(2, "Kyiv");
+                ps.executeUpdate();
+                ps.setInt(1, 2);
+                ps.setString(2, "Lviv");
+                ps.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("select count(*) from city")) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(2);
+            }
+            connection.commit();
+        }
+        assertThat(statistics.getBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void testRollbackDiscardsBatch() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_CITY)) {
+                ps.setInt(1, 1);
+                ps.setString(2, "Kyiv");
+                ps.executeUpdate();
+            }
+            connection.rollback();
+        }
+
+        assertThat(countCities()).isZero();
+        assertThat(statistics.getBatches()).isZero();
+    }
+
+    @Test
+    void testStatementsAreExecutedImmediatelyInAutoCommitMode() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(INSERT_CITY)) {
+            ps.setInt(1, 1);
+            ps.setString(2, "Kyiv");
+            ps.executeUpdate();
+
+            assertThat(countCities()).isEqualTo(1);
+        }
+        assertThat(statistics.getBatches()).isZero();
+    }
+
+    @Test
+    void testStreamParameterIsExecutedImmediately() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("insert into city (id, name, data) values (?, ?, ?)")) {
+                ps.setInt(1, 1);
+                ps.setString(2, "Kyiv");
+                ps.setBinaryStream(3, new ByteArrayInputStream(new byte[] {1, 2, 3}));
+                ps.executeUpdate();
+            }
+            connection.commit();
+        }
+
+        assertThat(countCities()).isEqualTo(1);
+        assertThat(statistics.getStatements()).isZero();
+    }
+
+    @Test
+    void testUnexpectedUpdateCountsAreCounted() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("update city set name = ? where id = ?")) {
+                ps.setString(1, "Kyiv");
+                ps.setInt(2, 42);
+                assertThat(ps.executeUpdate()).isEqualTo(1);
+            }
+            connection.commit();
+        }
+
+        assertThat(statistics.getUnexpectedUpdateCounts()).isEqualTo(1);
+    }
+
+    @Test
+    void testBatchFailureIsReportedByNextCall() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_CITY)) {
+                ps.setInt(1, 1);
+                ps.setString(2, "Kyiv");
+                ps.executeUpdate();
+                ps.setInt(1, 1);
+                ps.setString(2, "Kyiv");
+                ps.executeUpdate();
+            }
+            assertThatThrownBy(connection::commit).isInstanceOf(SQLException.class);
+            connection.rollback();
+        }
+
+        assertThat(countCities()).isZero();
+    }
+
+    private int countCities() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from city")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionLeakDetectionConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedByDefault() {
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(LeakDetectionDataSource.class);
+            assertThat(context).doesNotHaveBean(ConnectionLeakDetectionEndpoint.class);
+        });
+    }
+
+    @Test
+    void testDecoratedRightAfterFlexyPool() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.leak-detection.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, LeakDetectionDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testEndpointExposesOutstandingConnections() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.leak-detection.enabled:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ConnectionLeakDetectionEndpoint endpoint = context.getBean(ConnectionLeakDetectionEndpoint.class);
+
+            Connection connection = dataSource.getConnection();
+            assertThat(endpoint.connections().getDataSources().get("dataSource")).hasSize(1);
+            assertThat(endpoint.connections().isCaptureStackTraces()).isFalse();
+
+            endpoint.captureStackTraces(true);
+            Connection secondConnection = dataSource.getConnection();
+            assertThat(endpoint.connections().getDataSources().get("dataSource"))
+                    .extracting(OutstandingConnection::getAcquisitionStackTrace)
+                    .satisfiesExactly(
+                            stackTrace -> assertThat(stackTrace).isNull(),
+                            stackTrace -> assertThat(stackTrace).isNotEmpty()
+                    );
+
+            connection.close();
+            secondConnection.close();
+            assertThat(endpoint.connections().getDataSources()).isEmpty();
+        });
+    }
+}
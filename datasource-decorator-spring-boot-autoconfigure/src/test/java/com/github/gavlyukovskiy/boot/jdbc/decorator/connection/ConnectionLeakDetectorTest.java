@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ConnectionLeakDetectorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ConnectionLeakDetectionProperties properties = new ConnectionLeakDetectionProperties();
+    // detector references connections weakly
+    private final List<Connection> trackedConnections = new ArrayList<>();
+
+    {
+        properties.setThreshold(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testConnectionIsRemovedOnClose() throws Exception {
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(properties, clock::get, false);
+        Connection delegate = mock(Connection.class);
+
+        Connection connection = detector.track("dataSource", delegate);
+        assertThat(detector.getOutstandingConnections()).containsOnlyKeys("dataSource");
+
+        connection.close();
+        verify(delegate).close();
+        assertThat(detector.getOutstandingConnections()).isEmpty();
+    }
+
+    @Test
+    void testStackTraceIsNotCapturedByDefault() {
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(properties, clock::get, false);
+
+        track(detector);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        detector.detectLeaks();
+
+        OutstandingConnection connection = detector.getOutstandingConnections().get("dataSource").get(0);
+        assertThat(connection.isLeaked()).isFalse();
+        assertThat(connection.getHeldMillis()).isEqualTo(5000);
+        assertThat(connection.getThread()).isEqualTo(Thread.currentThread().getName());
+        assertThat(connection.getAcquisitionStackTrace()).isNull();
+        assertThat(connection.getHolderStackTrace()).isNull();
+    }
+
+    @Test
+    void testLeakCapturesHolderStackTraceAndEnablesCapturing() {
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(properties, clock::get, false);
+
+        track(detector);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        detector.detectLeaks();
+
+        OutstandingConnection leaked = detector.getOutstandingConnections().get("dataSource").get(0);
+        assertThat(leaked.isLeaked()).isTrue();
+        assertThat(leaked.getAcquisitionStackTrace()).isNull();
+        assertThat(leaked.getHolderStackTrace()).isNotEmpty();
+        assertThat(detector.isCaptureStackTraces()).isTrue();
+
+        track(detector);
+
+        List<OutstandingConnection> connections = detector.getOutstandingConnections().get("dataSource");
+        assertThat(connections).hasSize(2);
+        assertThat(connections.get(1).isLeaked()).isFalse();
+        assertThat(connections.get(1).getAcquisitionStackTrace())
+                .anyMatch(element -> element.contains(ConnectionLeakDetectorTest.class.getName()));
+    }
+
+    @Test
+    void testCapturingIsNotEnabledOnLeakIfDisabled() {
+        properties.setCaptureStackTracesOnLeak(false);
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(properties, clock::get, false);
+
+        track(detector);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        detector.detectLeaks();
+
+        assertThat(detector.getOutstandingConnections().get("dataSource").get(0).isLeaked()).isTrue();
+        assertThat(detector.isCaptureStackTraces()).isFalse();
+    }
+
+    @Test
+    void testGarbageCollectedConnectionIsRemoved() throws Exception {
+        ConnectionLeakDetector detector = new ConnectionLeakDetector(properties, clock::get, false);
+
+        detector.track("dataSource", mock(Connection.class));
+        for (int i = 0; i < 50 && !detector.getOutstandingConnections().isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(detector.getOutstandingConnections()).isEmpty();
+    }
+
+    private void track(ConnectionLeakDetector detector) {
+        trackedConnections.add(detector.track("dataSource", mock(Connection.class)));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncQueryLoggerTest {
+
+    private AsyncQueryLogger asyncQueryLogger;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncQueryLogger.destroy();
+    }
+
+    @Test
+    void shouldLogQueryWithMdcOfCallingThread() throws Exception {
+        DataSourceProxyProperties properties = new DataSourceProxyProperties();
+        properties.getQuery().setLogLevel("ERROR");
+        asyncQueryLogger = new AsyncQueryLogger(properties);
+        CompletableFuture<String> loggedTraceId = new CompletableFuture<>();
+        QueryExecutionListener listener = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                loggedTraceId.complete(MDC.get("traceId"));
+            }
+        };
+
+        MDC.put("traceId", "4bf92f3577b34da6");
+        try {
+            asyncQueryLogger.enqueue(listener, new ExecutionInfo(), List.of(new QueryInfo("SELECT 1")));
+        }
+        finally {
+            MDC.remove("traceId");
+        }
+
+        assertThat(loggedTraceId.get(5, TimeUnit.SECONDS)).isEqualTo("4bf92f3577b34da6");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingFormatQueryCallbackTest {
+
+    private final AtomicInteger formatted = new AtomicInteger();
+
+    private String format(String query) {
+        formatted.incrementAndGet();
+        return query.toUpperCase();
+    }
+
+    @Test
+    void shouldFormatRepeatedQueryOnce() {
+        CachingFormatQueryCallback callback = new CachingFormatQueryCallback(this::format, 10, 100);
+
+        assertThat(callback.format("select 1")).isEqualTo("SELECT 1");
+        assertThat(callback.format("select 1")).isEqualTo("SELECT 1");
+        assertThat(callback.format("select 1")).isEqualTo("SELECT 1");
+
+        assertThat(formatted).hasValue(1);
+        assertThat(callback.getMissCount()).isEqualTo(1);
+        assertThat(callback.getHitCount()).isEqualTo(2);
+        assertThat(callback.getEvictionCount()).isZero();
+    }
+
+    @Test
+    void shouldEvictQueriesOverCacheSize() {
+        CachingFormatQueryCallback callback = new CachingFormatQueryCallback(this::format, 2, 100);
+
+        callback.format("select 1");
+        callback.format("select 2");
+        callback.format("select 3");
+
+        assertThat(formatted).hasValue(3);
+        assertThat(callback.getSize()).isEqualTo(2);
+        assertThat(callback.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheLongQueries() {
+        CachingFormatQueryCallback callback = new CachingFormatQueryCallback(this::format, 10, 5);
+
+        callback.format("select 1");
+        callback.format("select 1");
+
+        assertThat(formatted).hasValue(2);
+        assertThat(callback.getSize()).isZero();
+    }
+
+    @Test
+    void shouldNotWrapWhenCacheIsDisabled() {
+        DataSourceProxyProperties.FormatSqlCache formatSqlCache = new DataSourceProxyProperties.FormatSqlCache();
+        formatSqlCache.setSize(0);
+
+        assertThat(CachingFormatQueryCallback.wrap(this::format, formatSqlCache)).isNotInstanceOf(CachingFormatQueryCallback.class);
+    }
+}
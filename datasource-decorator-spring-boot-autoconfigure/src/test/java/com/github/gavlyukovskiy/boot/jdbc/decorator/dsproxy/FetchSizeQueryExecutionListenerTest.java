@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+class FetchSizeQueryExecutionListenerTest {
+
+    private static final String QUERY = "SELECT id FROM t WHERE id > 0";
+
+    private final FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(new FetchSizeProperties());
+    private final FetchSizeQueryExecutionListener listener = new FetchSizeQueryExecutionListener(fetchSizeTuner);
+    private final Statement statement = Mockito.mock(Statement.class);
+
+    @Test
+    void testLearnedFetchSizeAppliedToDriverDefault() throws Exception {
+        learnFetchSize(50);
+        Mockito.when(statement.getFetchSize()).thenReturn(0);
+
+        listener.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+
+        Mockito.verify(statement).setFetchSize(51);
+    }
+
+    @Test
+    void testFetchSizeOfApplicationIsKept() throws Exception {
+        learnFetchSize(50);
+        // MySQL streaming result set
+        Mockito.when(statement.getFetchSize()).thenReturn(Integer.MIN_VALUE, 5);
+
+        listener.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+        listener.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+
+        Mockito.verify(statement, Mockito.never()).setFetchSize(Mockito.anyInt());
+    }
+
+    private void learnFetchSize(long rows) {
+        fetchSizeTuner.onRowsConsumed("dataSource", QUERY, rows);
+    }
+
+    private ExecutionInfo executionInfo(String methodName) throws SQLException, NoSuchMethodException {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setDataSourceName("dataSource");
+        executionInfo.setStatement(statement);
+        executionInfo.setMethod(Statement.class.getMethod(methodName, String.class));
+        return executionInfo;
+    }
+}
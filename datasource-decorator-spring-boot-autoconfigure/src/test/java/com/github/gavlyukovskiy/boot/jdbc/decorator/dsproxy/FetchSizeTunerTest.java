@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchSizeTunerTest {
+
+    private final FetchSizeProperties fetchSize = new FetchSizeProperties();
+
+    @Test
+    void testFetchSizeIsLearnedPerFingerprint() {
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(fetchSize);
+
+        assertThat(fetchSizeTuner.beforeQuery("ds", "select * from t where id > 1")).isZero();
+        fetchSizeTuner.onRowsConsumed("ds", "select * from t where id > 1", 499);
+
+        assertThat(fetchSizeTuner.beforeQuery("ds", "select * from t where id > 2")).isEqualTo(500);
+        assertThat(fetchSizeTuner.getFetchSize("other", "select * from t where id > 2")).isZero();
+    }
+
+    @Test
+    void testFetchSizeIgnoresOutliers() {
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(fetchSize);
+
+        record(fetchSizeTuner, "select * from t", 900);
+        for (int i = 0; i < FetchSizeTuner.SAMPLES - 1; i++) {
+            record(fetchSizeTuner, "select * from t", 50);
+        }
+
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from t")).isEqualTo(51);
+    }
+
+    @Test
+    void testFetchSizeIsLimited() {
+        fetchSize.setMin(20);
+        fetchSize.setMax(100);
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(fetchSize);
+
+        record(fetchSizeTuner, "select * from small", 1);
+        record(fetchSizeTuner, "select * from large", 100_000);
+
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from small")).isEqualTo(20);
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from large")).isEqualTo(100);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedQuery() {
+        fetchSize.setMaxQueries(2);
+        AtomicLong nanoTime = new AtomicLong();
+        FetchSizeTuner fetchSizeTuner = new FetchSizeTuner(fetchSize, nanoTime::incrementAndGet);
+
+        record(fetchSizeTuner, "select * from a", 100);
+        record(fetchSizeTuner, "select * from b", 100);
+        record(fetchSizeTuner, "select * from a", 100);
+        record(fetchSizeTuner, "select * from c", 100);
+
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from a")).isEqualTo(101);
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from b")).isZero();
+        assertThat(fetchSizeTuner.getFetchSize("ds", "select * from c")).isEqualTo(101);
+    }
+
+    private static void record(FetchSizeTuner fetchSizeTuner, String sql, long rows) {
+        fetchSizeTuner.beforeQuery("ds", sql);
+        fetchSizeTuner.onRowsConsumed("ds", sql, rows);
+    }
+}
@@ -17,12 +17,23 @@
 package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
 
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorProperties;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.HidePackagesClassLoader;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryMetrics;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.QueryStatisticsEndpoint;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.metrics.StatementSummary;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.ttddyy.dsproxy.ExecutionInfo;
 import net.ttddyy.dsproxy.QueryInfo;
 import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryCountStrategy;
 import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import net.ttddyy.dsproxy.listener.ThreadQueryCountHolder;
 import net.ttddyy.dsproxy.listener.logging.AbstractQueryLoggingListener;
 import net.ttddyy.dsproxy.listener.logging.CommonsQueryLoggingListener;
 import net.ttddyy.dsproxy.listener.logging.CommonsSlowQueryListener;
@@ -35,6 +46,8 @@ import net.ttddyy.dsproxy.listener.logging.SystemOutQueryLoggingListener;
 import net.ttddyy.dsproxy.listener.logging.SystemOutSlowQueryListener;
 import net.ttddyy.dsproxy.proxy.DefaultConnectionIdManager;
 import net.ttddyy.dsproxy.proxy.GlobalConnectionIdManager;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogicFactory;
 import net.ttddyy.dsproxy.support.ProxyDataSource;
 import net.ttddyy.dsproxy.transform.ParameterTransformer;
 import net.ttddyy.dsproxy.transform.QueryTransformer;
@@ -43,15 +56,21 @@ import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
 import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ProxyDataSourceConfigurationTests {
 
@@ -138,6 +157,307 @@ class ProxyDataSourceConfigurationTests {
         });
     }
 
+    @Test
+    void testRegisterAsyncLogAndSlowQueryLogUsingSlf4j() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.datasource-proxy.logging:async");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ProxyDataSource proxyDataSource = (ProxyDataSource) ((DecoratedDataSource) dataSource).getDecoratedDataSource();
+            ChainListener chainListener = proxyDataSource.getProxyConfig().getQueryListener();
+            assertThat(chainListener.getListeners()).hasExactlyElementsOfTypes(
+                    AsyncQueryLogger.AsyncQueryLoggingListener.class,
+                    SLF4JSlowQueryListener.class
+            );
+            var asyncListener = findListener(proxyDataSource, AsyncQueryLogger.AsyncQueryLoggingListener.class);
+            assertThat(asyncListener.getDelegate()).isInstanceOf(SLF4JQueryLoggingListener.class);
+
+            try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+            }
+            assertThat(context.getBean(AsyncQueryLogger.class).getDroppedQueries()).isZero();
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.get(AsyncQueryLoggerMetrics.DROPPED_QUERIES_METRIC_NAME).functionCounter().count()).isZero();
+        });
+    }
+
+    @Test
+    void testNoAsyncQueryLoggerByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(AsyncQueryLogger.class));
+    }
+
+    @Test
+    void testQueryLoggingOverriddenForSpecificBean() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.datasource-proxy.query.enable-logging:false",
+                "decorator.datasource.beans.dataSource.datasource-proxy.query.enable-logging:true",
+                "decorator.datasource.beans.dataSource.datasource-proxy.slow-query.threshold:1s");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            ProxyDataSource proxyDataSource = (ProxyDataSource) ((DecoratedDataSource) dataSource).getDecoratedDataSource();
+            ChainListener chainListener = proxyDataSource.getProxyConfig().getQueryListener();
+            assertThat(chainListener.getListeners()).hasExactlyElementsOfTypes(
+                    SLF4JQueryLoggingListener.class,
+                    SLF4JSlowQueryListener.class
+            );
+            var slowQueryListener = findListener(proxyDataSource, SLF4JSlowQueryListener.class);
+            assertThat(slowQueryListener.getThreshold()).isEqualTo(1000);
+            assertThat(slowQueryListener.getThresholdTimeUnit()).isEqualTo(TimeUnit.MILLISECONDS);
+
+            DataSourceProxyProperties datasourceProxy = context.getBean(DataSourceDecoratorProperties.class).getDatasourceProxy();
+            assertThat(datasourceProxy.getQuery().isEnableLogging()).isFalse();
+            assertThat(datasourceProxy.getSlowQuery().getThresholdDuration()).hasSeconds(300);
+        });
+    }
+
+    @Test
+    void testDataSourceProxyDisabledForSpecificBean() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.beans.dataSource.datasource-proxy.enabled:false");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(dataSource).isInstanceOf(HikariDataSource.class);
+        });
+    }
+
+    @Test
+    void testRecordsQueryMetricsByFingerprint() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.query-metrics.enabled:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+                statement.execute("SELECT 2");
+            }
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            Timer timer = meterRegistry.get("jdbc.query")
+                    .tag("datasource", "dataSource")
+                    .tag("query", "SELECT ?")
+                    .timer();
+            assertThat(timer.count()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedQueryMetrics() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.query-metrics.enabled:true",
+                        "decorator.datasource.query-metrics.max-queries:2");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+                statement.execute("SELECT 1");
+                statement.execute("SELECT 1 + 1");
+                statement.execute("SELECT 1 + 1 + 1");
+            }
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.find("jdbc.query").timers()).extracting(timer -> timer.getId().getTag("query"))
+                    .containsExactlyInAnyOrder("SELECT ? + ?", "SELECT ? + ? + ?");
+            assertThat(context.getBean(QueryMetrics.class).getTimerCount()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void testQueryStatisticsEndpoint() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.query-statistics.enabled:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE t (id INT)");
+                statement.executeUpdate("INSERT INTO t VALUES (1), (2)");
+                statement.executeUpdate("INSERT INTO t VALUES (3)");
+                try (var resultSet = statement.executeQuery("SELECT id FROM t WHERE id > 1")) {
+                    while (resultSet.next()) {
+                        // consume all rows
+                    }
+                }
+            }
+            QueryStatisticsEndpoint endpoint = context.getBean(QueryStatisticsEndpoint.class);
+            List<StatementSummary> statements = endpoint.queries().getDataSources().get("dataSource");
+            assertThat(statements).extracting(StatementSummary::getQuery)
+                    .containsExactlyInAnyOrder("CREATE TABLE t (id INT)", "INSERT INTO t VALUES (?)", "SELECT id FROM t WHERE id > ?");
+            StatementSummary insert = statements.stream()
+                    .filter(summary -> summary.getQuery().startsWith("INSERT"))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(insert.getCalls()).isEqualTo(2);
+            assertThat(insert.getRows()).isEqualTo(3);
+            StatementSummary select = statements.stream()
+                    .filter(summary -> summary.getQuery().startsWith("SELECT"))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(select.getCalls()).isEqualTo(1);
+            assertThat(select.getRows()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void testFetchSizeLearnedFromConsumedRows() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.fetch-size.enabled:true",
+                        "decorator.datasource.fetch-size.min:200");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            FetchSizeTuner fetchSizeTuner = context.getBean(FetchSizeTuner.class);
+            try (var connection = dataSource.getConnection()) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("CREATE TABLE t (id INT)");
+                    statement.executeUpdate("INSERT INTO t VALUES (1), (2), (3)");
+                }
+                assertThat(fetchSizeTuner.getFetchSize("dataSource", "SELECT id FROM t WHERE id > 0")).isZero();
+                try (var statement = connection.prepareStatement("SELECT id FROM t WHERE id > 0");
+                     var resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        // consume all rows
+                    }
+                }
+                try (var statement = connection.prepareStatement("SELECT id FROM t WHERE id > 1")) {
+                    statement.setFetchSize(5);
+                    try (var resultSet = statement.executeQuery()) {
+                        // fetch size set by the application is kept
+                        assertThat(statement.getFetchSize()).isEqualTo(5);
+                    }
+                }
+            }
+            assertThat(fetchSizeTuner.getFetchSize("dataSource", "SELECT id FROM t WHERE id > 0")).isEqualTo(200);
+        });
+    }
+
+    @Test
+    void testFetchSizeNotLearnedWithCustomResultSetProxyLogicFactory() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.fetch-size.enabled:true")
+                .withBean(ResultSetProxyLogicFactory.class, SimpleResultSetProxyLogicFactory::new);
+
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(FetchSizeTuner.class);
+        });
+    }
+
+    @Test
+    void testRepeatedQueryThrowsExceptionWithinScope() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.datasource-proxy.repeated-query.enabled:true",
+                        "decorator.datasource.datasource-proxy.repeated-query.threshold:2",
+                        "decorator.datasource.datasource-proxy.repeated-query.throw-exception:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+                // not counted outside of scope
+                for (int i = 0; i < 3; i++) {
+                    statement.execute("SELECT " + i);
+                }
+                RepeatedQueryListener.beginScope();
+                try {
+                    statement.execute("SELECT 1");
+                    statement.execute("SELECT 2");
+                    assertThatThrownBy(() -> statement.execute("SELECT 3"))
+                            .isInstanceOf(IllegalStateException.class)
+                            .hasMessageContaining("SELECT ?");
+                }
+                finally {
+                    RepeatedQueryListener.endScope();
+                }
+                // counters are reset at the end of scope
+                RepeatedQueryListener.beginScope();
+                try {
+                    statement.execute("SELECT 1");
+                    statement.execute("SELECT 2");
+                }
+                finally {
+                    RepeatedQueryListener.endScope();
+                }
+            }
+        });
+    }
+
+    @Test
+    void testRepeatedQueryReportedAtTheEndOfTransaction() {
+        List<String> repeatedQueries = new ArrayList<>();
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(RepeatedQueryHandler.class, () -> (dataSourceName, query, count) -> repeatedQueries.add(dataSourceName + ":" + query + ":" + count))
+                .withPropertyValues("decorator.datasource.datasource-proxy.repeated-query.enabled:true",
+                        "decorator.datasource.datasource-proxy.repeated-query.threshold:2");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < 5; i++) {
+                    jdbcTemplate.queryForObject("SELECT " + i, Integer.class);
+                }
+                assertThat(repeatedQueries).isEmpty();
+            });
+            assertThat(repeatedQueries).containsExactly("dataSource:SELECT ?:5");
+        });
+    }
+
+    @Test
+    void testThreadQueryCountStrategy() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.datasource-proxy.count-query:true",
+                        "decorator.datasource.datasource-proxy.count-query-strategy:thread");
+
+        contextRunner.run(context -> assertThat(context.getBean(QueryCountStrategy.class)).isInstanceOf(ThreadQueryCountHolder.class));
+    }
+
+    @Test
+    void testRequestQueryCountImpliesThreadQueryCountStrategy() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.datasource-proxy.count-query:true",
+                        "decorator.datasource.datasource-proxy.request-query-count.enabled:true");
+
+        contextRunner.run(context -> {
+            assertThat(context.getBean(QueryCountStrategy.class)).isInstanceOf(ThreadQueryCountHolder.class);
+            // not a web application
+            assertThat(context).doesNotHaveBean(QueryCountFilter.class);
+        });
+    }
+
+    @Test
+    void testRequestQueryCountFilterUsesQueryCountStrategy() {
+        WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(
+                        DataSourceAutoConfiguration.class,
+                        DataSourceDecoratorAutoConfiguration.class,
+                        PropertyPlaceholderAutoConfiguration.class
+                ))
+                .withPropertyValues("spring.sql.init.mode=never",
+                        "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt(),
+                        "decorator.datasource.datasource-proxy.count-query:true",
+                        "decorator.datasource.datasource-proxy.request-query-count.enabled:true")
+                .withClassLoader(new HidePackagesClassLoader("com.vladmihalcea.flexypool", "com.p6spy"));
+
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(QueryCountFilter.class);
+            assertThat(context.getBean(QueryCountFilter.class))
+                    .extracting("queryCountHolder")
+                    .isSameAs(context.getBean(QueryCountStrategy.class));
+        });
+        contextRunner.withUserConfiguration(CustomQueryCountStrategyConfiguration.class).run(context -> {
+            assertThat(context).hasFailed();
+            assertThat(context.getStartupFailure())
+                    .rootCause()
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("ThreadQueryCountHolder");
+        });
+    }
+
     @Test
     void testSlowQueryWithoutTimeUnit() {
         ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
@@ -288,4 +608,13 @@ class ProxyDataSourceConfigurationTests {
             return (execInfo, queryInfoList) -> true;
         }
     }
+
+    @Configuration(proxyBeanMethods = false)
+    static class CustomQueryCountStrategyConfiguration {
+
+        @Bean
+        public QueryCountStrategy queryCountStrategy() {
+            return new SingleQueryCountHolder();
+        }
+    }
 }
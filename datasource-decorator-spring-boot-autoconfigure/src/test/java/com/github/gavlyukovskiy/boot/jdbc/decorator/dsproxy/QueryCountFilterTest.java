@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import jakarta.servlet.FilterChain;
+import net.ttddyy.dsproxy.listener.ThreadQueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCountFilterTest {
+
+    private final ThreadQueryCountHolder queryCountHolder = new ThreadQueryCountHolder();
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt() + ";DB_CLOSE_DELAY=-1");
+        dataSource = ProxyDataSourceBuilder.create(h2DataSource)
+                .name("dataSource")
+                .countQuery(queryCountHolder)
+                .build();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (id INT)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        queryCountHolder.clear();
+    }
+
+    @Test
+    void shouldAddHeadersWhenResponseIsWritten() throws Exception {
+        QueryCountFilter filter = new QueryCountFilter(queryCountHolder, true, false, List.of());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response, executeQueries());
+
+        assertThat(response.getHeader(QueryCountFilter.QUERY_COUNT_HEADER)).isEqualTo("3");
+        assertThat(response.getHeader(QueryCountFilter.QUERY_COUNT_SELECT_HEADER)).isEqualTo("2");
+        assertThat(response.getHeader(QueryCountFilter.QUERY_COUNT_INSERT_HEADER)).isEqualTo("1");
+        assertThat(response.getHeader(QueryCountFilter.QUERY_COUNT_UPDATE_HEADER)).isEqualTo("0");
+        assertThat(response.getHeader(QueryCountFilter.QUERY_COUNT_DELETE_HEADER)).isEqualTo("0");
+        assertThat(response.getHeader(QueryCountFilter.QUERY_TIME_HEADER)).isNotNull();
+        assertThat(response.getContentAsString()).isEqualTo("ok");
+    }
+
+    @Test
+    void shouldNotAddHeadersByDefault() throws Exception {
+        QueryCountFilter filter = new QueryCountFilter(queryCountHolder, false, false, List.of());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), response, executeQueries());
+
+        assertThat(response.getHeaderNames()).doesNotContain(QueryCountFilter.QUERY_COUNT_HEADER);
+    }
+
+    @Test
+    void shouldReportQueriesOfEachRequest() throws Exception {
+        List<String> reports = new ArrayList<>();
+        QueryCountReporter reporter = (request, queryCount) -> reports.add(request.getRequestURI()
+                + " select:" + queryCount.getSelect()
+                + " insert:" + queryCount.getInsert()
+                + " mdc:" + MDC.get(QueryCountFilter.QUERY_COUNT_MDC_KEY));
+        QueryCountFilter filter = new QueryCountFilter(queryCountHolder, false, true, List.of(reporter));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/first"), new MockHttpServletResponse(), executeQueries());
+        filter.doFilter(new MockHttpServletRequest("GET", "/second"), new MockHttpServletResponse(), executeQueries());
+
+        assertThat(reports).containsExactly(
+                "/first select:2 insert:1 mdc:3",
+                "/second select:2 insert:1 mdc:3"
+        );
+        assertThat(MDC.get(QueryCountFilter.QUERY_COUNT_MDC_KEY)).isNull();
+        assertThat(queryCountHolder.getQueryCountMap()).isEmpty();
+    }
+
+    @Test
+    void shouldExposeCountersAsRequestAttributes() throws Exception {
+        QueryCountFilter filter = new QueryCountFilter(queryCountHolder, false, false, List.of());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+
+        filter.doFilter(request, new MockHttpServletResponse(), executeQueries());
+
+        assertThat(request.getAttribute(QueryCountFilter.QUERY_COUNT_ATTRIBUTE)).isEqualTo(3);
+        assertThat(request.getAttribute(QueryCountFilter.QUERY_TIME_ATTRIBUTE)).isInstanceOf(Long.class);
+    }
+
+    private FilterChain executeQueries() {
+        return (request, response) -> {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT * FROM t").close();
+                statement.executeUpdate("INSERT INTO t VALUES (1)");
+                statement.executeQuery("SELECT * FROM t").close();
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            response.getWriter().write("ok");
+        };
+    }
+}
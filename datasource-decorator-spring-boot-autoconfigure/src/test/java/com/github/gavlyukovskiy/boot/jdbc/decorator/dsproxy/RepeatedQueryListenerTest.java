@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepeatedQueryListenerTest {
+
+    private final List<String> repeatedQueries = new ArrayList<>();
+    private final RepeatedQueryListener listener = new RepeatedQueryListener(2, false,
+            List.of((dataSourceName, query, count) -> repeatedQueries.add(query + ":" + count)));
+
+    @Test
+    void shouldReportQueriesExceedingThresholdAtTheEndOfOutermostScope() {
+        RepeatedQueryListener.beginScope();
+        RepeatedQueryListener.beginScope();
+        for (int i = 0; i < 3; i++) {
+            execute("SELECT * FROM users WHERE id = " + i);
+            execute("SELECT * FROM orders WHERE id = " + (i % 2));
+        }
+        execute("SELECT * FROM users WHERE id = 42");
+        RepeatedQueryListener.endScope();
+        assertThat(repeatedQueries).isEmpty();
+
+        RepeatedQueryListener.endScope();
+        assertThat(repeatedQueries).containsExactlyInAnyOrder(
+                "SELECT * FROM users WHERE id = ?:4",
+                "SELECT * FROM orders WHERE id = ?:3"
+        );
+    }
+
+    @Test
+    void shouldTrackManyDistinctQueries() {
+        RepeatedQueryListener.beginScope();
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < (i % 2 == 0 ? 3 : 1); j++) {
+                execute("SELECT * FROM table" + i);
+            }
+        }
+        RepeatedQueryListener.endScope();
+
+        assertThat(repeatedQueries).hasSize(100).allMatch(query -> query.endsWith(":3"));
+    }
+
+    @Test
+    void shouldIgnoreQueriesOutsideOfScope() {
+        for (int i = 0; i < 5; i++) {
+            execute("SELECT 1");
+        }
+        RepeatedQueryListener.endScope();
+
+        assertThat(repeatedQueries).isEmpty();
+    }
+
+    private void execute(String query) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setDataSourceName("dataSource");
+        listener.afterQuery(executionInfo, List.of(new QueryInfo(query)));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.dsproxy;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowCountingResultSetProxyLogicFactoryTest {
+
+    private static final String QUERY = "SELECT id FROM t WHERE id > 0";
+
+    private final List<String> consumed = new ArrayList<>();
+    private final RowCountingResultSetProxyLogicFactory factory = new RowCountingResultSetProxyLogicFactory(
+            List.of((dataSourceName, query, rows) -> consumed.add(dataSourceName + ":" + query + ":" + rows)));
+    private final ResultSet resultSet = Mockito.mock(ResultSet.class);
+
+    @Test
+    void testRowsReportedOnceWhenResultSetIsExhausted() throws Throwable {
+        Mockito.when(resultSet.next()).thenReturn(true, true, false);
+        factory.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+
+        ResultSetProxyLogic logic = createLogic();
+        while ((Boolean) logic.invoke(ResultSet.class.getMethod("next"), null)) {
+            // consume all rows
+        }
+        logic.invoke(ResultSet.class.getMethod("close"), null);
+
+        assertThat(consumed).containsExactly("dataSource:" + QUERY + ":2");
+    }
+
+    @Test
+    void testRowsReportedWhenResultSetIsClosed() throws Throwable {
+        Mockito.when(resultSet.next()).thenReturn(true);
+        factory.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+
+        ResultSetProxyLogic logic = createLogic();
+        logic.invoke(ResultSet.class.getMethod("next"), null);
+        logic.invoke(ResultSet.class.getMethod("close"), null);
+
+        assertThat(consumed).containsExactly("dataSource:" + QUERY + ":1");
+    }
+
+    @Test
+    void testQueryDiscardedWhenNoResultSetIsCreated() throws Throwable {
+        ExecutionInfo execute = executionInfo("execute");
+        factory.beforeQuery(execute, List.of(new QueryInfo(QUERY)));
+        execute.setSuccess(true);
+        execute.setResult(false);
+        factory.afterQuery(execute, List.of(new QueryInfo(QUERY)));
+        closeResultSet();
+
+        ExecutionInfo failed = executionInfo("executeQuery");
+        factory.beforeQuery(failed, List.of(new QueryInfo(QUERY)));
+        failed.setSuccess(false);
+        factory.afterQuery(failed, List.of(new QueryInfo(QUERY)));
+        closeResultSet();
+
+        assertThat(consumed).isEmpty();
+    }
+
+    @Test
+    void testQueryKeptForResultSetOfExecute() throws Throwable {
+        ExecutionInfo execute = executionInfo("execute");
+        factory.beforeQuery(execute, List.of(new QueryInfo(QUERY)));
+        execute.setSuccess(true);
+        execute.setResult(true);
+        factory.afterQuery(execute, List.of(new QueryInfo(QUERY)));
+        closeResultSet();
+
+        assertThat(consumed).containsExactly("dataSource:" + QUERY + ":0");
+    }
+
+    @Test
+    void testQueryDiscardedByUpdate() throws Throwable {
+        factory.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+        factory.beforeQuery(executionInfo("executeUpdate"), List.of(new QueryInfo("INSERT INTO t VALUES (1)")));
+        // generated keys
+        closeResultSet();
+
+        assertThat(consumed).isEmpty();
+    }
+
+    @Test
+    void testQueryIsTakenByFirstResultSet() throws Throwable {
+        factory.beforeQuery(executionInfo("executeQuery"), List.of(new QueryInfo(QUERY)));
+        closeResultSet();
+        closeResultSet();
+
+        assertThat(consumed).containsExactly("dataSource:" + QUERY + ":0");
+    }
+
+    private ResultSetProxyLogic createLogic() {
+        return factory.create(resultSet, new ConnectionInfo(), ProxyConfig.Builder.create().build());
+    }
+
+    private void closeResultSet() throws Throwable {
+        createLogic().invoke(ResultSet.class.getMethod("close"), null);
+    }
+
+    private static ExecutionInfo executionInfo(String methodName) throws NoSuchMethodException {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setDataSourceName("dataSource");
+        executionInfo.setMethod(Statement.class.getMethod(methodName, String.class));
+        return executionInfo;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveSlowQueryThresholdTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void shouldUseMaxThresholdUntilEnoughSamples() {
+        AdaptiveSlowQueryThreshold threshold = threshold(Duration.ofMillis(1));
+
+        for (int i = 0; i < 99; i++) {
+            assertThat(threshold.record("SELECT 1", millis(1))).isGreaterThan(millis(1));
+        }
+        // threshold used for this execution is calculated before it is recorded
+        assertThat(threshold.record("SELECT 1", millis(500))).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(threshold.record("SELECT 1", millis(1000))).isLessThanOrEqualTo(millis(1000));
+    }
+
+    @Test
+    void shouldDeriveThresholdFromPercentile() {
+        AdaptiveSlowQueryThreshold threshold = threshold(Duration.ofMillis(1));
+
+        for (int i = 0; i < 100; i++) {
+            threshold.record("SELECT " + i, millis(1));
+        }
+
+        assertThat(threshold.record("SELECT 1", millis(2))).isGreaterThan(millis(2));
+        assertThat(threshold.getThresholdNanos("SELECT 1")).isBetween(millis(3), millis(4));
+        assertThat(threshold.record("SELECT 1", millis(5))).isLessThanOrEqualTo(millis(5));
+        // other queries are not affected
+        assertThat(threshold.record("SELECT * FROM users", millis(5))).isGreaterThan(millis(5));
+    }
+
+    @Test
+    void shouldNotGoBelowMinThreshold() {
+        AdaptiveSlowQueryThreshold threshold = threshold(Duration.ofMillis(10));
+
+        for (int i = 0; i < 100; i++) {
+            threshold.record("SELECT 1", millis(1));
+        }
+
+        assertThat(threshold.record("SELECT 1", millis(5))).isGreaterThan(millis(5));
+        assertThat(threshold.getThresholdNanos("SELECT 1")).isEqualTo(millis(10));
+        assertThat(threshold.record("SELECT 1", millis(10))).isLessThanOrEqualTo(millis(10));
+    }
+
+    @Test
+    void shouldForgetExecutionsOutsideOfWindow() {
+        AdaptiveSlowQueryThreshold threshold = threshold(Duration.ofMillis(1));
+
+        for (int i = 0; i < 100; i++) {
+            threshold.record("SELECT 1", millis(1));
+        }
+        assertThat(threshold.record("SELECT 1", millis(5))).isLessThanOrEqualTo(millis(5));
+
+        clock.set(TimeUnit.MINUTES.toNanos(1));
+        assertThat(threshold.record("SELECT 1", millis(5))).isGreaterThan(millis(5));
+        assertThat(threshold.getThresholdNanos("SELECT 1")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private AdaptiveSlowQueryThreshold threshold(Duration minThreshold) {
+        return new AdaptiveSlowQueryThreshold(3.0, 100, minThreshold, Duration.ofSeconds(1), Duration.ofMinutes(1), 100, clock::get);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionMetricsConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedByDefault() {
+        contextRunner.withBean(SimpleMeterRegistry.class).run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(ConnectionMetricsDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratedAfterFlexyPool() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.connection-metrics.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, ConnectionMetricsDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testRecordsAcquisitionAndLeaseTime() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.connection-metrics.enabled:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            Connection connection = dataSource.getConnection();
+            assertThat(meterRegistry.get(ConnectionMetricsDataSource.ACQUISITION_METRIC_NAME)
+                    .tag("datasource", "dataSource")
+                    .tag("outcome", "success")
+                    .timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get(ConnectionMetricsDataSource.LEASE_METRIC_NAME).timer().count()).isZero();
+
+            connection.close();
+            // closing twice is recorded once
+            connection.close();
+            assertThat(meterRegistry.get(ConnectionMetricsDataSource.LEASE_METRIC_NAME)
+                    .tag("datasource", "dataSource")
+                    .timer().count()).isEqualTo(1);
+        });
+    }
+}
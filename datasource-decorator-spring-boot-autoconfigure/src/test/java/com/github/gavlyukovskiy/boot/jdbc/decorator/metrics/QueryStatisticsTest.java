@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatisticsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final QueryStatisticsProperties properties = new QueryStatisticsProperties();
+
+    @BeforeEach
+    void setUp() {
+        properties.setWindow(Duration.ofSeconds(5));
+        properties.setWindowSlices(5);
+    }
+
+    @Test
+    void shouldSortByTotalTime() {
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            queryStatistics.record("dataSource", "SELECT " + i, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        queryStatistics.record("dataSource", "SELECT * FROM a WHERE x = 2", TimeUnit.MILLISECONDS.toNanos(100));
+        queryStatistics.recordRows("dataSource", "SELECT * FROM a WHERE x = 3", 5);
+
+        List<StatementSummary> statements = queryStatistics.getTopStatements(10).get("dataSource");
+        assertThat(statements).extracting(StatementSummary::getQuery)
+                .containsExactly("SELECT * FROM a WHERE x = ?", "SELECT ?");
+        assertThat(statements.get(0).getCalls()).isEqualTo(1);
+        assertThat(statements.get(0).getRows()).isEqualTo(5);
+        assertThat(statements.get(1).getCalls()).isEqualTo(3);
+        assertThat(statements.get(1).getTotalTime()).isEqualTo(30.0);
+        assertThat(statements.get(1).getMeanTime()).isEqualTo(10.0);
+    }
+
+    @Test
+    void shouldLimitNumberOfReportedStatements() {
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        queryStatistics.record("dataSource", "SELECT 1", 1);
+        queryStatistics.record("dataSource", "SELECT 1 + 1", 2);
+        queryStatistics.record("dataSource", "SELECT 1 + 1 + 1", 3);
+
+        assertThat(queryStatistics.getTopStatements(2).get("dataSource")).extracting(StatementSummary::getQuery)
+                .containsExactly("SELECT ? + ? + ?", "SELECT ? + ?");
+    }
+
+    @Test
+    void shouldSeparateDataSources() {
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        queryStatistics.record("dataSource2", "SELECT 1", 1);
+        queryStatistics.record("dataSource1", "SELECT 1", 1);
+
+        assertThat(queryStatistics.getTopStatements(10)).containsOnlyKeys("dataSource1", "dataSource2");
+    }
+
+    @Test
+    void shouldReportP99() {
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        for (int i = 0; i < 99; i++) {
+            queryStatistics.record("dataSource", "SELECT 1", TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        queryStatistics.record("dataSource", "SELECT 1", TimeUnit.SECONDS.toNanos(1));
+
+        StatementSummary statement = queryStatistics.getTopStatements(10).get("dataSource").get(0);
+        assertThat(statement.getP99Time()).isBetween(1.0, 1.25);
+    }
+
+    @Test
+    void shouldDiscardStatisticsOutsideOfWindow() {
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        queryStatistics.record("dataSource", "SELECT 1", 1);
+        clock.set(TimeUnit.SECONDS.toNanos(4));
+        queryStatistics.record("dataSource", "SELECT 2", 1);
+
+        assertThat(queryStatistics.getTopStatements(10).get("dataSource").get(0).getCalls()).isEqualTo(2);
+
+        clock.set(TimeUnit.SECONDS.toNanos(5));
+        assertThat(queryStatistics.getTopStatements(10).get("dataSource").get(0).getCalls()).isEqualTo(1);
+
+        clock.set(TimeUnit.SECONDS.toNanos(9));
+        assertThat(queryStatistics.getTopStatements(10).get("dataSource")).isEmpty();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedStatement() {
+        properties.setMaxQueries(2);
+        QueryStatistics queryStatistics = new QueryStatistics(properties, clock::get);
+
+        queryStatistics.record("dataSource", "SELECT 1", 1);
+        clock.incrementAndGet();
+        queryStatistics.record("dataSource", "SELECT 1 + 1", 1);
+        clock.incrementAndGet();
+        queryStatistics.record("dataSource", "SELECT 1", 1);
+        clock.incrementAndGet();
+        queryStatistics.record("dataSource", "SELECT 1 + 1 + 1", 1);
+
+        assertThat(queryStatistics.getTopStatements(10).get("dataSource")).extracting(StatementSummary::getQuery)
+                .containsExactlyInAnyOrder("SELECT ?", "SELECT ? + ? + ?");
+    }
+
+    @Test
+    void bucketUpperBoundShouldCoverValue() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = StatementStatistics.bucket(micros);
+            assertThat(StatementStatistics.bucketUpperBound(bucket)).isGreaterThanOrEqualTo(micros);
+            if (bucket > 0) {
+                assertThat(StatementStatistics.bucketUpperBound(bucket - 1)).isLessThan(micros);
+            }
+        }
+    }
+}
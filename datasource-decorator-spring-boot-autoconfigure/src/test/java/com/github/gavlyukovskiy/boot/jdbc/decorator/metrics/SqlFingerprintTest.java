@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+    @Test
+    void shouldReplaceLiterals() {
+        assertThat(SqlFingerprint.of("SELECT * FROM users WHERE id = 42 AND name = 'O''Brien'"))
+                .isEqualTo("SELECT * FROM users WHERE id = ? AND name = ?");
+    }
+
+    @Test
+    void shouldKeepNumbersInIdentifiers() {
+        assertThat(SqlFingerprint.of("SELECT t1.col2 FROM table1 t1"))
+                .isEqualTo("SELECT t1.col2 FROM table1 t1");
+    }
+
+    @Test
+    void shouldKeepQuotedIdentifiers() {
+        assertThat(SqlFingerprint.of("SELECT \"Column 1\" FROM \"Table\" WHERE a = 1"))
+                .isEqualTo("SELECT \"Column 1\" FROM \"Table\" WHERE a = ?");
+    }
+
+    @Test
+    void shouldCollapseInLists() {
+        assertThat(SqlFingerprint.of("SELECT * FROM users WHERE id IN (1, 2, 3) OR id in(?,?)"))
+                .isEqualTo("SELECT * FROM users WHERE id IN (?) OR id IN (?)");
+    }
+
+    @Test
+    void shouldCollapseMultiRowValues() {
+        assertThat(SqlFingerprint.of("INSERT INTO users (id, name) VALUES (1, 'a'), (2, 'b'), (?, ?)"))
+                .isEqualTo("INSERT INTO users (id, name) VALUES (?, ?)");
+    }
+
+    @Test
+    void shouldRemoveCommentsAndCollapseWhitespace() {
+        assertThat(SqlFingerprint.of("/* hint */ SELECT   *\n\tFROM users -- trailing\n WHERE id = ?;"))
+                .isEqualTo("SELECT * FROM users WHERE id = ?");
+    }
+}
@@ -18,6 +18,7 @@ package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 
 import com.p6spy.engine.event.CompoundJdbcEventListener;
 import com.p6spy.engine.event.SimpleJdbcEventListener;
+import com.p6spy.engine.logging.LoggingEventListener;
 import com.p6spy.engine.spy.JdbcEventListenerFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -58,4 +59,17 @@ class ContextJdbcEventListenerFactoryTest {
         assertThat(jdbcEventListener.getEventListeners()).hasSize(1);
         assertThat(jdbcEventListener.getEventListeners()).contains(listener1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldExcludeLoggingListenerWithoutModifyingDelegate() {
+        SimpleJdbcEventListener listener1 = new SimpleJdbcEventListener() {};
+        CompoundJdbcEventListener delegateListener = new CompoundJdbcEventListener();
+        delegateListener.addListener(LoggingEventListener.INSTANCE);
+        Mockito.when(delegate.createJdbcEventListener()).thenReturn(delegateListener);
+        ContextJdbcEventListenerFactory contextJdbcEventListenerFactory = new ContextJdbcEventListenerFactory(delegate, Collections.singletonList(listener1), listener -> null);
+
+        CompoundJdbcEventListener jdbcEventListener = (CompoundJdbcEventListener) contextJdbcEventListenerFactory.createJdbcEventListener();
+        assertThat(jdbcEventListener.getEventListeners()).containsExactly(listener1);
+        assertThat(delegateListener.getEventListeners()).containsExactly(LoggingEventListener.INSTANCE);
+    }
+}
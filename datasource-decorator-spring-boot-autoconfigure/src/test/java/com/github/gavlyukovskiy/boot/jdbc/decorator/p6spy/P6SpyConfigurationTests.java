@@ -19,16 +19,21 @@ package com.github.gavlyukovskiy.boot.jdbc.decorator.p6spy;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
 import com.github.gavlyukovskiy.boot.jdbc.decorator.HidePackagesClassLoader;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.SamplingDataSource;
 import com.p6spy.engine.common.ConnectionInformation;
 import com.p6spy.engine.common.P6LogQuery;
 import com.p6spy.engine.event.CompoundJdbcEventListener;
 import com.p6spy.engine.event.JdbcEventListener;
 import com.p6spy.engine.logging.Category;
 import com.p6spy.engine.logging.LoggingEventListener;
+import com.p6spy.engine.logging.P6LogOptions;
 import com.p6spy.engine.spy.JdbcEventListenerFactory;
 import com.p6spy.engine.spy.P6DataSource;
+import com.p6spy.engine.spy.P6ModuleManager;
+import com.p6spy.engine.spy.P6SpyOptions;
 import com.p6spy.engine.spy.appender.CustomLineFormat;
 import com.p6spy.engine.spy.appender.FormattedLogger;
+import com.p6spy.engine.spy.appender.Slf4JLogger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -103,6 +108,46 @@ public class P6SpyConfigurationTests {
         });
     }
 
+    @Test
+    void testConnectionsAreNotInstrumentedIfNotSampled() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withUserConfiguration(CustomListenerConfiguration.class)
+                .withPropertyValues("decorator.datasource.sampling.rate:0.0");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            GetCountingListener getCountingListener = context.getBean(GetCountingListener.class);
+            assertThat(((DecoratedDataSource) dataSource).getDecoratedDataSource()).isInstanceOf(SamplingDataSource.class);
+            assertThat(dataSource.unwrap(P6DataSource.class)).isInstanceOf(P6DataSource.class);
+
+            try (Connection ignored = dataSource.getConnection()) {
+                assertThat(getCountingListener.connectionCount).isEqualTo(0);
+            }
+
+            SamplingDataSource.setSampled(true);
+            try (Connection ignored = dataSource.getConnection()) {
+                assertThat(getCountingListener.connectionCount).isEqualTo(1);
+            }
+            finally {
+                SamplingDataSource.clearSampled();
+            }
+        });
+    }
+
+    @Test
+    void testConnectionsAreInstrumentedIfSampled() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withUserConfiguration(CustomListenerConfiguration.class)
+                .withPropertyValues("decorator.datasource.sampling.rate:1.0");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            GetCountingListener getCountingListener = context.getBean(GetCountingListener.class);
+
+            try (Connection ignored = dataSource.getConnection()) {
+                assertThat(getCountingListener.connectionCount).isEqualTo(1);
+            }
+        });
+    }
+
     @Test
     void testDoesNotRegisterLoggingListenerIfDisabled() {
         ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues("decorator.datasource.p6spy.enable-logging:false");
@@ -115,6 +160,36 @@ public class P6SpyConfigurationTests {
         });
     }
 
+    @Test
+    void testLoggingCanBeDisabledForSpecificBean() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.p6spy.logging:custom",
+                "decorator.datasource.p6spy.custom-appender-class:" + LogAccumulator.class.getName(),
+                "decorator.datasource.beans.dataSource.p6spy.enable-logging:false"
+        );
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(((DecoratedDataSource) dataSource).getDecoratedDataSource()).isInstanceOf(P6DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("select 1")
+            ) {
+                ps.execute();
+            }
+
+            assertThat(LogAccumulator.MESSAGES).isEmpty();
+        });
+    }
+
+    @Test
+    void testConfiguresP6SpyWithoutSystemProperties() {
+        contextRunner.run(context -> {
+            assertThat(System.getProperties().stringPropertyNames())
+                    .doesNotContain("p6spy.config.modulelist", "p6spy.config.appender", "p6spy.config.logfile");
+            assertThat(P6LogQuery.getLogger()).isInstanceOf(Slf4JLogger.class);
+        });
+    }
+
     @Test
     void testCanSetCustomLoggingFormat() {
         ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues("decorator.datasource.p6spy.log-format:test %{connectionId}");
@@ -143,6 +218,28 @@ public class P6SpyConfigurationTests {
         });
     }
 
+    @Test
+    void testOptionsNotConfiguredByPropertiesAreKept() {
+        String defaultDateFormat = P6SpyOptions.getActiveInstance().getDatabaseDialectDateFormat();
+        System.setProperty("p6spy.config.databaseDialectDateFormat", "yyyy-MM-dd");
+        try {
+            ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues("decorator.datasource.p6spy.multiline:true");
+
+            contextRunner.run(context -> {
+                assertThat(P6SpyOptions.getActiveInstance().getDatabaseDialectDateFormat()).isEqualTo("yyyy-MM-dd");
+                assertThat(P6LogOptions.getActiveInstance().getExcludebinary()).isFalse();
+            });
+
+            // options are restored on context close
+            assertThat(P6SpyOptions.getActiveInstance().getDatabaseDialectDateFormat()).isEqualTo("yyyy-MM-dd");
+            assertThat(P6LogOptions.getActiveInstance().getExcludebinary()).isFalse();
+        }
+        finally {
+            System.clearProperty("p6spy.config.databaseDialectDateFormat");
+            P6ModuleManager.getInstance().getOptions(P6SpyOptions.class).setDatabaseDialectDateFormat(defaultDateFormat);
+        }
+    }
+
     @Test
     void testUseCustomLogger() {
         ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
@@ -203,6 +300,69 @@ public class P6SpyConfigurationTests {
         });
     }
 
+    @Test
+    void testLogFilterSqlPatternIsMatchedWithoutParameterValues() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.p6spy.logging:custom",
+                "decorator.datasource.p6spy.custom-appender-class:" + LogAccumulator.class.getName(),
+                "decorator.datasource.p6spy.log-filter.sql-pattern:select \\? .*"
+        );
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            CompoundJdbcEventListener jdbcEventListener = (CompoundJdbcEventListener) context.getBean(JdbcEventListenerFactory.class).createJdbcEventListener();
+            assertThat(jdbcEventListener.getEventListeners()).extracting("class").contains(FilteringLoggingEventListener.class);
+
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps1 = connection.prepareStatement("select ? /* from table1 */");
+                 PreparedStatement ps2 = connection.prepareStatement("select 1 /* from table2 */")
+            ) {
+                ps1.setInt(1, 1);
+                ps1.execute();
+                ps2.execute();
+            }
+
+            assertThat(LogAccumulator.MESSAGES).hasSize(1);
+            assertThat(LogAccumulator.MESSAGES).allMatch(message -> message.contains("table1"));
+        });
+    }
+
+    @Test
+    void testLogFilterByDataSourceAndExecutionTime() {
+        ApplicationContextRunner contextRunner = this.contextRunner.withPropertyValues(
+                "decorator.datasource.p6spy.logging:custom",
+                "decorator.datasource.p6spy.custom-appender-class:" + LogAccumulator.class.getName()
+        );
+
+        contextRunner.withPropertyValues("decorator.datasource.p6spy.log-filter.data-sources:otherDataSource").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("select 1")) {
+                ps.execute();
+            }
+
+            assertThat(LogAccumulator.MESSAGES).isEmpty();
+        });
+        contextRunner.withPropertyValues("decorator.datasource.p6spy.log-filter.min-execution-time:1h").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("select 1")) {
+                ps.execute();
+            }
+
+            assertThat(LogAccumulator.MESSAGES).isEmpty();
+        });
+        contextRunner.withPropertyValues("decorator.datasource.p6spy.log-filter.data-sources:dataSource").run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("select 1")) {
+                ps.execute();
+            }
+
+            assertThat(LogAccumulator.MESSAGES).hasSize(1);
+        });
+    }
+
     @Configuration(proxyBeanMethods = false)
     static class CustomListenerConfiguration {
 
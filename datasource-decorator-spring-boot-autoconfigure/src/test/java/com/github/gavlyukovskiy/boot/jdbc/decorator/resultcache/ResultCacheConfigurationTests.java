@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultCacheConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedWithoutQueries() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.result-cache.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(ResultCacheDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratedBeforeDataSourceProxy() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.result-cache.enabled:true",
+                        "decorator.datasource.result-cache.queries[0].pattern:(?i)select .* from country .*");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, ResultCacheDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testResultsAreCachedAndCounted() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.result-cache.enabled:true",
+                        "decorator.datasource.result-cache.ttl:5m",
+                        "decorator.datasource.result-cache.max-size:1MB",
+                        "decorator.datasource.result-cache.queries[0].pattern:(?i)select .* from country where code = \\?");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("create table country (code varchar(2) primary key, name varchar(50))");
+                statement.execute("insert into country values ('UA', 'Ukraine')");
+            }
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement ps = connection.prepareStatement("select name from country where code = ?")) {
+                    ps.setString(1, "UA");
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertThat(rs.next()).isTrue();
+                        assertThat(rs.getString(1)).isEqualTo("Ukraine");
+                    }
+                }
+            }
+
+            ResultCacheStatistics statistics = context.getBean(ResultCacheDataSourceDecorator.class).getStatistics().get("dataSource");
+            assertThat(statistics.getMisses()).isEqualTo(1);
+            assertThat(statistics.getHits()).isEqualTo(2);
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.get(ResultCacheMetrics.REQUESTS_METRIC_NAME)
+                    .tag("datasource", "dataSource").tag("result", "hit").functionCounter().count())
+                    .isEqualTo(2);
+            assertThat(meterRegistry.get(ResultCacheMetrics.SIZE_METRIC_NAME).tag("datasource", "dataSource").gauge().value())
+                    .isPositive();
+        });
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ResultCacheDataSourceTest {
+
+    private static final String SELECT_COUNTRY = "select id, name, population from country where id = ?";
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final ResultCacheStatistics statistics = new ResultCacheStatistics();
+    private DataSource targetDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2DataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table country (id int primary key, name varchar(50), population bigint)");
+            statement.execute("insert into country values (1, 'Ukraine', 41000000), (2, 'Poland', null)");
+        }
+        targetDataSource = spy(h2DataSource);
+    }
+
+    @Test
+    void testCachedResultIsServedWithoutObtainingConnection() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+
+        assertThat(selectName(dataSource, 1)).isEqualTo("Ukraine");
+        assertThat(selectName(dataSource, 1)).isEqualTo("Ukraine");
+        assertThat(selectName(dataSource, 2)).isEqualTo("Poland");
+
+        verify(targetDataSource, times(2)).getConnection();
+        assertThat(statistics.getHits()).isEqualTo(1);
+        assertThat(statistics.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void testModificationInvalidatesResultsReadingTable() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+        selectName(dataSource, 1);
+        selectName(dataSource, 2);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("update country set name = ? where id = ?")) {
+            ps.setString(1, "Ukrajina");
+            ps.setInt(2, 1);
+            ps.executeUpdate();
+        }
+
+        assertThat(statistics.getInvalidations()).isEqualTo(2);
+        assertThat(selectName(dataSource, 1)).isEqualTo("Ukrajina");
+    }
+
+    @Test
+    void testUncommittedModificationIsVisibleToOwnTransaction() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+        selectName(dataSource, 1);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("update country set name = 'Ukrajina' where id = 1");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_COUNTRY)) {
+                ps.setInt(1, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertThat(rs.next()).isTrue();
+                    assertThat(rs.getString("name")).isEqualTo("Ukrajina");
+                }
+            }
+            // other connections still read committed value and may cache it until commit
+            assertThat(selectName(dataSource, 1)).isEqualTo("Ukraine");
+            connection.commit();
+        }
+
+        assertThat(selectName(dataSource, 1)).isEqualTo("Ukrajina");
+    }
+
+    @Test
+    void testExpiredResultIsReadAgain() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+        selectName(dataSource, 1);
+
+        nanoTime.addAndGet(Duration.ofMinutes(2).toNanos());
+        selectName(dataSource, 1);
+
+        assertThat(statistics.getHits()).isZero();
+        assertThat(statistics.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void testLeastRecentlyUsedResultsAreEvictedWhenCacheIsFull() throws Exception {
+        ResultCache measuringCache = new ResultCache(1024 * 1024, new ResultCacheStatistics());
+        selectName(new ResultCacheDataSource(targetDataSource, cachedQueryResolver(), measuringCache), 1);
+        long entrySize = measuringCache.size();
+
+        ResultCacheDataSource dataSource = resultCacheDataSource(entrySize + entrySize / 2);
+        selectName(dataSource, 1);
+        selectName(dataSource, 2);
+        selectName(dataSource, 1);
+
+        assertThat(statistics.getEvictions()).isPositive();
+        assertThat(statistics.getHits()).isZero();
+    }
+
+    @Test
+    void testStatementWithUnsupportedParameterIsNotCached() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("select id from country where name = ?")) {
+            ps.setCharacterStream(1, new StringReader("Poland"));
+            try (ResultSet rs = ps.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getInt(1)).isEqualTo(2);
+            }
+        }
+
+        assertThat(statistics.getMisses()).isZero();
+    }
+
+    @Test
+    void testCachedResultSetConvertsValues() throws Exception {
+        ResultCacheDataSource dataSource = resultCacheDataSource(1024 * 1024);
+        selectName(dataSource, 2);
+        clearInvocations(targetDataSource);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_COUNTRY)) {
+            ps.setInt(1, 2);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertThat(rs).isInstanceOf(CachedResultSet.class);
+                assertThat(rs.getStatement()).isSameAs(ps);
+                assertThat(rs.getMetaData().getColumnCount()).isEqualTo(3);
+                assertThat(rs.getMetaData().getColumnLabel(2)).isEqualToIgnoringCase("name");
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getLong("ID")).isEqualTo(2L);
+                assertThat(rs.getObject(1, Long.class)).isEqualTo(2L);
+                assertThat(rs.getBigDecimal(1)).isEqualTo(BigDecimal.valueOf(2));
+                assertThat(rs.getString(1)).isEqualTo("2");
+                assertThat(rs.getLong(3)).isZero();
+                assertThat(rs.wasNull()).isTrue();
+                assertThat(rs.next()).isFalse();
+            }
+        }
+        verify(targetDataSource, never()).getConnection();
+    }
+
+    private ResultCacheDataSource resultCacheDataSource(long maxSize) {
+        return new ResultCacheDataSource(targetDataSource, cachedQueryResolver(), new ResultCache(maxSize, statistics, nanoTime::get));
+    }
+
+    private static CachedQueryResolver cachedQueryResolver() {
+        ResultCacheProperties.CachedQuery query = new ResultCacheProperties.CachedQuery();
+        query.setPattern(Pattern.compile("(?i)select .* from country where .*"));
+        return new CachedQueryResolver(List.of(query), Duration.ofMinutes(1));
+    }
+
+    private static String selectName(DataSource dataSource, int id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_COUNTRY)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                return rs.getString("name");
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.resultcache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlTablesTest {
+
+    @Test
+    void testModifiedTables() {
+        assertThat(SqlTables.modifiedTables("update public.country set name = ? where id = ?")).containsExactly("country");
+        assertThat(SqlTables.modifiedTables("insert into `city` (id, name) values (?, ?)")).containsExactly("city");
+        assertThat(SqlTables.modifiedTables("delete from \"Country\" where id = ?")).containsExactly("country");
+        assertThat(SqlTables.modifiedTables("update t1 a, t2 b set a.x = b.x")).containsExactly("t1", "t2");
+        assertThat(SqlTables.modifiedTables("truncate table city")).containsExactly("city");
+        assertThat(SqlTables.modifiedTables("select * from country")).isEmpty();
+    }
+
+    @Test
+    void testIdentifiersIncludeAllTablesOfQuery() {
+        assertThat(SqlTables.identifiers("select c.name from country c join city ct on ct.country_id = c.id, region r where r.id = ?"))
+                .contains("country", "city", "region");
+    }
+}
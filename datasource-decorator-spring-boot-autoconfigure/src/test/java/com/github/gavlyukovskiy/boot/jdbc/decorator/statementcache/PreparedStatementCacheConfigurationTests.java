@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreparedStatementCacheConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedByDefault() {
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(PreparedStatementCacheDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratedInsideOtherDecorators() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.prepared-statement-cache.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, PreparedStatementCacheDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testStatementsAreReusedAcrossConnectionsOfHikari() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.prepared-statement-cache.enabled:true",
+                        "spring.datasource.type:com.zaxxer.hikari.HikariDataSource",
+                        "spring.datasource.hikari.maximum-pool-size:1");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement ps = connection.prepareStatement("SELECT ?")) {
+                    ps.setInt(1, i);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        assertThat(rs.next()).isTrue();
+                        assertThat(rs.getInt(1)).isEqualTo(i);
+                    }
+                }
+            }
+
+            PreparedStatementCacheStatistics statistics = context.getBean(PreparedStatementCacheDataSourceDecorator.class)
+                    .getStatistics().get("dataSource");
+            assertThat(statistics.getMisses()).isEqualTo(1);
+            assertThat(statistics.getHits()).isEqualTo(2);
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.get(PreparedStatementCacheMetrics.REQUESTS_METRIC_NAME)
+                    .tag("datasource", "dataSource").tag("result", "hit").functionCounter().count())
+                    .isEqualTo(2);
+        });
+    }
+
+    @Test
+    void testStatementsAreReusedAcrossConnectionsOfDbcp2() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.prepared-statement-cache.enabled:true",
+                        "spring.datasource.type:org.apache.commons.dbcp2.BasicDataSource",
+                        "spring.datasource.dbcp2.max-total:1",
+                        "spring.datasource.dbcp2.access-to-underlying-connection-allowed:true");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            executeTwice(dataSource);
+
+            PreparedStatementCacheStatistics statistics = context.getBean(PreparedStatementCacheDataSourceDecorator.class)
+                    .getStatistics().get("dataSource");
+            assertThat(statistics.getMisses()).isEqualTo(1);
+            assertThat(statistics.getHits()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void testStatementsAreNotCachedWithoutAccessToUnderlyingConnectionOfDbcp2() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.prepared-statement-cache.enabled:true",
+                        "spring.datasource.type:org.apache.commons.dbcp2.BasicDataSource",
+                        "spring.datasource.dbcp2.max-total:1");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            executeTwice(dataSource);
+
+            PreparedStatementCacheStatistics statistics = context.getBean(PreparedStatementCacheDataSourceDecorator.class)
+                    .getStatistics().get("dataSource");
+            assertThat(statistics.getMisses()).isZero();
+            assertThat(statistics.getHits()).isZero();
+        });
+    }
+
+    private static void executeTwice(DataSource dataSource) throws SQLException {
+        for (int i = 0; i < 2; i++) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT ?")) {
+                ps.setInt(1, i);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertThat(rs.next()).isTrue();
+                    assertThat(rs.getInt(1)).isEqualTo(i);
+                }
+            }
+        }
+    }
+}
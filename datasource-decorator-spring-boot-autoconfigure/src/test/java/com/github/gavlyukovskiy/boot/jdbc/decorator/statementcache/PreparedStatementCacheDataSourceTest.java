@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.statementcache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreparedStatementCacheDataSourceTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatementCacheStatistics statistics = new PreparedStatementCacheStatistics();
+
+    @Test
+    void testStatementIsReusedOnTheSameConnection() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection()) {
+            cachingConnection.prepareStatement("select 1").close();
+        }
+        try (Connection cachingConnection = cacheDataSource.getConnection()) {
+            cachingConnection.prepareStatement("select 1").close();
+        }
+
+        verify(connection, times(1)).prepareStatement("select 1");
+        verify(preparedStatement, times(2)).clearParameters();
+        verify(preparedStatement, never()).close();
+        assertThat(statistics.getHits()).isEqualTo(1);
+        assertThat(statistics.getMisses()).isEqualTo(1);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testLeastRecentlyUsedStatementIsEvicted() throws Exception {
+        PreparedStatement first = mock(PreparedStatement.class);
+        PreparedStatement second = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(first);
+        when(connection.prepareStatement("select 2")).thenReturn(second);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 1, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection()) {
+            cachingConnection.prepareStatement("select 1").close();
+            cachingConnection.prepareStatement("select 2").close();
+        }
+
+        verify(first).close();
+        verify(second, never()).close();
+        assertThat(statistics.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void testStatementSettingsAreRestoredBeforeReuse() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+        when(preparedStatement.getFetchSize()).thenReturn(0);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection();
+             PreparedStatement statement = cachingConnection.prepareStatement("select 1")) {
+            statement.setFetchSize(500);
+        }
+
+        verify(preparedStatement).setFetchSize(500);
+        verify(preparedStatement).setFetchSize(0);
+        verify(preparedStatement, never()).close();
+    }
+
+    @Test
+    void testStatementWithUnrestorableSettingsIsClosed() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection();
+             PreparedStatement statement = cachingConnection.prepareStatement("select 1")) {
+            statement.setCursorName("cursor");
+        }
+
+        verify(preparedStatement).close();
+    }
+
+    @Test
+    void testClosedStatementCannotBeUsed() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection()) {
+            PreparedStatement statement = cachingConnection.prepareStatement("select 1");
+            statement.close();
+
+            assertThat(statement.isClosed()).isTrue();
+            assertThatThrownBy(statement::executeQuery).isInstanceOf(SQLException.class);
+        }
+        verify(preparedStatement, never()).executeQuery();
+    }
+
+    @Test
+    void testOpenStatementsAreReturnedAndTransactionRolledBackOnClose() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.prepareStatement("update users set name = ?")).thenReturn(preparedStatement);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        Connection cachingConnection = cacheDataSource.getConnection();
+        PreparedStatement statement = cachingConnection.prepareStatement("update users set name = ?");
+        statement.executeUpdate();
+        cachingConnection.close();
+
+        assertThat(statement.isClosed()).isTrue();
+        verify(preparedStatement).clearParameters();
+        verify(connection).rollback();
+        verify(connection).close();
+    }
+
+    @Test
+    void testCommittedTransactionIsNotRolledBackOnClose() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.prepareStatement("update users set name = ?")).thenReturn(preparedStatement);
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection();
+             PreparedStatement statement = cachingConnection.prepareStatement("update users set name = ?")) {
+            statement.executeUpdate();
+            cachingConnection.commit();
+        }
+
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void testBrokenConnectionIsEvictedFromPool() throws Exception {
+        HikariDataSource hikariDataSource = mock(HikariDataSource.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikariDataSource);
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenThrow(new SQLTransientConnectionException("connection reset", "08006"));
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection();
+             PreparedStatement statement = cachingConnection.prepareStatement("select 1")) {
+            assertThatThrownBy(statement::executeQuery).hasMessage("connection reset");
+        }
+
+        verify(hikariDataSource).evictConnection(connection);
+    }
+
+    @Test
+    void testConnectionIsNotEvictedOnStatementFailure() throws Exception {
+        HikariDataSource hikariDataSource = mock(HikariDataSource.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikariDataSource);
+        when(connection.prepareStatement("insert into users values (?)")).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        PreparedStatementCacheDataSource cacheDataSource = new PreparedStatementCacheDataSource(dataSource, 10, statistics);
+        try (Connection cachingConnection = cacheDataSource.getConnection();
+             PreparedStatement statement = cachingConnection.prepareStatement("insert into users values (?)")) {
+            assertThatThrownBy(statement::executeUpdate).hasMessage("duplicate key");
+        }
+
+        verify(hikariDataSource, never()).evictConnection(connection);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DataSourceDecoratorAutoConfiguration;
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.flexypool.FlexyPoolDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementTimeoutConfigurationTests {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    DataSourceAutoConfiguration.class,
+                    DataSourceDecoratorAutoConfiguration.class,
+                    PropertyPlaceholderAutoConfiguration.class
+            ))
+            .withPropertyValues("spring.sql.init.mode=never",
+                    "spring.datasource.url:jdbc:h2:mem:testdb-" + ThreadLocalRandom.current().nextInt());
+
+    @Test
+    void testNotDecoratedByDefault() {
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(StatementTimeoutDataSource.class);
+        });
+    }
+
+    @Test
+    void testNotDecoratedWithoutTimeouts() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.statement-timeout.enabled:true");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .doesNotContain(StatementTimeoutDataSource.class);
+        });
+    }
+
+    @Test
+    void testDecoratedBeforeDataSourceProxy() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.statement-timeout.enabled:true",
+                        "decorator.datasource.statement-timeout.default-timeout:30");
+
+        contextRunner.run(context -> {
+            DecoratedDataSource dataSource = context.getBean(DecoratedDataSource.class);
+
+            assertThat(dataSource.getDecoratingChain()).extracting("dataSource").extracting("class")
+                    .containsExactly(P6DataSource.class, ProxyDataSource.class, StatementTimeoutDataSource.class, FlexyPoolDataSource.class);
+        });
+    }
+
+    @Test
+    void testAppliesTimeoutByQueryPattern() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.statement-timeout.enabled:true",
+                        "decorator.datasource.statement-timeout.default-timeout:30s",
+                        "decorator.datasource.statement-timeout.queries[0].pattern:(?i)select \\? from dual",
+                        "decorator.datasource.statement-timeout.queries[0].timeout:5");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection()) {
+                try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM DUAL")) {
+                    assertThat(ps.getQueryTimeout()).isEqualTo(5);
+                }
+                try (PreparedStatement ps = connection.prepareStatement("SELECT 2")) {
+                    assertThat(ps.getQueryTimeout()).isEqualTo(30);
+                }
+            }
+        });
+    }
+
+    @Test
+    void testDefaultTimeoutOverriddenForSpecificBean() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withPropertyValues("decorator.datasource.statement-timeout.enabled:true",
+                        "decorator.datasource.statement-timeout.default-timeout:30s",
+                        "decorator.datasource.beans.dataSource.statement-timeout.default-timeout:3s");
+
+        contextRunner.run(context -> {
+            DataSource dataSource = context.getBean(DataSource.class);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("SELECT 1")) {
+                assertThat(ps.getQueryTimeout()).isEqualTo(3);
+            }
+        });
+    }
+
+    @Test
+    void testTimeoutsAreCountedPerDataSource() {
+        ApplicationContextRunner contextRunner = this.contextRunner
+                .withBean(SimpleMeterRegistry.class)
+                .withPropertyValues("decorator.datasource.statement-timeout.enabled:true",
+                        "decorator.datasource.statement-timeout.default-timeout:30s");
+
+        contextRunner.run(context -> {
+            context.getBean(StatementTimeoutMetrics.class).onTimeout("dataSource", "SELECT 1");
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.get(StatementTimeoutMetrics.METRIC_NAME).tag("datasource", "dataSource").counter().count())
+                    .isEqualTo(1);
+        });
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gavlyukovskiy.boot.jdbc.decorator.timeout;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatementTimeoutDataSourceTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final List<String> timedOutQueries = new ArrayList<>();
+
+    @Test
+    void testPreparedStatementGetsTimeoutOfMatchingQuery() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(Duration.ofSeconds(2), "select \\* from reports where id = \\?", Duration.ofMillis(4500));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection()) {
+            timeoutConnection.prepareStatement("select * from reports where id = 10");
+            verify(preparedStatement).setQueryTimeout(5);
+
+            timeoutConnection.prepareStatement("select * from users");
+            verify(preparedStatement).setQueryTimeout(2);
+        }
+    }
+
+    @Test
+    void testPlainStatementGetsTimeoutOnEachExecution() throws Exception {
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(Duration.ofSeconds(2), "select \\* from reports", Duration.ofSeconds(10));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection();
+             Statement timeoutStatement = timeoutConnection.createStatement()) {
+            timeoutStatement.execute("select * from users");
+            timeoutStatement.execute("select * from orders");
+            verify(statement, times(1)).setQueryTimeout(2);
+
+            timeoutStatement.executeQuery("select * from reports");
+            verify(statement).setQueryTimeout(10);
+        }
+    }
+
+    @Test
+    void testTimeoutSetByApplicationIsNotOverridden() throws Exception {
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(Duration.ofSeconds(2), "select \\* from reports", Duration.ofSeconds(10));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection();
+             Statement timeoutStatement = timeoutConnection.createStatement()) {
+            timeoutStatement.setQueryTimeout(30);
+            timeoutStatement.execute("select * from users");
+            timeoutStatement.execute("select * from reports");
+
+            verify(statement).setQueryTimeout(30);
+            verify(statement, never()).setQueryTimeout(2);
+            verify(statement, never()).setQueryTimeout(10);
+        }
+    }
+
+    @Test
+    void testStatementsReturnDecoratedConnection() throws Exception {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(connection.prepareCall(anyString())).thenReturn(mock(CallableStatement.class));
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(Duration.ofSeconds(2), "select \\* from reports", Duration.ofSeconds(10));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection()) {
+            assertThat(timeoutConnection.createStatement().getConnection()).isSameAs(timeoutConnection);
+            assertThat(timeoutConnection.prepareStatement("select * from users").getConnection()).isSameAs(timeoutConnection);
+            assertThat(timeoutConnection.prepareCall("call report()").getConnection()).isSameAs(timeoutConnection);
+        }
+    }
+
+    @Test
+    void testTimeoutIsReportedToListeners() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenThrow(new SQLTimeoutException("timed out"));
+        when(preparedStatement.executeUpdate()).thenThrow(new SQLException("canceling statement due to user request", "57014"));
+        when(preparedStatement.execute()).thenThrow(new SQLException("syntax error", "42000"));
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(Duration.ofSeconds(2), "select \\* from reports", Duration.ofSeconds(10));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection();
+             PreparedStatement timeoutStatement = timeoutConnection.prepareStatement("select * from reports")) {
+            assertThatThrownBy(timeoutStatement::executeQuery).isInstanceOf(SQLTimeoutException.class);
+            assertThatThrownBy(timeoutStatement::executeUpdate).hasMessage("canceling statement due to user request");
+            assertThatThrownBy(timeoutStatement::execute).hasMessage("syntax error");
+        }
+        assertThat(timedOutQueries).containsExactly("dataSource: select * from reports", "dataSource: select * from reports");
+    }
+
+    @Test
+    void testStatementIsNotChangedWithoutTimeout() throws Exception {
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+
+        StatementTimeoutDataSource timeoutDataSource = timeoutDataSource(null, "select \\* from reports", Duration.ofSeconds(10));
+        try (Connection timeoutConnection = timeoutDataSource.getConnection()) {
+            timeoutConnection.prepareStatement("select * from users");
+            verify(preparedStatement, never()).setQueryTimeout(anyInt());
+        }
+    }
+
+    private StatementTimeoutDataSource timeoutDataSource(Duration defaultTimeout, String pattern, Duration timeout) {
+        StatementTimeoutProperties.QueryTimeout queryTimeout = new StatementTimeoutProperties.QueryTimeout();
+        queryTimeout.setPattern(Pattern.compile(pattern));
+        queryTimeout.setTimeout(timeout);
+        QueryTimeoutResolver queryTimeoutResolver = new QueryTimeoutResolver(List.of(queryTimeout), defaultTimeout);
+        StatementTimeoutListener listener = (dataSourceName, sql) -> timedOutQueries.add(dataSourceName + ": " + sql);
+        return new StatementTimeoutDataSource("dataSource", dataSource, queryTimeoutResolver, List.of(listener));
+    }
+}
@@ -3,6 +3,7 @@ include("datasource-decorator-spring-boot-autoconfigure")
 include("p6spy-spring-boot-starter")
 include("datasource-proxy-spring-boot-starter")
 include("flexy-pool-spring-boot-starter")
+include("datasource-decorator-benchmarks")
 
 include("samples:p6spy-sample")
 include("samples:datasource-proxy-sample")